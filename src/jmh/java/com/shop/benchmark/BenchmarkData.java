@@ -0,0 +1,100 @@
+package com.shop.benchmark;
+
+import com.shop.enums.ProductCategory;
+import com.shop.model.person.Cashier;
+import com.shop.model.product.Product;
+import com.shop.model.product.ProductFactory;
+import com.shop.model.sales.Receipt;
+import com.shop.model.store.Store;
+import com.shop.repository.ProductRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+final class BenchmarkData {
+
+    static final int REGISTERS = 5;
+    static final int HISTORY_DAYS = 365;
+
+    private BenchmarkData() {
+    }
+
+    static Store newStore() {
+        return new Store("Benchmark Shop", 20.0, 15.0, 5, 30.0);
+    }
+
+    static List<Product> createCatalog(int catalogSize, int stockPerProduct) {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDate today = LocalDate.now();
+        List<Product> products = new ArrayList<>(catalogSize);
+
+        for (int i = 1; i <= catalogSize; i++) {
+            ProductCategory category = (i & 1) == 0 ? ProductCategory.FOOD : ProductCategory.NON_FOOD;
+            LocalDate expirationDate = today.plusDays(random.nextInt(-30, 720));
+            double purchasePrice = 0.5 + random.nextInt(1, 10_000) / 100.0;
+            products.add(ProductFactory.createProductWithId(i, category, "Product " + i,
+                    purchasePrice, expirationDate, stockPerProduct));
+        }
+        return products;
+    }
+
+    static List<Cashier> createCashiers(Store store) {
+        List<Cashier> cashiers = new ArrayList<>(REGISTERS);
+        for (int i = 1; i <= REGISTERS; i++) {
+            Cashier cashier = new Cashier(i, "Cashier " + i, 1500.0, i);
+            store.addEmployee(cashier);
+            cashiers.add(cashier);
+        }
+        return cashiers;
+    }
+
+    static Store createStore(int catalogSize, int receiptCount) {
+        Store store = newStore();
+        List<Product> products = createCatalog(catalogSize, 1_000_000);
+        for (Product product : products) {
+            store.addProduct(product);
+        }
+        List<Cashier> cashiers = createCashiers(store);
+        store.setReceipts(createReceipts(products, cashiers, receiptCount));
+        return store;
+    }
+
+    static ProductRepository createRepository(int catalogSize) {
+        ProductRepository repository = new ProductRepository();
+        for (Product product : createCatalog(catalogSize, 1_000)) {
+            repository.save(product);
+        }
+        return repository;
+    }
+
+    // Receipts are spread evenly over the last HISTORY_DAYS days in time order
+    static List<Receipt> createReceipts(List<Product> products, List<Cashier> cashiers, int receiptCount) {
+        SplittableRandom random = new SplittableRandom(7);
+        LocalDateTime start = LocalDate.now().minusDays(HISTORY_DAYS - 1).atStartOfDay();
+        long secondsPerReceipt = Math.max(1, HISTORY_DAYS * 86_400L / Math.max(1, receiptCount));
+        List<Receipt> receipts = new ArrayList<>(receiptCount);
+
+        for (int i = 0; i < receiptCount; i++) {
+            Receipt receipt = new Receipt(i + 1, cashiers.get(random.nextInt(cashiers.size())),
+                    start.plusSeconds(i * secondsPerReceipt));
+            receipt.setItems(randomBasket(products, random));
+            receipt.setTotalAmount(random.nextInt(100, 20_000) / 100.0);
+            receipts.add(receipt);
+        }
+        return receipts;
+    }
+
+    static Map<Product, Integer> randomBasket(List<Product> products, SplittableRandom random) {
+        int lines = random.nextInt(1, 6);
+        Map<Product, Integer> basket = new HashMap<>();
+        for (int i = 0; i < lines; i++) {
+            basket.merge(products.get(random.nextInt(products.size())), random.nextInt(1, 4), Integer::sum);
+        }
+        return basket;
+    }
+}
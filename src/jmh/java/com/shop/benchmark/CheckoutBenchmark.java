@@ -0,0 +1,66 @@
+package com.shop.benchmark;
+
+import com.shop.model.person.Cashier;
+import com.shop.model.product.Product;
+import com.shop.model.sales.Receipt;
+import com.shop.model.store.Store;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    private Store store;
+    private Cashier cashier;
+    private List<Map<Product, Integer>> baskets;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = BenchmarkData.newStore();
+        List<Product> sellable = new ArrayList<>();
+        for (Product product : BenchmarkData.createCatalog(catalogSize, Integer.MAX_VALUE / 2)) {
+            store.addProduct(product);
+            if (!product.isExpired()) {
+                sellable.add(product);
+            }
+        }
+        cashier = BenchmarkData.createCashiers(store).get(0);
+
+        SplittableRandom random = new SplittableRandom(1);
+        baskets = new ArrayList<>(1024);
+        for (int i = 0; i < 1024; i++) {
+            baskets.add(BenchmarkData.randomBasket(sellable, random));
+        }
+    }
+
+    @Benchmark
+    public Receipt createReceipt() throws Exception {
+        Map<Product, Integer> basket = baskets.get(next++ & 1023);
+        return cashier.createReceipt(basket, store);
+    }
+}
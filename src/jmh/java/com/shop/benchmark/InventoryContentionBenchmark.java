@@ -0,0 +1,69 @@
+package com.shop.benchmark;
+
+import com.shop.exceptions.InsufficientQuantityException;
+import com.shop.model.product.Product;
+import com.shop.model.store.Inventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+// Thread count defaults to 8; sweep it with -t, e.g. -Djmh.args="InventoryContentionBenchmark -t 32"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class InventoryContentionBenchmark {
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    // With sameSku every thread hammers product 1, otherwise each thread walks its own stretch of the catalog
+    @Param({"false", "true"})
+    private boolean sameSku;
+
+    private Inventory inventory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        inventory = new Inventory();
+        for (Product product : BenchmarkData.createCatalog(catalogSize, 1_000_000)) {
+            inventory.addProduct(product);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int productId;
+
+        @Setup(Level.Trial)
+        public void setUp(InventoryContentionBenchmark benchmark, ThreadParams threads) {
+            productId = 1 + (threads.getThreadIndex() * 7919) % benchmark.catalogSize;
+        }
+    }
+
+    @Benchmark
+    public void updateQuantity(Cursor cursor) throws InsufficientQuantityException {
+        int productId = sameSku ? 1 : cursor.productId;
+        inventory.updateQuantity(productId, 1);
+        inventory.updateQuantity(productId, -1);
+        if (!sameSku) {
+            cursor.productId = productId == catalogSize ? 1 : productId + 1;
+        }
+    }
+}
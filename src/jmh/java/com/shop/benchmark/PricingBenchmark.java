@@ -0,0 +1,51 @@
+package com.shop.benchmark;
+
+import com.shop.model.product.Product;
+import com.shop.model.store.Store;
+import com.shop.service.impl.PricingServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    private PricingServiceImpl pricingService;
+    private Product[] products;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Store store = BenchmarkData.newStore();
+        List<Product> catalog = BenchmarkData.createCatalog(catalogSize, 100);
+        products = catalog.toArray(new Product[0]);
+        pricingService = new PricingServiceImpl(store);
+    }
+
+    @Benchmark
+    public double calculateSellingPrice() {
+        Product product = products[next];
+        next = next + 1 == products.length ? 0 : next + 1;
+        return pricingService.calculateSellingPrice(product);
+    }
+}
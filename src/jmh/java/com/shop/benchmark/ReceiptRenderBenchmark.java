@@ -0,0 +1,45 @@
+package com.shop.benchmark;
+
+import com.shop.model.person.Cashier;
+import com.shop.model.product.Product;
+import com.shop.model.sales.Receipt;
+import com.shop.model.store.Store;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceiptRenderBenchmark {
+
+    private Receipt[] receipts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Store store = BenchmarkData.newStore();
+        List<Product> products = BenchmarkData.createCatalog(1000, 100);
+        List<Cashier> cashiers = BenchmarkData.createCashiers(store);
+        receipts = BenchmarkData.createReceipts(products, cashiers, 1024).toArray(new Receipt[0]);
+    }
+
+    @Benchmark
+    public String generateReceiptText() {
+        return receipts[next++ & 1023].generateReceiptText();
+    }
+}
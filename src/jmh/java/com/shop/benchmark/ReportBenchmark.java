@@ -0,0 +1,63 @@
+package com.shop.benchmark;
+
+import com.shop.model.sales.SalesReport;
+import com.shop.model.store.FinancialReport;
+import com.shop.model.store.Store;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ReportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"10000", "1000000", "10000000"})
+    private int receiptCount;
+
+    @Param({"30", "365"})
+    private int days;
+
+    private Store store;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = BenchmarkData.createStore(catalogSize, receiptCount);
+        endDate = LocalDate.now();
+        startDate = endDate.minusDays(days - 1);
+    }
+
+    @Benchmark
+    public SalesReport salesReport() {
+        SalesReport report = new SalesReport();
+        report.generateReport(store, startDate, endDate);
+        return report;
+    }
+
+    @Benchmark
+    public FinancialReport financialReport() {
+        FinancialReport report = new FinancialReport();
+        report.generateReport(store, startDate, endDate);
+        return report;
+    }
+}
@@ -2,9 +2,15 @@ package com.shop;
 
 import com.shop.enums.EmployeePosition;
 import com.shop.enums.ProductCategory;
+import com.shop.metrics.MetricsRegistry;
+import com.shop.metrics.PrometheusEndpoint;
 import com.shop.model.person.Cashier;
 import com.shop.model.person.Manager;
 import com.shop.model.store.Store;
+import com.shop.persistence.Journal;
+import com.shop.persistence.ReceiptArchive;
+import com.shop.persistence.StoreRecovery;
+import com.shop.persistence.StoreSnapshots;
 import com.shop.repository.EmployeeRepository;
 import com.shop.repository.ProductRepository;
 import com.shop.repository.ReceiptRepository;
@@ -12,15 +18,30 @@ import com.shop.repository.SaleRepository;
 import com.shop.service.*;
 import com.shop.service.impl.*;
 import com.shop.ui.ConsoleUI;
+import com.shop.utils.BusinessClock;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
+    private static final String JOURNAL_DIRECTORY = "data/journal";
+    private static final String SNAPSHOT_DIRECTORY = "data/snapshots";
+    private static final String RECEIPT_ARCHIVE_DIRECTORY = "reports/receipts";
+    private static final long SNAPSHOT_INTERVAL_MINUTES = 10;
+    // Port of the local Prometheus endpoint; zero or less turns it off
+    private static final int METRICS_PORT = Integer.getInteger("shop.metrics.port", 9404);
+
     public static void main(String[] args) {
         System.out.println("Shop Management System");
+        BusinessClock.get().start();
 
         // Initialize store
         Store store = new Store("My Shop", 20.0, 15.0, 5, 30.0);
+        // Move products into the discount window or out of sale as each business day starts
+        BusinessClock.get().addRolloverListener(store.getExpirationTimeline());
 
         ProductRepository productRepository = new ProductRepository();
         EmployeeRepository employeeRepository = new EmployeeRepository();
@@ -31,12 +52,86 @@ public class Main {
         EmployeeService employeeService = new EmployeeServiceImpl(store, employeeRepository);
         SalesService salesService = new SalesServiceImpl(store, receiptRepository, saleRepository);
         PricingService pricingService = new PricingServiceImpl(store);
-        ReportingService reportingService = new ReportingServiceImpl(store, inventoryService, employeeService);
+        ReportingService reportingService = new ReportingServiceImpl(store, inventoryService, employeeService,
+                openReceiptArchive());
+
+        Journal journal = null;
+        StoreSnapshots snapshots = null;
+        boolean recovered = false;
+        try {
+            journal = new Journal(Paths.get(JOURNAL_DIRECTORY));
+            snapshots = new StoreSnapshots(Paths.get(SNAPSHOT_DIRECTORY), store,
+                    productRepository, employeeRepository, receiptRepository, saleRepository);
+            recovered = new StoreRecovery(store, productRepository, employeeRepository, receiptRepository, saleRepository)
+                    .recover(journal, snapshots);
+            snapshots.schedule(SNAPSHOT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        } catch (IOException e) {
+            System.err.println("Failed to open journal, running without persistence: " + e.getMessage());
+        }
+
+        if (!recovered) {
+            initializeSampleData(store, inventoryService, employeeService);
+        }
 
-        initializeSampleData(store, inventoryService, employeeService);
+        PrometheusEndpoint metricsEndpoint = startMetrics(store);
 
         ConsoleUI ui = new ConsoleUI(store, inventoryService, employeeService, salesService, pricingService, reportingService);
         ui.start();
+        reportingService.shutdown();
+        BusinessClock.get().stop();
+
+        if (metricsEndpoint != null) {
+            metricsEndpoint.close();
+        }
+
+        if (snapshots != null) {
+            snapshots.close();
+            try {
+                snapshots.write();
+            } catch (IOException e) {
+                System.err.println("Failed to write snapshot: " + e.getMessage());
+            }
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private static ReceiptArchive openReceiptArchive() {
+        try {
+            return new ReceiptArchive(Paths.get(RECEIPT_ARCHIVE_DIRECTORY));
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Failed to open receipt archive, writing receipts one file each: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static PrometheusEndpoint startMetrics(Store store) {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        metrics.gauge("shop_inventory_value", "Purchase value of the stock on hand", store::getInventoryValue);
+        metrics.gauge("shop_products", "Products in the catalog", () -> store.getInventory().size());
+        metrics.gauge("shop_receipts", "Receipts issued", () -> store.getReceipts().size());
+        metrics.gauge("shop_income", "Income from all completed sales", store::calculateIncome);
+
+        try {
+            metrics.registerMBean();
+        } catch (JMException e) {
+            System.err.println("Failed to register metrics MBean: " + e.getMessage());
+        }
+
+        if (METRICS_PORT <= 0) {
+            return null;
+        }
+        try {
+            return new PrometheusEndpoint(metrics, METRICS_PORT);
+        } catch (IOException e) {
+            System.err.println("Failed to start metrics endpoint on port " + METRICS_PORT + ": " + e.getMessage());
+            return null;
+        }
     }
 
     private static void initializeSampleData(Store store, InventoryService inventoryService, EmployeeService employeeService) {
@@ -50,7 +145,7 @@ public class Main {
         employeeService.assignManagerToDepartment(manager.getId(), "General");
 
 
-        LocalDate today = LocalDate.now();
+        LocalDate today = BusinessClock.get().today();
         inventoryService.addProduct(ProductCategory.FOOD, "Milk", 2.5, today.plusDays(7), 50);
         inventoryService.addProduct(ProductCategory.FOOD, "Bread", 1.8, today.plusDays(5), 30);
         inventoryService.addProduct(ProductCategory.FOOD, "Eggs", 3.2, today.plusDays(14), 20);
@@ -0,0 +1,7 @@
+package com.shop.enums;
+
+public enum AdjustmentStatus {
+    APPLIED,
+    PRODUCT_NOT_FOUND,
+    INSUFFICIENT_QUANTITY
+}
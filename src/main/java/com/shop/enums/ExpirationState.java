@@ -0,0 +1,7 @@
+package com.shop.enums;
+
+public enum ExpirationState {
+    FRESH,
+    DISCOUNTED,
+    EXPIRED
+}
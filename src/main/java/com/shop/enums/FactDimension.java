@@ -0,0 +1,8 @@
+package com.shop.enums;
+
+public enum FactDimension {
+    DAY,
+    PRODUCT,
+    CASHIER,
+    REGISTER
+}
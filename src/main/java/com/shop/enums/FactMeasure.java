@@ -0,0 +1,8 @@
+package com.shop.enums;
+
+public enum FactMeasure {
+    LINES,
+    QUANTITY,
+    AMOUNT_CENTS,
+    COST_CENTS
+}
@@ -0,0 +1,14 @@
+package com.shop.enums;
+
+public enum JournalEventType {
+    PRODUCT_ADDED,
+    PRODUCT_REMOVED,
+    STOCK_ADJUSTED,
+    SALE_COMPLETED,
+    EMPLOYEE_ADDED,
+    EMPLOYEE_REMOVED,
+    SALARY_CHANGED,
+    CASHIER_ASSIGNED,
+    PRICING_CHANGED,
+    STOCK_BATCH_ADJUSTED
+}
@@ -0,0 +1,7 @@
+package com.shop.enums;
+
+public enum ProductRanking {
+    UNITS,
+    REVENUE,
+    MARGIN
+}
@@ -0,0 +1,9 @@
+package com.shop.enums;
+
+public enum SyncStatus {
+    COMPLETED,
+    DUPLICATE,
+    INSUFFICIENT_QUANTITY,
+    EXPIRED_PRODUCT,
+    ALREADY_COMPLETED
+}
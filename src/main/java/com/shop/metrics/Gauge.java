@@ -0,0 +1,29 @@
+package com.shop.metrics;
+
+import java.util.function.DoubleSupplier;
+
+// Reads its value from the supplier on every scrape, so nothing is recorded on the hot path
+public class Gauge {
+
+    private final String name;
+    private final String help;
+    private final DoubleSupplier value;
+
+    Gauge(String name, String help, DoubleSupplier value) {
+        this.name = name;
+        this.help = help;
+        this.value = value;
+    }
+
+    public double get() {
+        return value.getAsDouble();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+}
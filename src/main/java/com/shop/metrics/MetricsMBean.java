@@ -0,0 +1,103 @@
+package com.shop.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Exposes every registered metric as a read-only attribute; histograms add one attribute per statistic
+class MetricsMBean implements DynamicMBean {
+
+    private static final String[] HISTOGRAM_STATISTICS = {"Count", "P50Seconds", "P99Seconds", "P999Seconds", "MaxSeconds"};
+
+    private final MetricsRegistry registry;
+
+    MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Object metric = registry.getMetrics().get(attribute);
+        if (metric instanceof Counter counter) {
+            return counter.get();
+        }
+        if (metric instanceof Gauge gauge) {
+            return gauge.get();
+        }
+
+        int separator = attribute.lastIndexOf('.');
+        if (separator > 0 && registry.getMetrics().get(attribute.substring(0, separator)) instanceof LatencyHistogram histogram) {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            switch (attribute.substring(separator + 1)) {
+                case "Count":
+                    return snapshot.getCount();
+                case "P50Seconds":
+                    return MetricsRegistry.seconds(snapshot.getValueAtQuantile(0.5));
+                case "P99Seconds":
+                    return MetricsRegistry.seconds(snapshot.getValueAtQuantile(0.99));
+                case "P999Seconds":
+                    return MetricsRegistry.seconds(snapshot.getValueAtQuantile(0.999));
+                case "MaxSeconds":
+                    return MetricsRegistry.seconds(snapshot.getMax());
+                default:
+                    break;
+            }
+        }
+        throw new AttributeNotFoundException("No metric named " + attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList result = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                result.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Unknown names are left out, as the DynamicMBean contract allows
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metric " + attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Metrics have no operations");
+    }
+
+    // Built on every call so metrics registered after the MBean still show up
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        registry.getMetrics().forEach((name, metric) -> {
+            if (metric instanceof Counter counter) {
+                attributes.add(new MBeanAttributeInfo(name, "long", counter.getHelp(), true, false, false));
+            } else if (metric instanceof Gauge gauge) {
+                attributes.add(new MBeanAttributeInfo(name, "double", gauge.getHelp(), true, false, false));
+            } else if (metric instanceof LatencyHistogram histogram) {
+                for (String statistic : HISTOGRAM_STATISTICS) {
+                    String type = statistic.equals("Count") ? "long" : "double";
+                    attributes.add(new MBeanAttributeInfo(name + "." + statistic, type, histogram.getHelp(),
+                            true, false, false));
+                }
+            }
+        });
+        return new MBeanInfo(MetricsMBean.class.getName(), "Shop metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+}
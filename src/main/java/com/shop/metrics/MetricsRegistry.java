@@ -0,0 +1,122 @@
+package com.shop.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Named counters, gauges and latency histograms for the whole process. Instrumented classes look their
+ * metrics up once and keep the handle, so recording never touches the registry. The registry renders
+ * itself in the Prometheus text format and can be published as a JMX MBean.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+    private static final Pattern VALID_NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    // Sorted by name so every scrape lists the metrics in the same order
+    private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Counter counter(String name, String help) {
+        return register(name, Counter.class, () -> new Counter(name, help));
+    }
+
+    public LatencyHistogram histogram(String name, String help) {
+        return register(name, LatencyHistogram.class, () -> new LatencyHistogram(name, help));
+    }
+
+    // A gauge registered again under the same name replaces the earlier one, e.g. for a reloaded store
+    public Gauge gauge(String name, String help, DoubleSupplier value) {
+        validateName(name);
+        Gauge gauge = new Gauge(name, help, value);
+        metrics.compute(name, (key, previous) -> {
+            if (previous != null && !(previous instanceof Gauge)) {
+                throw new IllegalArgumentException("Metric " + name + " is already registered as another type");
+            }
+            return gauge;
+        });
+        return gauge;
+    }
+
+    public Map<String, Object> getMetrics() {
+        return metrics;
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Object metric : metrics.values()) {
+            if (metric instanceof Counter counter) {
+                header(out, counter.getName(), counter.getHelp(), "counter");
+                out.append(counter.getName()).append(' ').append(counter.get()).append('\n');
+            } else if (metric instanceof Gauge gauge) {
+                header(out, gauge.getName(), gauge.getHelp(), "gauge");
+                out.append(gauge.getName()).append(' ').append(format(gauge.get())).append('\n');
+            } else if (metric instanceof LatencyHistogram histogram) {
+                LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+                header(out, histogram.getName(), histogram.getHelp(), "summary");
+                for (double quantile : QUANTILES) {
+                    out.append(histogram.getName()).append("{quantile=\"").append(quantile).append("\"} ")
+                            .append(format(seconds(snapshot.getValueAtQuantile(quantile)))).append('\n');
+                }
+                out.append(histogram.getName()).append("_sum ").append(format(seconds(snapshot.getSum()))).append('\n');
+                out.append(histogram.getName()).append("_count ").append(snapshot.getCount()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    public ObjectName registerMBean() throws JMException {
+        ObjectName objectName = new ObjectName("com.shop:type=Metrics");
+        if (!ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)) {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(this), objectName);
+        }
+        return objectName;
+    }
+
+    static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    private <T> T register(String name, Class<T> type, Supplier<T> factory) {
+        validateName(name);
+        Object metric = metrics.computeIfAbsent(name, key -> factory.get());
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as another type");
+        }
+        return type.cast(metric);
+    }
+
+    private static void validateName(String name) {
+        if (name == null || !VALID_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        if (help != null && !help.isEmpty()) {
+            out.append("# HELP ").append(name).append(' ')
+                    .append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        }
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+}
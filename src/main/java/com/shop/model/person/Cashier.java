@@ -1,18 +1,25 @@
 package com.shop.model.person;
 
 import com.shop.enums.EmployeePosition;
-import com.shop.enums.ProductCategory;
 import com.shop.exceptions.ExpiredProductException;
 import com.shop.exceptions.InsufficientQuantityException;
+import com.shop.metrics.LatencyHistogram;
+import com.shop.metrics.MetricsRegistry;
+import com.shop.model.product.PriceQuote;
 import com.shop.model.product.Product;
 import com.shop.model.sales.Receipt;
+import com.shop.model.sales.ReceiptLines;
 import com.shop.model.store.Register;
 import com.shop.model.store.Store;
+import com.shop.utils.BusinessClock;
 
 import java.time.LocalDateTime;
 import java.util.Map;
 
 public class Cashier extends Employee {
+    private static final LatencyHistogram CREATE_RECEIPT_LATENCY = MetricsRegistry.global()
+            .histogram("shop_create_receipt_seconds", "Time taken to reserve stock and build a receipt");
+
     private int registerNumber;
     private Register currentRegister;
 
@@ -28,46 +35,45 @@ public class Cashier extends Employee {
 
     public Receipt createReceipt(Map<Product, Integer> items, Store store)
             throws InsufficientQuantityException, ExpiredProductException {
-        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
-            Product product = entry.getKey();
-            int requestedQuantity = entry.getValue();
+        return createReceipt(items, store, BusinessClock.get().now());
+    }
 
-            if (product.isExpired()) {
-                throw new ExpiredProductException(product);
+    // Stamps, prices and checks expiry as of the given time, which is earlier than now for offline sales
+    public Receipt createReceipt(Map<Product, Integer> items, Store store, LocalDateTime dateTime)
+            throws InsufficientQuantityException, ExpiredProductException {
+        long started = System.nanoTime();
+        try {
+            long epochDay = dateTime.toLocalDate().toEpochDay();
+            store.reserveStock(items, epochDay);
+
+            Receipt receipt = new Receipt();
+            receipt.setCashier(this);
+            receipt.setDateTime(dateTime);
+
+            ReceiptLines.Builder lines = new ReceiptLines.Builder(items.size());
+            for (Map.Entry<Product, Integer> entry : items.entrySet()) {
+                Product product = entry.getKey();
+                int quantity = entry.getValue();
+                // Captured once here so rendering, reports and refunds never price the line again
+                PriceQuote quote = store.getPriceQuote(product, epochDay);
+                lines.add(product.getId(), quantity,
+                        ReceiptLines.toCents(quote.getPrice()), ReceiptLines.toCents(product.getPurchasePrice()),
+                        ReceiptLines.toBasisPoints(quote.getMarkupPercentage()),
+                        ReceiptLines.toBasisPoints(quote.getDiscountPercentage()));
             }
 
-            if (product.getQuantity() < requestedQuantity) {
-                throw new InsufficientQuantityException(product, requestedQuantity, product.getQuantity());
-            }
-        }
+            ReceiptLines receiptLines = lines.build();
+            receipt.setLines(receiptLines, store.getProductLookup());
+            receipt.setTotalAmount(receiptLines.getTotalCents() / 100.0);
 
-        Receipt receipt = new Receipt();
-        receipt.setCashier(this);
-        receipt.setDateTime(LocalDateTime.now());
-        receipt.setItems(items);
-
-        double total = 0;
-        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
-            Product product = entry.getKey();
-            int quantity = entry.getValue();
-            double productPrice = product.calculateSellingPrice(
-                    store.getDaysBeforeExpirationForDiscount(),
-                    store.getDiscountPercentage(),
-                    product.getCategory().equals(com.shop.enums.ProductCategory.FOOD) ?
-                            store.getFoodMarkupPercentage() : store.getNonFoodMarkupPercentage()
-            );
-
-            total += productPrice * quantity;
-            product.setQuantity(product.getQuantity() - quantity);
-        }
-
-        receipt.setTotalAmount(total);
+            if (currentRegister != null) {
+                currentRegister.addReceipt(receipt);
+            }
 
-        if (currentRegister != null) {
-            currentRegister.addReceipt(receipt);
+            return receipt;
+        } finally {
+            CREATE_RECEIPT_LATENCY.recordSince(started);
         }
-
-        return receipt;
     }
 
     public void setCurrentRegister(Register register) {
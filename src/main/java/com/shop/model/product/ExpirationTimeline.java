@@ -0,0 +1,301 @@
+package com.shop.model.product;
+
+import com.shop.enums.ExpirationState;
+import com.shop.utils.BusinessClock;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tracks which products are expired or inside the discount window, keyed by the epoch day they expire.
+ * When the business day moves forward only the days that crossed a boundary are visited, so a rollover
+ * costs the number of products that changed state rather than a pass over the catalog. The timeline
+ * catches up lazily on every read and can also be registered with the {@link BusinessClock} so the
+ * listeners fire at midnight. A tracked product moves to its new day when its expiration date is changed.
+ */
+public class ExpirationTimeline implements BusinessClock.DayRolloverListener {
+
+    private final TreeMap<Long, Map<Integer, Product>> productsByDay = new TreeMap<>();
+    private final Map<Integer, Long> trackedDays = new HashMap<>();
+    private final Map<Integer, Product> discounted = new LinkedHashMap<>();
+    private final Map<Integer, Product> expired = new LinkedHashMap<>();
+    private final List<ExpirationListener> listeners = new CopyOnWriteArrayList<>();
+    private int discountWindowDays;
+    private long currentDay;
+
+    public ExpirationTimeline(int discountWindowDays) {
+        this.discountWindowDays = discountWindowDays;
+        this.currentDay = BusinessClock.get().epochDay();
+    }
+
+    public void track(Product product) {
+        trackAll(List.of(product));
+    }
+
+    public void trackAll(Collection<Product> products) {
+        long today = BusinessClock.get().epochDay();
+        List<Transition> transitions = new ArrayList<>();
+        synchronized (this) {
+            catchUp(today, transitions);
+            for (Product product : products) {
+                int id = product.getId();
+                ExpirationState previous = stateOf(id);
+                removeEntry(id);
+                if (product.getExpirationDate() == null) {
+                    continue;
+                }
+
+                long day = product.getExpirationDate().toEpochDay();
+                productsByDay.computeIfAbsent(day, d -> new LinkedHashMap<>()).put(id, product);
+                trackedDays.put(id, day);
+                product.attachTimeline(this);
+                place(product, classify(day), previous, transitions);
+            }
+        }
+        fire(transitions);
+    }
+
+    public void untrack(int productId) {
+        long today = BusinessClock.get().epochDay();
+        List<Transition> transitions = new ArrayList<>();
+        synchronized (this) {
+            catchUp(today, transitions);
+            Product product = removeEntry(productId);
+            if (product != null) {
+                product.detachTimeline(this);
+            }
+        }
+        fire(transitions);
+    }
+
+    public void rebuild(Collection<Product> products) {
+        long today = BusinessClock.get().epochDay();
+        synchronized (this) {
+            for (Map<Integer, Product> bucket : productsByDay.values()) {
+                for (Product product : bucket.values()) {
+                    product.detachTimeline(this);
+                }
+            }
+            productsByDay.clear();
+            trackedDays.clear();
+            discounted.clear();
+            expired.clear();
+            currentDay = today;
+        }
+        trackAll(products);
+    }
+
+    public List<Product> getExpiredProducts() {
+        long today = BusinessClock.get().epochDay();
+        List<Transition> transitions = new ArrayList<>();
+        List<Product> result;
+        synchronized (this) {
+            catchUp(today, transitions);
+            result = new ArrayList<>(expired.values());
+        }
+        fire(transitions);
+        return result;
+    }
+
+    public List<Product> getDiscountedProducts() {
+        long today = BusinessClock.get().epochDay();
+        List<Transition> transitions = new ArrayList<>();
+        List<Product> result;
+        synchronized (this) {
+            catchUp(today, transitions);
+            result = new ArrayList<>(discounted.values());
+        }
+        fire(transitions);
+        return result;
+    }
+
+    // Products that have not expired yet and expire within the given number of days
+    public List<Product> getExpiringWithin(int days) {
+        if (days == discountWindowDays) {
+            return getDiscountedProducts();
+        }
+        long today = BusinessClock.get().epochDay();
+        List<Transition> transitions = new ArrayList<>();
+        List<Product> result = new ArrayList<>();
+        synchronized (this) {
+            catchUp(today, transitions);
+            for (Map<Integer, Product> products : productsByDay.subMap(currentDay, true, currentDay + days, true).values()) {
+                result.addAll(products.values());
+            }
+        }
+        fire(transitions);
+        return result;
+    }
+
+    public int getExpiredCount() {
+        long today = BusinessClock.get().epochDay();
+        List<Transition> transitions = new ArrayList<>();
+        int count;
+        synchronized (this) {
+            catchUp(today, transitions);
+            count = expired.size();
+        }
+        fire(transitions);
+        return count;
+    }
+
+    public synchronized ExpirationState getState(int productId) {
+        return trackedDays.containsKey(productId) ? stateOf(productId) : null;
+    }
+
+    public synchronized int size() {
+        return trackedDays.size();
+    }
+
+    public synchronized int getDiscountWindowDays() {
+        return discountWindowDays;
+    }
+
+    // Changing the window only moves the products between the old and the new edge
+    public void setDiscountWindowDays(int days) {
+        long today = BusinessClock.get().epochDay();
+        List<Transition> transitions = new ArrayList<>();
+        synchronized (this) {
+            catchUp(today, transitions);
+            int previousWindow = discountWindowDays;
+            discountWindowDays = days;
+            long from = currentDay + Math.min(previousWindow, days) + 1;
+            long to = currentDay + Math.max(previousWindow, days);
+            reclassify(from, to, transitions);
+        }
+        fire(transitions);
+    }
+
+    public void addListener(ExpirationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ExpirationListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onDayRollover(LocalDate previousDay, LocalDate newDay) {
+        List<Transition> transitions = new ArrayList<>();
+        synchronized (this) {
+            moveTo(newDay.toEpochDay(), transitions);
+        }
+        fire(transitions);
+    }
+
+    // The day is read before taking the lock, since reading the clock may run the rollover listeners,
+    // this one included; a day older than the current one is a stale read, only a rollover moves back
+    private void catchUp(long today, List<Transition> transitions) {
+        if (today > currentDay) {
+            moveTo(today, transitions);
+        }
+    }
+
+    private void moveTo(long today, List<Transition> transitions) {
+        if (today == currentDay) {
+            return;
+        }
+        long previousDay = currentDay;
+        currentDay = today;
+
+        if (today < previousDay) {
+            // The clock went backwards, which only happens when it is reset; every state may have changed
+            reclassify(Long.MIN_VALUE, Long.MAX_VALUE, transitions);
+            return;
+        }
+        // Days that dropped behind today expired, days that reached the window's edge became discounted
+        reclassify(previousDay, today - 1, transitions);
+        reclassify(previousDay + discountWindowDays + 1, today + discountWindowDays, transitions);
+    }
+
+    private void reclassify(long fromDay, long toDay, List<Transition> transitions) {
+        if (fromDay > toDay) {
+            return;
+        }
+        for (Map.Entry<Long, Map<Integer, Product>> entry : productsByDay.subMap(fromDay, true, toDay, true).entrySet()) {
+            ExpirationState state = classify(entry.getKey());
+            for (Product product : entry.getValue().values()) {
+                ExpirationState previous = stateOf(product.getId());
+                discounted.remove(product.getId());
+                expired.remove(product.getId());
+                place(product, state, previous, transitions);
+            }
+        }
+    }
+
+    private void place(Product product, ExpirationState state, ExpirationState previous, List<Transition> transitions) {
+        if (state == ExpirationState.EXPIRED) {
+            expired.put(product.getId(), product);
+        } else if (state == ExpirationState.DISCOUNTED) {
+            discounted.put(product.getId(), product);
+        }
+        if (state != previous) {
+            transitions.add(new Transition(product, previous, state));
+        }
+    }
+
+    private ExpirationState classify(long expirationDay) {
+        if (expirationDay < currentDay) {
+            return ExpirationState.EXPIRED;
+        }
+        return expirationDay - currentDay <= discountWindowDays ? ExpirationState.DISCOUNTED : ExpirationState.FRESH;
+    }
+
+    private ExpirationState stateOf(int productId) {
+        if (expired.containsKey(productId)) {
+            return ExpirationState.EXPIRED;
+        }
+        return discounted.containsKey(productId) ? ExpirationState.DISCOUNTED : ExpirationState.FRESH;
+    }
+
+    private Product removeEntry(int productId) {
+        Long day = trackedDays.remove(productId);
+        if (day == null) {
+            return null;
+        }
+        Product product = null;
+        Map<Integer, Product> bucket = productsByDay.get(day);
+        if (bucket != null) {
+            product = bucket.remove(productId);
+            if (bucket.isEmpty()) {
+                productsByDay.remove(day);
+            }
+        }
+        discounted.remove(productId);
+        expired.remove(productId);
+        return product;
+    }
+
+    // Listeners run outside the lock so they can query the timeline or reprice the product
+    private void fire(List<Transition> transitions) {
+        for (Transition transition : transitions) {
+            for (ExpirationListener listener : listeners) {
+                listener.onStateChange(transition.product, transition.previous, transition.current);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface ExpirationListener {
+        void onStateChange(Product product, ExpirationState previous, ExpirationState current);
+    }
+
+    private static class Transition {
+        private final Product product;
+        private final ExpirationState previous;
+        private final ExpirationState current;
+
+        private Transition(Product product, ExpirationState previous, ExpirationState current) {
+            this.product = product;
+            this.previous = previous;
+            this.current = current;
+        }
+    }
+}
@@ -16,11 +16,12 @@ public class NonFoodProduct extends Product {
     }
 
     @Override
-    public double calculateSellingPrice(int daysBeforeDiscountApplies, double discountPercentage, double markupPercentage) {
+    public double calculateSellingPrice(long epochDay, int daysBeforeDiscountApplies, double discountPercentage,
+                                        double markupPercentage) {
         double basePrice = getPurchasePrice() * (1 + markupPercentage / 100);
 
         // Discount for expiring products
-        if (daysUntilExpiration() <= daysBeforeDiscountApplies) {
+        if (isDiscountDue(daysBeforeDiscountApplies, epochDay)) {
             return basePrice * (1 - discountPercentage / 100);
         }
 
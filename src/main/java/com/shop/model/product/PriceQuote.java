@@ -0,0 +1,30 @@
+package com.shop.model.product;
+
+// A selling price together with the markup and discount it was computed with; the discount is 0 when none applied
+public final class PriceQuote {
+    private final double price;
+    private final double markupPercentage;
+    private final double discountPercentage;
+
+    public PriceQuote(double price, double markupPercentage, double discountPercentage) {
+        this.price = price;
+        this.markupPercentage = markupPercentage;
+        this.discountPercentage = discountPercentage;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public double getMarkupPercentage() {
+        return markupPercentage;
+    }
+
+    public double getDiscountPercentage() {
+        return discountPercentage;
+    }
+
+    public boolean isDiscounted() {
+        return discountPercentage != 0;
+    }
+}
@@ -1,10 +1,10 @@
 package com.shop.model.product;
 
 import com.shop.enums.ProductCategory;
+import com.shop.utils.BusinessClock;
 
 import java.io.Serializable;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 public abstract class Product implements Serializable {
     private int id;
@@ -13,6 +13,9 @@ public abstract class Product implements Serializable {
     private LocalDate expirationDate;
     private int quantity;
     private ProductCategory category;
+    private transient volatile int priceRevision;
+    private transient volatile CachedPrice cachedPrice;
+    private transient volatile ExpirationTimeline expirationTimeline;
 
     public Product() {
     }
@@ -26,14 +29,69 @@ public abstract class Product implements Serializable {
         this.category = category;
     }
 
-    public abstract double calculateSellingPrice(int daysBeforeDiscountApplies, double discountPercentage, double markupPercentage);
+    public double calculateSellingPrice(int daysBeforeDiscountApplies, double discountPercentage, double markupPercentage) {
+        return calculateSellingPrice(BusinessClock.get().epochDay(), daysBeforeDiscountApplies, discountPercentage,
+                markupPercentage);
+    }
+
+    // Prices the product as it stood on the given business day
+    public abstract double calculateSellingPrice(long epochDay, int daysBeforeDiscountApplies, double discountPercentage,
+                                                 double markupPercentage);
+
+    // Reuses the last computed price while both the store's pricing stamp and this product's price inputs are unchanged
+    public double getSellingPrice(long pricingStamp, int daysBeforeDiscountApplies, double discountPercentage,
+                                  double markupPercentage) {
+        return getPriceQuote(pricingStamp, daysBeforeDiscountApplies, discountPercentage, markupPercentage).getPrice();
+    }
+
+    public PriceQuote getPriceQuote(long pricingStamp, int daysBeforeDiscountApplies, double discountPercentage,
+                                    double markupPercentage) {
+        CachedPrice cached = cachedPrice;
+        int revision = priceRevision;
+        if (cached != null && cached.pricingStamp == pricingStamp && cached.revision == revision) {
+            return cached.quote;
+        }
+
+        PriceQuote quote = getPriceQuoteOn(BusinessClock.get().epochDay(), daysBeforeDiscountApplies,
+                discountPercentage, markupPercentage);
+        // A zero stamp means the caller has no pricing version to key on
+        if (pricingStamp != 0) {
+            cachedPrice = new CachedPrice(pricingStamp, revision, quote);
+        }
+        return quote;
+    }
+
+    // Not cached: only a sale rung up on another day, e.g. an offline upload, prices away from today
+    public PriceQuote getPriceQuoteOn(long epochDay, int daysBeforeDiscountApplies, double discountPercentage,
+                                      double markupPercentage) {
+        double price = calculateSellingPrice(epochDay, daysBeforeDiscountApplies, discountPercentage, markupPercentage);
+        double appliedDiscount = isDiscountDue(daysBeforeDiscountApplies, epochDay) ? discountPercentage : 0;
+        return new PriceQuote(price, markupPercentage, appliedDiscount);
+    }
+
+    // Expiring products are sold at a discount once they are this close to their expiration date
+    public boolean isDiscountDue(int daysBeforeDiscountApplies) {
+        return isDiscountDue(daysBeforeDiscountApplies, BusinessClock.get().epochDay());
+    }
+
+    public boolean isDiscountDue(int daysBeforeDiscountApplies, long epochDay) {
+        return daysUntilExpiration(epochDay) <= daysBeforeDiscountApplies;
+    }
 
     public boolean isExpired() {
-        return LocalDate.now().isAfter(expirationDate);
+        return isExpiredOn(BusinessClock.get().epochDay());
+    }
+
+    public boolean isExpiredOn(long epochDay) {
+        return epochDay > expirationDate.toEpochDay();
     }
 
     public int daysUntilExpiration() {
-        return (int) ChronoUnit.DAYS.between(LocalDate.now(), expirationDate);
+        return daysUntilExpiration(BusinessClock.get().epochDay());
+    }
+
+    public int daysUntilExpiration(long epochDay) {
+        return (int) (expirationDate.toEpochDay() - epochDay);
     }
 
     public int getId() {
@@ -56,8 +114,9 @@ public abstract class Product implements Serializable {
         return purchasePrice;
     }
 
-    public void setPurchasePrice(double purchasePrice) {
+    public synchronized void setPurchasePrice(double purchasePrice) {
         this.purchasePrice = purchasePrice;
+        priceRevision++;
     }
 
     public LocalDate getExpirationDate() {
@@ -65,7 +124,15 @@ public abstract class Product implements Serializable {
     }
 
     public void setExpirationDate(LocalDate expirationDate) {
-        this.expirationDate = expirationDate;
+        synchronized (this) {
+            this.expirationDate = expirationDate;
+            priceRevision++;
+        }
+        // Re-tracked outside the product's lock, the timeline takes its own
+        ExpirationTimeline timeline = expirationTimeline;
+        if (timeline != null) {
+            timeline.track(this);
+        }
     }
 
     public int getQuantity() {
@@ -80,8 +147,31 @@ public abstract class Product implements Serializable {
         return category;
     }
 
-    public void setCategory(ProductCategory category) {
+    public synchronized void setCategory(ProductCategory category) {
         this.category = category;
+        priceRevision++;
+    }
+
+    void attachTimeline(ExpirationTimeline timeline) {
+        this.expirationTimeline = timeline;
+    }
+
+    void detachTimeline(ExpirationTimeline timeline) {
+        if (expirationTimeline == timeline) {
+            expirationTimeline = null;
+        }
+    }
+
+    private static final class CachedPrice {
+        private final long pricingStamp;
+        private final int revision;
+        private final PriceQuote quote;
+
+        private CachedPrice(long pricingStamp, int revision, PriceQuote quote) {
+            this.pricingStamp = pricingStamp;
+            this.revision = revision;
+            this.quote = quote;
+        }
     }
 
     @Override
@@ -3,16 +3,17 @@ package com.shop.model.product;
 import com.shop.enums.ProductCategory;
 
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ProductFactory {
 
-    private static int nextId = 1;
+    private static final AtomicInteger nextId = new AtomicInteger(1);
 
     public static Product createProduct(ProductCategory category, String name,
                                         double purchasePrice, LocalDate expirationDate,
                                         int quantity) {
 
-        int id = nextId++;
+        int id = nextId.getAndIncrement();
 
         return switch (category) {
             case FOOD -> new FoodProduct(id, name, purchasePrice, expirationDate, quantity);
@@ -30,7 +31,19 @@ public class ProductFactory {
         };
     }
 
+    // Reserves a contiguous range of ids and returns the first one
+    public static int allocateIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Id block size cannot be negative");
+        }
+        return nextId.getAndAdd(count);
+    }
+
+    public static int peekNextId() {
+        return nextId.get();
+    }
+
     public static void setNextId(int id) {
-        nextId = id;
+        nextId.set(id);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.shop.model.product;
+
+@FunctionalInterface
+public interface ProductLookup {
+
+    Product findProduct(int productId);
+}
@@ -0,0 +1,150 @@
+package com.shop.model.sales;
+
+import com.shop.enums.ProductRanking;
+import com.shop.utils.IntLongHashMap;
+import com.shop.utils.TopK;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Running best-seller lists for every ranking, updated as receipts arrive.
+ * Sales only raise a product's totals, so a product can only enter a list when one of its own lines
+ * is recorded; checking it against the list keeps every list exact without rescanning the catalog.
+ * A line sold below cost lowers the margin instead, and the margin list is then rebuilt on the next read.
+ */
+public class BestSellers {
+
+    public static final int DEFAULT_CAPACITY = 20;
+
+    private final int capacity;
+    private final IntLongHashMap unitsSold = new IntLongHashMap();
+    private final IntLongHashMap revenueCents = new IntLongHashMap();
+    private final IntLongHashMap marginCents = new IntLongHashMap();
+    private final int[][] leaders;
+    private final int[] leaderCounts;
+    private final boolean[] stale;
+
+    public BestSellers() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BestSellers(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Best-seller capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.leaders = new int[ProductRanking.values().length][capacity];
+        this.leaderCounts = new int[ProductRanking.values().length];
+        this.stale = new boolean[ProductRanking.values().length];
+    }
+
+    public synchronized void record(Receipt receipt) {
+        ReceiptLines lines = receipt.getLines();
+        for (int line = 0; line < lines.size(); line++) {
+            int productId = lines.getProductId(line);
+            unitsSold.addTo(productId, lines.getQuantity(line));
+            revenueCents.addTo(productId, lines.getLineTotalCents(line));
+            long margin = lines.getLineMarginCents(line);
+            marginCents.addTo(productId, margin);
+            if (margin < 0) {
+                stale[ProductRanking.MARGIN.ordinal()] = true;
+            }
+
+            for (ProductRanking ranking : ProductRanking.values()) {
+                promote(ranking, productId);
+            }
+        }
+    }
+
+    public synchronized void rebuild(Collection<Receipt> receipts) {
+        unitsSold.clear();
+        revenueCents.clear();
+        marginCents.clear();
+        for (int i = 0; i < leaderCounts.length; i++) {
+            leaderCounts[i] = 0;
+            stale[i] = false;
+        }
+        for (Receipt receipt : receipts) {
+            record(receipt);
+        }
+    }
+
+    public synchronized List<RankedProduct> getTop(ProductRanking ranking, int count) {
+        if (stale[ranking.ordinal()]) {
+            refill(ranking);
+        }
+        int[] ranked = leaders[ranking.ordinal()];
+        int size = Math.min(count, leaderCounts[ranking.ordinal()]);
+
+        List<RankedProduct> result = new ArrayList<>(Math.max(size, 0));
+        for (int i = 0; i < size; i++) {
+            result.add(rank(ranked[i]));
+        }
+        return result;
+    }
+
+    public synchronized RankedProduct getProduct(int productId) {
+        return unitsSold.containsKey(productId) ? rank(productId) : null;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Moves the product into or up its ranking list after its totals grew
+    private void promote(ProductRanking ranking, int productId) {
+        int[] ranked = leaders[ranking.ordinal()];
+        int count = leaderCounts[ranking.ordinal()];
+        long score = score(ranking, productId);
+
+        int position = indexOf(ranked, count, productId);
+        if (position < 0) {
+            if (count < capacity) {
+                position = count;
+                leaderCounts[ranking.ordinal()] = count + 1;
+            } else if (outranks(productId, score, ranked[count - 1], score(ranking, ranked[count - 1]))) {
+                position = count - 1;
+            } else {
+                return;
+            }
+            ranked[position] = productId;
+        }
+
+        while (position > 0 && outranks(productId, score, ranked[position - 1], score(ranking, ranked[position - 1]))) {
+            ranked[position] = ranked[position - 1];
+            ranked[--position] = productId;
+        }
+    }
+
+    private void refill(ProductRanking ranking) {
+        TopK top = new TopK(capacity);
+        unitsSold.forEach((productId, units) -> top.offer(productId, score(ranking, productId)));
+        int[] ranked = top.drainDescending();
+        System.arraycopy(ranked, 0, leaders[ranking.ordinal()], 0, ranked.length);
+        leaderCounts[ranking.ordinal()] = ranked.length;
+        stale[ranking.ordinal()] = false;
+    }
+
+    private long score(ProductRanking ranking, int productId) {
+        return RankedProduct.score(ranking, unitsSold.get(productId), revenueCents.get(productId), marginCents.get(productId));
+    }
+
+    private RankedProduct rank(int productId) {
+        return new RankedProduct(productId, unitsSold.get(productId), revenueCents.get(productId), marginCents.get(productId));
+    }
+
+    private static int indexOf(int[] ranked, int count, int productId) {
+        for (int i = 0; i < count; i++) {
+            if (ranked[i] == productId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean outranks(int productId, long score, int otherId, long otherScore) {
+        return score > otherScore || (score == otherScore && productId < otherId);
+    }
+}
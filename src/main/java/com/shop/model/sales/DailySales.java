@@ -0,0 +1,51 @@
+package com.shop.model.sales;
+
+import com.shop.utils.IntDoubleHashMap;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+public class DailySales implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final LocalDate date;
+    private double totalSales;
+    private int transactions;
+    private final IntDoubleHashMap salesByCashier;
+    private final IntDoubleHashMap salesByRegister;
+
+    public DailySales(LocalDate date) {
+        this.date = date;
+        this.salesByCashier = new IntDoubleHashMap();
+        this.salesByRegister = new IntDoubleHashMap();
+    }
+
+    public synchronized void record(Receipt receipt) {
+        double amount = receipt.getTotalAmount();
+        totalSales += amount;
+        transactions++;
+
+        salesByCashier.addTo(receipt.getCashier().getId(), amount);
+        salesByRegister.addTo(receipt.getCashier().getRegisterNumber(), amount);
+    }
+
+    public synchronized void mergeInto(IntDoubleHashMap salesByCashier) {
+        salesByCashier.addAll(this.salesByCashier);
+    }
+
+    public synchronized void mergeRegisterSalesInto(IntDoubleHashMap salesByRegister) {
+        salesByRegister.addAll(this.salesByRegister);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public synchronized double getTotalSales() {
+        return totalSales;
+    }
+
+    public synchronized int getTransactions() {
+        return transactions;
+    }
+}
@@ -0,0 +1,41 @@
+package com.shop.model.sales;
+
+import com.shop.enums.PaymentMethod;
+import com.shop.utils.ValidationUtils;
+
+import java.time.LocalDateTime;
+
+// A sale rung up while the register was offline, uploaded later under a key the register chose for it
+public class OfflineSale {
+    private final String idempotencyKey;
+    private final Sale sale;
+    private final PaymentMethod paymentMethod;
+    private final LocalDateTime clientTimestamp;
+
+    public OfflineSale(String idempotencyKey, Sale sale, PaymentMethod paymentMethod, LocalDateTime clientTimestamp) {
+        ValidationUtils.validateNotEmpty(idempotencyKey, "Idempotency key cannot be empty");
+        ValidationUtils.validateNotNull(sale, "Sale cannot be null");
+        ValidationUtils.validateNotNull(sale.getCashier(), "Sale must have a cashier");
+        ValidationUtils.validateNotNull(clientTimestamp, "Client timestamp cannot be null");
+        this.idempotencyKey = idempotencyKey;
+        this.sale = sale;
+        this.paymentMethod = paymentMethod;
+        this.clientTimestamp = clientTimestamp;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public Sale getSale() {
+        return sale;
+    }
+
+    public PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public LocalDateTime getClientTimestamp() {
+        return clientTimestamp;
+    }
+}
@@ -0,0 +1,59 @@
+package com.shop.model.sales;
+
+import com.shop.enums.ProductRanking;
+
+import java.io.Serializable;
+
+public class RankedProduct implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int productId;
+    private final long unitsSold;
+    private final long revenueCents;
+    private final long marginCents;
+
+    public RankedProduct(int productId, long unitsSold, long revenueCents, long marginCents) {
+        this.productId = productId;
+        this.unitsSold = unitsSold;
+        this.revenueCents = revenueCents;
+        this.marginCents = marginCents;
+    }
+
+    public static long score(ProductRanking ranking, long unitsSold, long revenueCents, long marginCents) {
+        return switch (ranking) {
+            case UNITS -> unitsSold;
+            case REVENUE -> revenueCents;
+            case MARGIN -> marginCents;
+        };
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public long getUnitsSold() {
+        return unitsSold;
+    }
+
+    public double getRevenue() {
+        return revenueCents / 100.0;
+    }
+
+    public double getMargin() {
+        return marginCents / 100.0;
+    }
+
+    public long getScore(ProductRanking ranking) {
+        return score(ranking, unitsSold, revenueCents, marginCents);
+    }
+
+    @Override
+    public String toString() {
+        return "RankedProduct{" +
+                "productId=" + productId +
+                ", unitsSold=" + unitsSold +
+                ", revenue=" + getRevenue() +
+                ", margin=" + getMargin() +
+                '}';
+    }
+}
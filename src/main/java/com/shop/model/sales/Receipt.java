@@ -1,7 +1,9 @@
 package com.shop.model.sales;
 
+import com.shop.enums.PaymentMethod;
 import com.shop.model.person.Cashier;
 import com.shop.model.product.Product;
+import com.shop.model.product.ProductLookup;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -14,11 +16,16 @@ public class Receipt implements Serializable {
     private int receiptNumber;
     private Cashier cashier;
     private LocalDateTime dateTime;
-    private Map<Product, Integer> items;
+    private ReceiptLines lines;
+    private transient ProductLookup productLookup;
     private double totalAmount;
+    // The sale this receipt completed, 0 and null when it was rung up without one
+    private int saleId;
+    private PaymentMethod paymentMethod;
 
     public Receipt() {
-        this.items = new HashMap<>();
+        this.lines = ReceiptLines.EMPTY;
+        this.productLookup = productId -> null;
     }
 
     public Receipt(int receiptNumber, Cashier cashier, LocalDateTime dateTime) {
@@ -40,12 +47,11 @@ public class Receipt implements Serializable {
         sb.append("--------------------------------------\n");
         sb.append("Items:\n");
 
-        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
-            Product product = entry.getKey();
-            int quantity = entry.getValue();
-            double price = product.getPurchasePrice();
-
-            sb.append(String.format("%-20s x%d %10.2f\n", product.getName(), quantity, price * quantity));
+        for (int line = 0; line < lines.size(); line++) {
+            Product product = productLookup.findProduct(lines.getProductId(line));
+            String name = product != null ? product.getName() : "Unknown";
+            sb.append(String.format("%-20s x%d %10.2f\n", name, lines.getQuantity(line),
+                    lines.getLineTotalCents(line) / 100.0));
         }
 
         sb.append("--------------------------------------\n");
@@ -79,12 +85,40 @@ public class Receipt implements Serializable {
         this.dateTime = dateTime;
     }
 
+    // Lazy view over the compact lines, products are resolved on access
     public Map<Product, Integer> getItems() {
-        return items;
+        return lines.asMap(productLookup);
     }
 
+    // Lines built from a bare item map are priced at cost, only checkout captures a selling price
     public void setItems(Map<Product, Integer> items) {
-        this.items = items;
+        Map<Integer, Product> productsById = new HashMap<>();
+        for (Product product : items.keySet()) {
+            productsById.put(product.getId(), product);
+        }
+        this.lines = ReceiptLines.atCost(items);
+        this.productLookup = productsById::get;
+    }
+
+    // Amount to give back for returning part of a line, at the price it was sold for
+    public double calculateRefund(int productId, int quantity) {
+        int line = lines.indexOf(productId);
+        if (line < 0) {
+            throw new IllegalArgumentException("Product " + productId + " is not on receipt " + receiptNumber);
+        }
+        if (quantity <= 0 || quantity > lines.getQuantity(line)) {
+            throw new IllegalArgumentException("Refund quantity must be between 1 and " + lines.getQuantity(line));
+        }
+        return lines.getUnitPriceCents(line) * quantity / 100.0;
+    }
+
+    public ReceiptLines getLines() {
+        return lines;
+    }
+
+    public void setLines(ReceiptLines lines, ProductLookup productLookup) {
+        this.lines = lines;
+        this.productLookup = productLookup;
     }
 
     public double getTotalAmount() {
@@ -95,13 +129,29 @@ public class Receipt implements Serializable {
         this.totalAmount = totalAmount;
     }
 
+    public int getSaleId() {
+        return saleId;
+    }
+
+    public void setSaleId(int saleId) {
+        this.saleId = saleId;
+    }
+
+    public PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(PaymentMethod paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
     @Override
     public String toString() {
         return "Receipt{" +
                 "receiptNumber=" + receiptNumber +
                 ", cashier=" + cashier +
                 ", dateTime=" + dateTime +
-                ", items=" + items.size() +
+                ", items=" + lines.size() +
                 ", totalAmount=" + totalAmount +
                 '}';
     }
@@ -0,0 +1,248 @@
+package com.shop.model.sales;
+
+import com.shop.model.product.Product;
+import com.shop.model.product.ProductLookup;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable line items of a receipt packed into a single long array, four slots per line:
+ * product id and quantity, unit price in cents, purchase cost in cents, markup and discount in basis points.
+ * Everything a line was priced with is captured at checkout, so reading a line never re-prices it.
+ * Lines hold no Product references; names are resolved through a ProductLookup when a receipt is rendered.
+ */
+public final class ReceiptLines implements Serializable {
+    private static final long serialVersionUID = 2L;
+
+    public static final ReceiptLines EMPTY = new Builder(0).build();
+
+    private static final int SLOTS_PER_LINE = 4;
+    private static final int ID_AND_QUANTITY = 0;
+    private static final int UNIT_PRICE = 1;
+    private static final int UNIT_COST = 2;
+    private static final int MARKUP_AND_DISCOUNT = 3;
+
+    // One array header per receipt instead of one per field, which dominated for small baskets
+    private final long[] slots;
+
+    // Takes over the builder's array, trimmed only when the builder was sized larger than needed
+    private ReceiptLines(Builder builder) {
+        int length = builder.size * SLOTS_PER_LINE;
+        this.slots = length == builder.slots.length ? builder.slots : Arrays.copyOf(builder.slots, length);
+    }
+
+    // Without checkout pricing the best available price is the purchase price, with no markup or discount
+    public static ReceiptLines atCost(Map<Product, Integer> items) {
+        Builder builder = new Builder(items.size());
+        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
+            Product product = entry.getKey();
+            long cost = toCents(product.getPurchasePrice());
+            builder.add(product.getId(), entry.getValue(), cost, cost, 0, 0);
+        }
+        return builder.build();
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100.0);
+    }
+
+    public static int toBasisPoints(double percentage) {
+        return (int) Math.round(percentage * 100.0);
+    }
+
+    public int size() {
+        return slots.length / SLOTS_PER_LINE;
+    }
+
+    public int getProductId(int line) {
+        return high(slots[line * SLOTS_PER_LINE + ID_AND_QUANTITY]);
+    }
+
+    public int getQuantity(int line) {
+        return low(slots[line * SLOTS_PER_LINE + ID_AND_QUANTITY]);
+    }
+
+    public long getUnitPriceCents(int line) {
+        return slots[line * SLOTS_PER_LINE + UNIT_PRICE];
+    }
+
+    public long getUnitCostCents(int line) {
+        return slots[line * SLOTS_PER_LINE + UNIT_COST];
+    }
+
+    public int getMarkupBasisPoints(int line) {
+        return high(slots[line * SLOTS_PER_LINE + MARKUP_AND_DISCOUNT]);
+    }
+
+    public int getDiscountBasisPoints(int line) {
+        return low(slots[line * SLOTS_PER_LINE + MARKUP_AND_DISCOUNT]);
+    }
+
+    public long getLineTotalCents(int line) {
+        return getUnitPriceCents(line) * getQuantity(line);
+    }
+
+    public long getLineMarginCents(int line) {
+        return (getUnitPriceCents(line) - getUnitCostCents(line)) * getQuantity(line);
+    }
+
+    public int indexOf(int productId) {
+        for (int line = 0; line < size(); line++) {
+            if (getProductId(line) == productId) {
+                return line;
+            }
+        }
+        return -1;
+    }
+
+    public int getTotalQuantity() {
+        int total = 0;
+        for (int line = 0; line < size(); line++) {
+            total += getQuantity(line);
+        }
+        return total;
+    }
+
+    public long getTotalCents() {
+        long total = 0;
+        for (int line = 0; line < size(); line++) {
+            total += getLineTotalCents(line);
+        }
+        return total;
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    private static int high(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    private static int low(long packed) {
+        return (int) packed;
+    }
+
+    // Read-only Product -> quantity view; lines whose product can no longer be resolved are left out
+    public Map<Product, Integer> asMap(ProductLookup lookup) {
+        return new ItemsView(this, lookup);
+    }
+
+    private static final class ItemsView extends AbstractMap<Product, Integer> {
+        private final ReceiptLines lines;
+        private final ProductLookup lookup;
+
+        private ItemsView(ReceiptLines lines, ProductLookup lookup) {
+            this.lines = lines;
+            this.lookup = lookup;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            int line = lineOf(key);
+            return line >= 0 ? lines.getQuantity(line) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return lineOf(key) >= 0;
+        }
+
+        private int lineOf(Object key) {
+            if (!(key instanceof Product product)) {
+                return -1;
+            }
+            int line = lines.indexOf(product.getId());
+            return line >= 0 && product.equals(lookup.findProduct(product.getId())) ? line : -1;
+        }
+
+        @Override
+        public Set<Entry<Product, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Product, Integer>> iterator() {
+                    return new Iterator<>() {
+                        private int line;
+                        private Product next = advance();
+
+                        private Product advance() {
+                            while (line < lines.size()) {
+                                Product product = lookup.findProduct(lines.getProductId(line));
+                                if (product != null) {
+                                    return product;
+                                }
+                                line++;
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null;
+                        }
+
+                        @Override
+                        public Entry<Product, Integer> next() {
+                            if (next == null) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<Product, Integer> entry = new SimpleImmutableEntry<>(next, lines.getQuantity(line));
+                            line++;
+                            next = advance();
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (int line = 0; line < lines.size(); line++) {
+                        if (lookup.findProduct(lines.getProductId(line)) != null) {
+                            size++;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+    }
+
+    public static final class Builder {
+        private long[] slots;
+        private int size;
+
+        public Builder(int expectedLines) {
+            this.slots = new long[Math.max(expectedLines, 0) * SLOTS_PER_LINE];
+        }
+
+        public Builder add(int productId, int quantity, long unitPriceCents, long unitCostCents,
+                           int markupBasisPoints, int discountBasisPoints) {
+            int offset = size * SLOTS_PER_LINE;
+            if (offset == slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(4, size * 2) * SLOTS_PER_LINE);
+            }
+            slots[offset + ID_AND_QUANTITY] = pack(productId, quantity);
+            slots[offset + UNIT_PRICE] = unitPriceCents;
+            slots[offset + UNIT_COST] = unitCostCents;
+            slots[offset + MARKUP_AND_DISCOUNT] = pack(markupBasisPoints, discountBasisPoints);
+            size++;
+            return this;
+        }
+
+        // The builder starts over afterwards, so the built lines never share an array with later adds
+        public ReceiptLines build() {
+            ReceiptLines lines = new ReceiptLines(this);
+            slots = new long[0];
+            size = 0;
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.shop.model.sales;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Splits a report range into day or week partitions and aggregates them on a fork/join pool.
+ * Each partition produces a partial result; partials are merged pairwise as the tasks join.
+ */
+public final class ReportPartitions {
+
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 20_000;
+
+    // Ranges up to a month are split per day, longer ones per week
+    private static final int MAX_DAY_PARTITIONED_DAYS = 31;
+    private static final int WEEK_DAYS = 7;
+
+    private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private ReportPartitions() {
+    }
+
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public static void setParallelThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Parallel report threshold cannot be negative");
+        }
+        parallelThreshold = threshold;
+    }
+
+    public static void setPool(ForkJoinPool forkJoinPool) {
+        pool = forkJoinPool != null ? forkJoinPool : ForkJoinPool.commonPool();
+    }
+
+    public static boolean shouldParallelize(int receiptCount) {
+        return receiptCount > parallelThreshold;
+    }
+
+    public static List<Partition> split(LocalDate startDate, LocalDate endDate) {
+        List<Partition> partitions = new ArrayList<>();
+        if (endDate.isBefore(startDate)) {
+            return partitions;
+        }
+
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        int step = days <= MAX_DAY_PARTITIONED_DAYS ? 1 : WEEK_DAYS;
+        for (LocalDate from = startDate; !from.isAfter(endDate); from = from.plusDays(step)) {
+            LocalDate to = from.plusDays(step - 1);
+            partitions.add(new Partition(from, to.isAfter(endDate) ? endDate : to));
+        }
+        return partitions;
+    }
+
+    public static <P> P aggregate(List<Partition> partitions, Function<Partition, P> mapper, BinaryOperator<P> merger) {
+        if (partitions.isEmpty()) {
+            throw new IllegalArgumentException("No partitions to aggregate");
+        }
+        return pool.invoke(new PartitionTask<>(partitions, 0, partitions.size(), mapper, merger));
+    }
+
+    public static final class Partition {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+
+        private Partition(LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        public LocalDate getStartDate() {
+            return startDate;
+        }
+
+        public LocalDate getEndDate() {
+            return endDate;
+        }
+    }
+
+    private static final class PartitionTask<P> extends RecursiveTask<P> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Partition> partitions;
+        private final int from;
+        private final int to;
+        private final Function<Partition, P> mapper;
+        private final BinaryOperator<P> merger;
+
+        private PartitionTask(List<Partition> partitions, int from, int to,
+                              Function<Partition, P> mapper, BinaryOperator<P> merger) {
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+            this.mapper = mapper;
+            this.merger = merger;
+        }
+
+        @Override
+        protected P compute() {
+            if (to - from == 1) {
+                return mapper.apply(partitions.get(from));
+            }
+
+            int middle = (from + to) >>> 1;
+            PartitionTask<P> left = new PartitionTask<>(partitions, from, middle, mapper, merger);
+            PartitionTask<P> right = new PartitionTask<>(partitions, middle, to, mapper, merger);
+            left.fork();
+            P rightResult = right.compute();
+            return merger.apply(left.join(), rightResult);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.shop.model.sales;
 import com.shop.enums.PaymentMethod;
 import com.shop.model.person.Cashier;
 import com.shop.model.product.Product;
+import com.shop.utils.BusinessClock;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -23,7 +24,7 @@ public class Sale implements Serializable {
 
     public Sale() {
         this.items = new HashMap<>();
-        this.saleDateTime = LocalDateTime.now();
+        this.saleDateTime = BusinessClock.get().now();
         this.isCompleted = false;
     }
 
@@ -71,6 +72,10 @@ public class Sale implements Serializable {
         this.totalAmount = totalAmount;
         this.receipt = receipt;
         this.isCompleted = true;
+        // The receipt's compact lines take over, the basket map is no longer needed
+        if (receipt != null) {
+            this.items = null;
+        }
     }
 
     public int getSaleId() {
@@ -98,7 +103,7 @@ public class Sale implements Serializable {
     }
 
     public Map<Product, Integer> getItems() {
-        return items;
+        return items != null ? items : receipt.getItems();
     }
 
     public void setItems(Map<Product, Integer> items) {
@@ -143,7 +148,7 @@ public class Sale implements Serializable {
                 "saleId=" + saleId +
                 ", saleDateTime=" + saleDateTime +
                 ", cashier=" + (cashier != null ? cashier.getName() : "none") +
-                ", items=" + items.size() +
+                ", items=" + getItems().size() +
                 ", paymentMethod=" + paymentMethod +
                 ", totalAmount=" + totalAmount +
                 ", isCompleted=" + isCompleted +
@@ -0,0 +1,60 @@
+package com.shop.model.sales;
+
+import com.shop.enums.SyncStatus;
+
+public class SaleSyncResult {
+    private final String idempotencyKey;
+    private final SyncStatus status;
+    private final Receipt receipt;
+    private final String message;
+
+    private SaleSyncResult(String idempotencyKey, SyncStatus status, Receipt receipt, String message) {
+        this.idempotencyKey = idempotencyKey;
+        this.status = status;
+        this.receipt = receipt;
+        this.message = message;
+    }
+
+    public static SaleSyncResult completed(String idempotencyKey, Receipt receipt) {
+        return new SaleSyncResult(idempotencyKey, SyncStatus.COMPLETED, receipt, null);
+    }
+
+    // The receipt is the one issued when the key was first completed
+    public static SaleSyncResult duplicate(String idempotencyKey, Receipt receipt) {
+        return new SaleSyncResult(idempotencyKey, SyncStatus.DUPLICATE, receipt, "Sale was already uploaded");
+    }
+
+    public static SaleSyncResult rejected(String idempotencyKey, SyncStatus status, String message) {
+        return new SaleSyncResult(idempotencyKey, status, null, message);
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public SyncStatus getStatus() {
+        return status;
+    }
+
+    public boolean isCompleted() {
+        return status == SyncStatus.COMPLETED;
+    }
+
+    public Receipt getReceipt() {
+        return receipt;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "SaleSyncResult{" +
+                "idempotencyKey='" + idempotencyKey + '\'' +
+                ", status=" + status +
+                (receipt != null ? ", receiptNumber=" + receipt.getReceiptNumber() : "") +
+                (message != null ? ", message='" + message + '\'' : "") +
+                '}';
+    }
+}
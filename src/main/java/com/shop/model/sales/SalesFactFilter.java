@@ -0,0 +1,67 @@
+package com.shop.model.sales;
+
+import java.time.LocalDate;
+
+// Immutable row filter for SalesFactTable scans; a dimension left at ANY is not filtered
+public final class SalesFactFilter {
+
+    public static final int ANY = Integer.MIN_VALUE;
+
+    private final int fromDay;
+    private final int toDay;
+    private final int productId;
+    private final int cashierId;
+    private final int registerNumber;
+
+    private SalesFactFilter(int fromDay, int toDay, int productId, int cashierId, int registerNumber) {
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        this.productId = productId;
+        this.cashierId = cashierId;
+        this.registerNumber = registerNumber;
+    }
+
+    public static SalesFactFilter all() {
+        return new SalesFactFilter(Integer.MIN_VALUE, Integer.MAX_VALUE, ANY, ANY, ANY);
+    }
+
+    public static SalesFactFilter between(LocalDate startDate, LocalDate endDate) {
+        return new SalesFactFilter((int) startDate.toEpochDay(), (int) endDate.toEpochDay(), ANY, ANY, ANY);
+    }
+
+    public SalesFactFilter withProduct(int productId) {
+        return new SalesFactFilter(fromDay, toDay, productId, cashierId, registerNumber);
+    }
+
+    public SalesFactFilter withCashier(int cashierId) {
+        return new SalesFactFilter(fromDay, toDay, productId, cashierId, registerNumber);
+    }
+
+    public SalesFactFilter withRegister(int registerNumber) {
+        return new SalesFactFilter(fromDay, toDay, productId, cashierId, registerNumber);
+    }
+
+    public int getFromDay() {
+        return fromDay;
+    }
+
+    public int getToDay() {
+        return toDay;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getCashierId() {
+        return cashierId;
+    }
+
+    public int getRegisterNumber() {
+        return registerNumber;
+    }
+
+    boolean hasDimensionFilter() {
+        return productId != ANY || cashierId != ANY || registerNumber != ANY;
+    }
+}
@@ -0,0 +1,461 @@
+package com.shop.model.sales;
+
+import com.shop.enums.FactDimension;
+import com.shop.enums.FactMeasure;
+import com.shop.utils.IntLongHashMap;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Append-only columnar copy of every sold line: epoch day, timestamp, register, cashier, product,
+ * quantity, amount and cost in cents. Rows live in fixed-size chunks that keep min/max zone maps per
+ * dimension, so scans skip chunks a filter rules out and run plain loops over primitive columns.
+ * Appends go to one of several shards picked by thread, so concurrent checkouts do not share a lock.
+ */
+public class SalesFactTable {
+
+    private static final int DEFAULT_CHUNK_ROWS = 4096;
+    private static final int MAX_DENSE_KEYS = 1 << 20;
+    private static final int DENSE_KEYS_PER_ROW = 4;
+
+    private final int chunkRows;
+    private final Shard[] shards;
+
+    public SalesFactTable() {
+        this(DEFAULT_CHUNK_ROWS, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public SalesFactTable(int chunkRows, int shardCount) {
+        if (chunkRows <= 0 || shardCount <= 0) {
+            throw new IllegalArgumentException("Chunk size and shard count must be positive");
+        }
+        this.chunkRows = chunkRows;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public void append(Receipt receipt) {
+        ReceiptLines lines = receipt.getLines();
+        if (lines.size() == 0) {
+            return;
+        }
+
+        LocalDateTime dateTime = receipt.getDateTime();
+        int day = (int) dateTime.toLocalDate().toEpochDay();
+        long timestamp = dateTime.toEpochSecond(ZoneOffset.UTC);
+        int cashierId = receipt.getCashier().getId();
+        int registerNumber = receipt.getCashier().getRegisterNumber();
+
+        Shard shard = shards[(int) (Thread.currentThread().getId() % shards.length)];
+        shard.append(lines, day, timestamp, registerNumber, cashierId);
+    }
+
+    public void rebuild(Collection<Receipt> receipts) {
+        clear();
+        for (Receipt receipt : receipts) {
+            append(receipt);
+        }
+    }
+
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    public long rowCount() {
+        long rows = 0;
+        for (Shard shard : shards) {
+            for (Chunk chunk : shard.chunks) {
+                rows += chunk.size;
+            }
+        }
+        return rows;
+    }
+
+    public long sum(FactMeasure measure, SalesFactFilter filter) {
+        long total = 0;
+        int[] selection = new int[chunkRows];
+
+        for (Shard shard : shards) {
+            for (Chunk chunk : shard.chunks) {
+                int rows = chunk.size;
+                if (rows == 0 || !chunk.mayMatch(filter)) {
+                    continue;
+                }
+                if (chunk.matchesAll(filter)) {
+                    total += chunk.sumAll(measure, rows);
+                } else {
+                    int selected = chunk.select(filter, rows, selection);
+                    total += chunk.sumSelected(measure, selection, selected);
+                }
+            }
+        }
+        return total;
+    }
+
+    public IntLongHashMap sumBy(FactDimension dimension, FactMeasure measure, SalesFactFilter filter) {
+        return sumBy(dimension, filter, measure)[0];
+    }
+
+    // Groups several measures in one scan; the result holds one map per measure, in the order given
+    public IntLongHashMap[] sumBy(FactDimension dimension, SalesFactFilter filter, FactMeasure... measures) {
+        // Checkouts keep appending during the scan, so the key range and the sums are taken from the same rows
+        ChunkSnapshot snapshot = snapshot(filter);
+        int minKey = Integer.MAX_VALUE;
+        int maxKey = Integer.MIN_VALUE;
+        for (int c = 0; c < snapshot.count; c++) {
+            minKey = Math.min(minKey, snapshot.chunks[c].minOf(dimension));
+            maxKey = Math.max(maxKey, snapshot.chunks[c].maxOf(dimension));
+        }
+        if (minKey > maxKey) {
+            IntLongHashMap[] empty = new IntLongHashMap[measures.length];
+            for (int m = 0; m < measures.length; m++) {
+                empty[m] = new IntLongHashMap();
+            }
+            return empty;
+        }
+
+        // Plain arrays only pay off when the key range is not much wider than the rows scanned. A narrow
+        // partition, e.g. one week, over a wide catalog sums into maps sized by its rows instead of its key range
+        long range = (long) maxKey - minKey + 1;
+        if (groupsDensely(range, snapshot.totalRows)) {
+            return sumByDense(snapshot, dimension, measures, filter, minKey, (int) range);
+        }
+        return sumBySparse(snapshot, dimension, measures, filter, (int) Math.min(range, snapshot.totalRows));
+    }
+
+    static boolean groupsDensely(long keyRange, long rows) {
+        return keyRange <= MAX_DENSE_KEYS && keyRange <= rows * DENSE_KEYS_PER_ROW;
+    }
+
+    // Number of chunks a scan with this filter has to read after zone map pruning
+    int countChunksToScan(SalesFactFilter filter) {
+        return snapshot(filter).count;
+    }
+
+    // Fixes the rows published so far in every chunk the filter may match. The row count is read before the
+    // zone maps, which only widen, so the zone maps of a snapshot cover every key in its rows
+    private ChunkSnapshot snapshot(SalesFactFilter filter) {
+        ChunkSnapshot snapshot = new ChunkSnapshot();
+        for (Shard shard : shards) {
+            for (Chunk chunk : shard.chunks) {
+                int rows = chunk.size;
+                if (rows > 0 && chunk.mayMatch(filter)) {
+                    snapshot.add(chunk, rows);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private IntLongHashMap[] sumByDense(ChunkSnapshot snapshot, FactDimension dimension, FactMeasure[] measures,
+                                        SalesFactFilter filter, int minKey, int range) {
+        long[][] sums = new long[measures.length][range];
+        boolean[] seen = new boolean[range];
+        int[] selection = new int[chunkRows];
+
+        for (int c = 0; c < snapshot.count; c++) {
+            Chunk chunk = snapshot.chunks[c];
+            int rows = snapshot.rows[c];
+            int[] keys = chunk.column(dimension);
+            int selected = chunk.matchesAll(filter) ? selectAll(rows, selection) : chunk.select(filter, rows, selection);
+            for (int i = 0; i < selected; i++) {
+                seen[keys[selection[i]] - minKey] = true;
+            }
+            for (int m = 0; m < measures.length; m++) {
+                long[] measureSums = sums[m];
+                for (int i = 0; i < selected; i++) {
+                    int row = selection[i];
+                    measureSums[keys[row] - minKey] += chunk.valueAt(measures[m], row);
+                }
+            }
+        }
+
+        IntLongHashMap[] results = new IntLongHashMap[measures.length];
+        for (int m = 0; m < measures.length; m++) {
+            results[m] = new IntLongHashMap();
+            for (int slot = 0; slot < range; slot++) {
+                if (seen[slot]) {
+                    results[m].put(minKey + slot, sums[m][slot]);
+                }
+            }
+        }
+        return results;
+    }
+
+    private IntLongHashMap[] sumBySparse(ChunkSnapshot snapshot, FactDimension dimension, FactMeasure[] measures,
+                                         SalesFactFilter filter, int expectedKeys) {
+        IntLongHashMap[] results = new IntLongHashMap[measures.length];
+        for (int m = 0; m < measures.length; m++) {
+            results[m] = new IntLongHashMap(expectedKeys);
+        }
+        int[] selection = new int[chunkRows];
+
+        for (int c = 0; c < snapshot.count; c++) {
+            Chunk chunk = snapshot.chunks[c];
+            int[] keys = chunk.column(dimension);
+            int rows = snapshot.rows[c];
+            int selected = chunk.matchesAll(filter) ? selectAll(rows, selection) : chunk.select(filter, rows, selection);
+            for (int m = 0; m < measures.length; m++) {
+                for (int i = 0; i < selected; i++) {
+                    int row = selection[i];
+                    results[m].addTo(keys[row], chunk.valueAt(measures[m], row));
+                }
+            }
+        }
+        return results;
+    }
+
+    private static int selectAll(int rows, int[] selection) {
+        for (int row = 0; row < rows; row++) {
+            selection[row] = row;
+        }
+        return rows;
+    }
+
+    private static final class ChunkSnapshot {
+        private Chunk[] chunks = new Chunk[8];
+        private int[] rows = new int[8];
+        private int count;
+        private long totalRows;
+
+        private void add(Chunk chunk, int rowCount) {
+            if (count == chunks.length) {
+                chunks = Arrays.copyOf(chunks, count * 2);
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            chunks[count] = chunk;
+            rows[count++] = rowCount;
+            totalRows += rowCount;
+        }
+    }
+
+    private final class Shard {
+        private volatile Chunk[] chunks = new Chunk[0];
+        private Chunk current;
+
+        private synchronized void append(ReceiptLines lines, int day, long timestamp, int registerNumber, int cashierId) {
+            int count = lines.size();
+            Chunk chunk = current;
+            if (chunk != null && chunk.size + count <= chunkRows) {
+                int row = write(chunk, chunk.size, lines, 0, count, day, timestamp, registerNumber, cashierId);
+                // Readers only look at rows below size, so publishing it last makes the whole receipt visible at once
+                chunk.size = row;
+                return;
+            }
+
+            // A receipt that does not fit goes to fresh chunks, which become reachable only after every line is written
+            Chunk[] grown = Arrays.copyOf(chunks, chunks.length + (count + chunkRows - 1) / chunkRows);
+            for (int i = chunks.length, line = 0; i < grown.length; i++, line += chunkRows) {
+                Chunk fresh = new Chunk(chunkRows);
+                fresh.size = write(fresh, 0, lines, line, Math.min(count, line + chunkRows),
+                        day, timestamp, registerNumber, cashierId);
+                grown[i] = fresh;
+            }
+            current = grown[grown.length - 1];
+            chunks = grown;
+        }
+
+        private int write(Chunk chunk, int row, ReceiptLines lines, int fromLine, int toLine,
+                          int day, long timestamp, int registerNumber, int cashierId) {
+            for (int line = fromLine; line < toLine; line++) {
+                chunk.write(row++, day, timestamp, registerNumber, cashierId, lines.getProductId(line),
+                        lines.getQuantity(line), lines.getLineTotalCents(line),
+                        lines.getUnitCostCents(line) * lines.getQuantity(line));
+            }
+            return row;
+        }
+
+        private synchronized void clear() {
+            chunks = new Chunk[0];
+            current = null;
+        }
+    }
+
+    private static final class Chunk {
+        private final int[] days;
+        private final long[] timestamps;
+        private final int[] registers;
+        private final int[] cashiers;
+        private final int[] products;
+        private final int[] quantities;
+        private final long[] amountCents;
+        private final long[] costCents;
+        private volatile int size;
+
+        // Zone maps only ever widen, so a reader that sees a newer value still prunes correctly
+        private int minDay = Integer.MAX_VALUE;
+        private int maxDay = Integer.MIN_VALUE;
+        private int minProduct = Integer.MAX_VALUE;
+        private int maxProduct = Integer.MIN_VALUE;
+        private int minCashier = Integer.MAX_VALUE;
+        private int maxCashier = Integer.MIN_VALUE;
+        private int minRegister = Integer.MAX_VALUE;
+        private int maxRegister = Integer.MIN_VALUE;
+
+        private Chunk(int capacity) {
+            this.days = new int[capacity];
+            this.timestamps = new long[capacity];
+            this.registers = new int[capacity];
+            this.cashiers = new int[capacity];
+            this.products = new int[capacity];
+            this.quantities = new int[capacity];
+            this.amountCents = new long[capacity];
+            this.costCents = new long[capacity];
+        }
+
+        private void write(int row, int day, long timestamp, int register, int cashier, int product,
+                           int quantity, long amount, long cost) {
+            days[row] = day;
+            timestamps[row] = timestamp;
+            registers[row] = register;
+            cashiers[row] = cashier;
+            products[row] = product;
+            quantities[row] = quantity;
+            amountCents[row] = amount;
+            costCents[row] = cost;
+
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+            minProduct = Math.min(minProduct, product);
+            maxProduct = Math.max(maxProduct, product);
+            minCashier = Math.min(minCashier, cashier);
+            maxCashier = Math.max(maxCashier, cashier);
+            minRegister = Math.min(minRegister, register);
+            maxRegister = Math.max(maxRegister, register);
+        }
+
+        private boolean mayMatch(SalesFactFilter filter) {
+            return filter.getFromDay() <= maxDay && filter.getToDay() >= minDay
+                    && mayContain(filter.getProductId(), minProduct, maxProduct)
+                    && mayContain(filter.getCashierId(), minCashier, maxCashier)
+                    && mayContain(filter.getRegisterNumber(), minRegister, maxRegister);
+        }
+
+        private boolean matchesAll(SalesFactFilter filter) {
+            return !filter.hasDimensionFilter() && filter.getFromDay() <= minDay && filter.getToDay() >= maxDay;
+        }
+
+        private static boolean mayContain(int value, int min, int max) {
+            return value == SalesFactFilter.ANY || (value >= min && value <= max);
+        }
+
+        private int select(SalesFactFilter filter, int rows, int[] selection) {
+            int fromDay = filter.getFromDay();
+            int toDay = filter.getToDay();
+            int selected = 0;
+            for (int row = 0; row < rows; row++) {
+                int day = days[row];
+                if (day >= fromDay && day <= toDay) {
+                    selection[selected++] = row;
+                }
+            }
+
+            selected = narrow(selection, selected, products, filter.getProductId());
+            selected = narrow(selection, selected, cashiers, filter.getCashierId());
+            return narrow(selection, selected, registers, filter.getRegisterNumber());
+        }
+
+        private static int narrow(int[] selection, int selected, int[] column, int value) {
+            if (value == SalesFactFilter.ANY) {
+                return selected;
+            }
+            int kept = 0;
+            for (int i = 0; i < selected; i++) {
+                int row = selection[i];
+                if (column[row] == value) {
+                    selection[kept++] = row;
+                }
+            }
+            return kept;
+        }
+
+        private long sumAll(FactMeasure measure, int rows) {
+            long total = 0;
+            switch (measure) {
+                case LINES -> total = rows;
+                case QUANTITY -> {
+                    for (int row = 0; row < rows; row++) {
+                        total += quantities[row];
+                    }
+                }
+                case AMOUNT_CENTS -> {
+                    for (int row = 0; row < rows; row++) {
+                        total += amountCents[row];
+                    }
+                }
+                case COST_CENTS -> {
+                    for (int row = 0; row < rows; row++) {
+                        total += costCents[row];
+                    }
+                }
+            }
+            return total;
+        }
+
+        private long sumSelected(FactMeasure measure, int[] selection, int selected) {
+            long total = 0;
+            switch (measure) {
+                case LINES -> total = selected;
+                case QUANTITY -> {
+                    for (int i = 0; i < selected; i++) {
+                        total += quantities[selection[i]];
+                    }
+                }
+                case AMOUNT_CENTS -> {
+                    for (int i = 0; i < selected; i++) {
+                        total += amountCents[selection[i]];
+                    }
+                }
+                case COST_CENTS -> {
+                    for (int i = 0; i < selected; i++) {
+                        total += costCents[selection[i]];
+                    }
+                }
+            }
+            return total;
+        }
+
+        private long valueAt(FactMeasure measure, int row) {
+            return switch (measure) {
+                case LINES -> 1;
+                case QUANTITY -> quantities[row];
+                case AMOUNT_CENTS -> amountCents[row];
+                case COST_CENTS -> costCents[row];
+            };
+        }
+
+        private int[] column(FactDimension dimension) {
+            return switch (dimension) {
+                case DAY -> days;
+                case PRODUCT -> products;
+                case CASHIER -> cashiers;
+                case REGISTER -> registers;
+            };
+        }
+
+        private int minOf(FactDimension dimension) {
+            return switch (dimension) {
+                case DAY -> minDay;
+                case PRODUCT -> minProduct;
+                case CASHIER -> minCashier;
+                case REGISTER -> minRegister;
+            };
+        }
+
+        private int maxOf(FactDimension dimension) {
+            return switch (dimension) {
+                case DAY -> maxDay;
+                case PRODUCT -> maxProduct;
+                case CASHIER -> maxCashier;
+                case REGISTER -> maxRegister;
+            };
+        }
+    }
+}
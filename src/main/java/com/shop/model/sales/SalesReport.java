@@ -1,17 +1,27 @@
 package com.shop.model.sales;
 
+import com.shop.enums.FactDimension;
+import com.shop.enums.FactMeasure;
+import com.shop.enums.ProductCategory;
+import com.shop.enums.ProductRanking;
 import com.shop.model.person.Cashier;
 import com.shop.model.product.Product;
+import com.shop.model.product.ProductLookup;
 import com.shop.model.store.Store;
+import com.shop.utils.BusinessClock;
+import com.shop.utils.IntDoubleHashMap;
+import com.shop.utils.IntLongHashMap;
+import com.shop.utils.TopK;
 
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class SalesReport implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -21,59 +31,49 @@ public class SalesReport implements Serializable {
     private LocalDate endDate;
     private double totalSales;
     private int totalTransactions;
-    private Map<Integer, Double> salesByCashier;
-    private Map<Integer, Integer> itemsSoldByProduct;
+    private IntDoubleHashMap salesByCashier;
+    private IntLongHashMap itemsSoldByProduct;
+    private IntDoubleHashMap revenueByProduct;
+    private IntDoubleHashMap marginByProduct;
     private Map<LocalDate, Double> salesByDate;
+    private int topProductsCount;
+    private ProductRanking topProductsRanking;
 
     public SalesReport() {
-        this.generatedAt = LocalDateTime.now();
-        this.salesByCashier = new HashMap<>();
-        this.itemsSoldByProduct = new HashMap<>();
+        this.generatedAt = BusinessClock.get().now();
+        this.salesByCashier = new IntDoubleHashMap();
+        this.itemsSoldByProduct = new IntLongHashMap();
+        this.revenueByProduct = new IntDoubleHashMap();
+        this.marginByProduct = new IntDoubleHashMap();
         this.salesByDate = new HashMap<>();
+        this.topProductsCount = 5;
+        this.topProductsRanking = ProductRanking.UNITS;
     }
 
     public void generateReport(Store store, LocalDate startDate, LocalDate endDate) {
         this.startDate = startDate;
         this.endDate = endDate;
-        this.generatedAt = LocalDateTime.now();
+        this.generatedAt = BusinessClock.get().now();
 
         totalSales = 0;
         totalTransactions = 0;
         salesByCashier.clear();
         itemsSoldByProduct.clear();
+        revenueByProduct.clear();
+        marginByProduct.clear();
         salesByDate.clear();
 
-        List<Receipt> receiptsInPeriod = store.getReceipts().stream()
-                .filter(receipt -> {
-                    LocalDate receiptDate = receipt.getDateTime().toLocalDate();
-                    return (receiptDate.isEqual(startDate) || receiptDate.isAfter(startDate)) &&
-                            (receiptDate.isEqual(endDate) || receiptDate.isBefore(endDate));
-                })
-                .collect(Collectors.toList());
-
-        for (Receipt receipt : receiptsInPeriod) {
-            // Total sales and transactions
-            totalSales += receipt.getTotalAmount();
-            totalTransactions++;
-
-            // Sales by cashier
-            int cashierId = receipt.getCashier().getId();
-            salesByCashier.put(cashierId, salesByCashier.getOrDefault(cashierId, 0.0) + receipt.getTotalAmount());
-
-            // Items sold by product
-            for (Map.Entry<Product, Integer> entry : receipt.getItems().entrySet()) {
-                Product product = entry.getKey();
-                int quantity = entry.getValue();
-
-                itemsSoldByProduct.put(product.getId(),
-                        itemsSoldByProduct.getOrDefault(product.getId(), 0) + quantity);
-            }
-
-            // Sales by date
-            LocalDate receiptDate = receipt.getDateTime().toLocalDate();
-            salesByDate.put(receiptDate,
-                    salesByDate.getOrDefault(receiptDate, 0.0) + receipt.getTotalAmount());
+        SalesRollup rollup = store.getSalesRollup();
+        SalesFactTable facts = store.getSalesFacts();
+        PartialSales sales;
+        if (ReportPartitions.shouldParallelize(rollup.countTransactions(startDate, endDate))) {
+            sales = ReportPartitions.aggregate(ReportPartitions.split(startDate, endDate),
+                    partition -> new PartialSales(rollup, facts, partition.getStartDate(), partition.getEndDate()),
+                    PartialSales::merge);
+        } else {
+            sales = new PartialSales(rollup, facts, startDate, endDate);
         }
+        sales.copyInto(this);
     }
 
     public String generateReportText(Store store) {
@@ -95,9 +95,10 @@ public class SalesReport implements Serializable {
         sb.append("--------------------------------------\n");
         sb.append("Sales by Cashier:\n");
 
-        for (Map.Entry<Integer, Double> entry : salesByCashier.entrySet()) {
-            int cashierId = entry.getKey();
-            double sales = entry.getValue();
+        int[] cashierIds = salesByCashier.keys();
+        Arrays.sort(cashierIds);
+        for (int cashierId : cashierIds) {
+            double sales = salesByCashier.get(cashierId);
             Cashier cashier = (Cashier) store.getEmployeeById(cashierId);
             String cashierName = cashier != null ? cashier.getName() : "Unknown";
 
@@ -107,21 +108,13 @@ public class SalesReport implements Serializable {
         sb.append("--------------------------------------\n");
         sb.append("Top Selling Products:\n");
 
-        // Sort by quantity sold
-        List<Map.Entry<Integer, Integer>> sortedProducts = new ArrayList<>(itemsSoldByProduct.entrySet());
-        sortedProducts.sort(Map.Entry.<Integer, Integer>comparingByValue().reversed());
-
-        int count = 0;
-        for (Map.Entry<Integer, Integer> entry : sortedProducts) {
-            if (count >= 5) break; // Show top 5
-
-            int productId = entry.getKey();
-            int quantity = entry.getValue();
-            Product product = store.getProductById(productId);
+        for (RankedProduct ranked : getTopProducts(topProductsRanking, topProductsCount)) {
+            int productId = ranked.getProductId();
+            Product product = store.getProductLookup().findProduct(productId);
             String productName = product != null ? product.getName() : "Unknown";
 
-            sb.append(String.format("  %s (ID: %d): %d units\n", productName, productId, quantity));
-            count++;
+            sb.append(String.format("  %s (ID: %d): %d units, %.2f revenue\n", productName, productId,
+                    ranked.getUnitsSold(), ranked.getRevenue()));
         }
 
         sb.append("--------------------------------------\n");
@@ -139,6 +132,43 @@ public class SalesReport implements Serializable {
         return sb.toString();
     }
 
+    public List<RankedProduct> getTopProducts(ProductRanking ranking, int count) {
+        TopK top = new TopK(count);
+        itemsSoldByProduct.forEach((productId, quantity) -> top.offer(productId, score(ranking, productId)));
+        return toRankedProducts(top.drainDescending());
+    }
+
+    // Products the lookup cannot resolve have no category and are left out
+    public Map<ProductCategory, List<RankedProduct>> getTopProductsByCategory(ProductLookup lookup,
+                                                                             ProductRanking ranking, int count) {
+        Map<ProductCategory, TopK> tops = new EnumMap<>(ProductCategory.class);
+        itemsSoldByProduct.forEach((productId, quantity) -> {
+            Product product = lookup.findProduct(productId);
+            if (product != null && product.getCategory() != null) {
+                tops.computeIfAbsent(product.getCategory(), category -> new TopK(count))
+                        .offer(productId, score(ranking, productId));
+            }
+        });
+
+        Map<ProductCategory, List<RankedProduct>> result = new EnumMap<>(ProductCategory.class);
+        tops.forEach((category, top) -> result.put(category, toRankedProducts(top.drainDescending())));
+        return result;
+    }
+
+    private long score(ProductRanking ranking, int productId) {
+        return RankedProduct.score(ranking, itemsSoldByProduct.get(productId),
+                Math.round(revenueByProduct.get(productId) * 100), Math.round(marginByProduct.get(productId) * 100));
+    }
+
+    private List<RankedProduct> toRankedProducts(int[] productIds) {
+        List<RankedProduct> ranked = new ArrayList<>(productIds.length);
+        for (int productId : productIds) {
+            ranked.add(new RankedProduct(productId, itemsSoldByProduct.get(productId),
+                    Math.round(revenueByProduct.get(productId) * 100), Math.round(marginByProduct.get(productId) * 100)));
+        }
+        return ranked;
+    }
+
     public LocalDateTime getGeneratedAt() {
         return generatedAt;
     }
@@ -179,22 +209,54 @@ public class SalesReport implements Serializable {
         this.totalTransactions = totalTransactions;
     }
 
-    public Map<Integer, Double> getSalesByCashier() {
+    public IntDoubleHashMap getSalesByCashier() {
         return salesByCashier;
     }
 
-    public void setSalesByCashier(Map<Integer, Double> salesByCashier) {
+    public void setSalesByCashier(IntDoubleHashMap salesByCashier) {
         this.salesByCashier = salesByCashier;
     }
 
-    public Map<Integer, Integer> getItemsSoldByProduct() {
+    public IntLongHashMap getItemsSoldByProduct() {
         return itemsSoldByProduct;
     }
 
-    public void setItemsSoldByProduct(Map<Integer, Integer> itemsSoldByProduct) {
+    public void setItemsSoldByProduct(IntLongHashMap itemsSoldByProduct) {
         this.itemsSoldByProduct = itemsSoldByProduct;
     }
 
+    public IntDoubleHashMap getRevenueByProduct() {
+        return revenueByProduct;
+    }
+
+    public void setRevenueByProduct(IntDoubleHashMap revenueByProduct) {
+        this.revenueByProduct = revenueByProduct;
+    }
+
+    public IntDoubleHashMap getMarginByProduct() {
+        return marginByProduct;
+    }
+
+    public void setMarginByProduct(IntDoubleHashMap marginByProduct) {
+        this.marginByProduct = marginByProduct;
+    }
+
+    public int getTopProductsCount() {
+        return topProductsCount;
+    }
+
+    public void setTopProductsCount(int topProductsCount) {
+        this.topProductsCount = topProductsCount;
+    }
+
+    public ProductRanking getTopProductsRanking() {
+        return topProductsRanking;
+    }
+
+    public void setTopProductsRanking(ProductRanking topProductsRanking) {
+        this.topProductsRanking = topProductsRanking;
+    }
+
     public Map<LocalDate, Double> getSalesByDate() {
         return salesByDate;
     }
@@ -202,4 +264,54 @@ public class SalesReport implements Serializable {
     public void setSalesByDate(Map<LocalDate, Double> salesByDate) {
         this.salesByDate = salesByDate;
     }
-} 
\ No newline at end of file
+
+    // Mergeable totals for one slice of the report range
+    private static final class PartialSales {
+        private double totalSales;
+        private int transactions;
+        private final IntDoubleHashMap salesByCashier = new IntDoubleHashMap();
+        private final Map<LocalDate, Double> salesByDate = new HashMap<>();
+        private final IntLongHashMap quantityByProduct;
+        private final IntLongHashMap centsByProduct;
+        private final IntLongHashMap costByProduct;
+
+        private PartialSales(SalesRollup rollup, SalesFactTable facts, LocalDate startDate, LocalDate endDate) {
+            for (DailySales day : rollup.getDays(startDate, endDate)) {
+                double daySales = day.getTotalSales();
+                totalSales += daySales;
+                transactions += day.getTransactions();
+                day.mergeInto(salesByCashier);
+                salesByDate.merge(day.getDate(), daySales, Double::sum);
+            }
+
+            IntLongHashMap[] byProduct = facts.sumBy(FactDimension.PRODUCT, SalesFactFilter.between(startDate, endDate),
+                    FactMeasure.QUANTITY, FactMeasure.AMOUNT_CENTS, FactMeasure.COST_CENTS);
+            quantityByProduct = byProduct[0];
+            centsByProduct = byProduct[1];
+            costByProduct = byProduct[2];
+        }
+
+        private PartialSales merge(PartialSales other) {
+            totalSales += other.totalSales;
+            transactions += other.transactions;
+            salesByCashier.addAll(other.salesByCashier);
+            other.salesByDate.forEach((date, amount) -> salesByDate.merge(date, amount, Double::sum));
+            quantityByProduct.addAll(other.quantityByProduct);
+            centsByProduct.addAll(other.centsByProduct);
+            costByProduct.addAll(other.costByProduct);
+            return this;
+        }
+
+        private void copyInto(SalesReport report) {
+            report.totalSales = totalSales;
+            report.totalTransactions = transactions;
+            report.salesByCashier.addAll(salesByCashier);
+            report.salesByDate.putAll(salesByDate);
+            report.itemsSoldByProduct.addAll(quantityByProduct);
+            centsByProduct.forEach((productId, cents) -> {
+                report.revenueByProduct.put(productId, cents / 100.0);
+                report.marginByProduct.put(productId, (cents - costByProduct.get(productId)) / 100.0);
+            });
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.shop.model.sales;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class SalesRollup implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final ConcurrentSkipListMap<LocalDate, DailySales> days;
+
+    public SalesRollup() {
+        this.days = new ConcurrentSkipListMap<>();
+    }
+
+    public void record(Receipt receipt) {
+        LocalDate date = receipt.getDateTime().toLocalDate();
+        days.computeIfAbsent(date, DailySales::new).record(receipt);
+    }
+
+    public void rebuild(Collection<Receipt> receipts) {
+        days.clear();
+        for (Receipt receipt : receipts) {
+            record(receipt);
+        }
+    }
+
+    public List<DailySales> getDays(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(days.subMap(startDate, true, endDate, true).values());
+    }
+
+    public int countTransactions(LocalDate startDate, LocalDate endDate) {
+        int transactions = 0;
+        for (DailySales day : getDays(startDate, endDate)) {
+            transactions += day.getTransactions();
+        }
+        return transactions;
+    }
+
+    public DailySales getDay(LocalDate date) {
+        return days.get(date);
+    }
+}
@@ -1,15 +1,14 @@
 package com.shop.model.store;
 
-import com.shop.model.person.Employee;
-import com.shop.model.product.Product;
-import com.shop.model.sales.Receipt;
+import com.shop.model.sales.DailySales;
+import com.shop.utils.BusinessClock;
+import com.shop.utils.IntDoubleHashMap;
 
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 public class FinancialReport implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -22,51 +21,32 @@ public class FinancialReport implements Serializable {
     private double totalSalaries;
     private double totalProfit;
     private int totalReceiptsCount;
-    private Map<Integer, Double> salesByRegister;
+    private IntDoubleHashMap salesByRegister;
 
     public FinancialReport() {
-        this.generatedAt = LocalDateTime.now();
-        this.salesByRegister = new HashMap<>();
+        this.generatedAt = BusinessClock.get().now();
+        this.salesByRegister = new IntDoubleHashMap();
     }
 
     public void generateReport(Store store, LocalDate startDate, LocalDate endDate) {
         this.startDate = startDate;
         this.endDate = endDate;
-        this.generatedAt = LocalDateTime.now();
+        this.generatedAt = BusinessClock.get().now();
 
-        // Calculate total sales
         totalSales = 0;
         totalReceiptsCount = 0;
         salesByRegister.clear();
+        int months = (int) ChronoUnit.MONTHS.between(startDate, endDate) + 1;
 
-        for (Receipt receipt : store.getReceipts()) {
-            LocalDate receiptDate = receipt.getDateTime().toLocalDate();
-
-            if ((receiptDate.isEqual(startDate) || receiptDate.isAfter(startDate)) &&
-                    (receiptDate.isEqual(endDate) || receiptDate.isBefore(endDate))) {
-
-                totalSales += receipt.getTotalAmount();
-                totalReceiptsCount++;
-
-                // Add to sales by register
-                int registerNumber = receipt.getCashier().getRegisterNumber();
-                salesByRegister.put(registerNumber,
-                        salesByRegister.getOrDefault(registerNumber, 0.0) + receipt.getTotalAmount());
-            }
-        }
-
-        // Calculate total purchases
-        totalPurchases = 0;
-        for (Product product : store.getInventory().values()) {
-            totalPurchases += product.getPurchasePrice() * product.getQuantity();
+        // The rollup holds one entry per day, so reading it is cheaper than splitting the range across threads
+        for (DailySales day : store.getSalesRollup().getDays(startDate, endDate)) {
+            totalSales += day.getTotalSales();
+            totalReceiptsCount += day.getTransactions();
+            day.mergeRegisterSalesInto(salesByRegister);
         }
 
-        // Calculate total salaries
-        totalSalaries = 0;
-        int months = (int) ChronoUnit.MONTHS.between(startDate, endDate) + 1;
-        for (Employee employee : store.getEmployees()) {
-            totalSalaries += employee.getMonthlySalary() * months;
-        }
+        totalPurchases = store.getInventoryValue();
+        totalSalaries = store.getTotalMonthlySalaries() * months;
 
         // Calculate profit
         totalProfit = totalSales - totalPurchases - totalSalaries;
@@ -90,8 +70,10 @@ public class FinancialReport implements Serializable {
         sb.append("Total Receipts: ").append(totalReceiptsCount).append("\n");
         sb.append("Sales by Register:\n");
 
-        for (Map.Entry<Integer, Double> entry : salesByRegister.entrySet()) {
-            sb.append(String.format("  Register #%d: %.2f\n", entry.getKey(), entry.getValue()));
+        int[] registerNumbers = salesByRegister.keys();
+        Arrays.sort(registerNumbers);
+        for (int registerNumber : registerNumbers) {
+            sb.append(String.format("  Register #%d: %.2f\n", registerNumber, salesByRegister.get(registerNumber)));
         }
 
         sb.append("======================================\n");
@@ -163,11 +145,11 @@ public class FinancialReport implements Serializable {
         this.totalReceiptsCount = totalReceiptsCount;
     }
 
-    public Map<Integer, Double> getSalesByRegister() {
+    public IntDoubleHashMap getSalesByRegister() {
         return salesByRegister;
     }
 
-    public void setSalesByRegister(Map<Integer, Double> salesByRegister) {
+    public void setSalesByRegister(IntDoubleHashMap salesByRegister) {
         this.salesByRegister = salesByRegister;
     }
-} 
\ No newline at end of file
+}
@@ -1,40 +1,195 @@
 package com.shop.model.store;
 
+import com.shop.enums.AdjustmentStatus;
+import com.shop.exceptions.ExpiredProductException;
 import com.shop.exceptions.InsufficientQuantityException;
 import com.shop.model.product.Product;
+import com.shop.utils.BusinessClock;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 public class Inventory implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private Map<Integer, Product> products;
+    private final StockLocks stockLocks;
+    private final DoubleAdder inventoryValue;
+    // Packed (quantity, product id) keys, moved under the product's stock lock by every quantity change
+    private final ConcurrentSkipListSet<Long> quantityIndex;
 
     public Inventory() {
-        this.products = new HashMap<>();
+        this.products = new ConcurrentHashMap<>();
+        this.stockLocks = new StockLocks();
+        this.inventoryValue = new DoubleAdder();
+        this.quantityIndex = new ConcurrentSkipListSet<>();
     }
 
     public void addProduct(Product product) {
-        products.put(product.getId(), product);
+        ReentrantLock lock = stockLocks.lockFor(product.getId());
+        lock.lock();
+        try {
+            Product previous = products.put(product.getId(), product);
+            if (previous != null) {
+                inventoryValue.add(-valueOf(previous));
+                quantityIndex.remove(quantityKey(previous.getQuantity(), previous.getId()));
+            }
+            inventoryValue.add(valueOf(product));
+            quantityIndex.add(quantityKey(product.getQuantity(), product.getId()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Product removeProduct(int productId) {
+        ReentrantLock lock = stockLocks.lockFor(productId);
+        lock.lock();
+        try {
+            Product removed = products.remove(productId);
+            if (removed != null) {
+                inventoryValue.add(-valueOf(removed));
+                quantityIndex.remove(quantityKey(removed.getQuantity(), productId));
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
     }
 
+    // Products are looked up only once the lock is held, so a concurrent removal is never written through
     public void updateQuantity(int productId, int quantityChange) throws InsufficientQuantityException {
-        Product product = products.get(productId);
-        if (product == null) {
-            throw new IllegalArgumentException("Product with ID " + productId + " not found");
+        ReentrantLock lock = stockLocks.lockFor(productId);
+        lock.lock();
+        try {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("Product with ID " + productId + " not found");
+            }
+
+            int newQuantity = product.getQuantity() + quantityChange;
+            if (newQuantity < 0) {
+                throw new InsufficientQuantityException(product, Math.abs(quantityChange), product.getQuantity());
+            }
+
+            setQuantity(product, newQuantity);
+            inventoryValue.add(product.getPurchasePrice() * quantityChange);
+        } finally {
+            lock.unlock();
         }
+    }
 
-        int newQuantity = product.getQuantity() + quantityChange;
-        if (newQuantity < 0) {
-            throw new InsufficientQuantityException(product, Math.abs(quantityChange), product.getQuantity());
+    // Applies a change that already happened, e.g. while replaying the journal, so it is not validated
+    public void restoreQuantity(int productId, int quantityChange) {
+        ReentrantLock lock = stockLocks.lockFor(productId);
+        lock.lock();
+        try {
+            Product product = products.get(productId);
+            if (product == null) {
+                return;
+            }
+            setQuantity(product, product.getQuantity() + quantityChange);
+            inventoryValue.add(product.getPurchasePrice() * quantityChange);
+        } finally {
+            lock.unlock();
         }
+    }
 
-        product.setQuantity(newQuantity);
+    // Checks every line while the affected products are locked together; a line that would take stock
+    // below zero is rejected on its own and later lines for the same product still apply. Each product is
+    // then written once with its net change
+    public List<StockAdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) {
+        int[] productIds = adjustments.stream().mapToInt(StockAdjustment::getProductId).toArray();
+
+        List<StockAdjustmentResult> results = new ArrayList<>(adjustments.size());
+        double valueChange = 0;
+        List<ReentrantLock> acquired = stockLocks.lockAll(productIds);
+        try {
+            Map<Integer, Product> affected = new HashMap<>();
+            for (int productId : productIds) {
+                Product product = products.get(productId);
+                if (product != null) {
+                    affected.put(productId, product);
+                }
+            }
+
+            Map<Integer, Integer> quantities = new HashMap<>();
+            for (StockAdjustment adjustment : adjustments) {
+                Product product = affected.get(adjustment.getProductId());
+                if (product == null) {
+                    results.add(new StockAdjustmentResult(adjustment, AdjustmentStatus.PRODUCT_NOT_FOUND, 0));
+                    continue;
+                }
+
+                int quantity = quantities.getOrDefault(product.getId(), product.getQuantity());
+                int newQuantity = quantity + adjustment.getQuantityChange();
+                if (newQuantity < 0) {
+                    results.add(new StockAdjustmentResult(adjustment, AdjustmentStatus.INSUFFICIENT_QUANTITY, quantity));
+                    continue;
+                }
+
+                quantities.put(product.getId(), newQuantity);
+                results.add(new StockAdjustmentResult(adjustment, AdjustmentStatus.APPLIED, newQuantity));
+            }
+
+            for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+                Product product = affected.get(entry.getKey());
+                int netChange = entry.getValue() - product.getQuantity();
+                if (netChange != 0) {
+                    setQuantity(product, entry.getValue());
+                    valueChange += product.getPurchasePrice() * netChange;
+                }
+            }
+        } finally {
+            inventoryValue.add(valueChange);
+            stockLocks.unlockAll(acquired);
+        }
+        return results;
+    }
+
+    public void reserveStock(Map<Product, Integer> items)
+            throws InsufficientQuantityException, ExpiredProductException {
+        reserveStock(items, BusinessClock.get().epochDay());
+    }
+
+    // Expiry is judged on the business day the sale was rung up
+    public void reserveStock(Map<Product, Integer> items, long epochDay)
+            throws InsufficientQuantityException, ExpiredProductException {
+        List<ReentrantLock> acquired = stockLocks.lockAll(items.keySet());
+        try {
+            for (Map.Entry<Product, Integer> entry : items.entrySet()) {
+                Product product = entry.getKey();
+                int requestedQuantity = entry.getValue();
+
+                // A product removed while the basket waited for its lock has nothing left to sell
+                if (products.get(product.getId()) != product) {
+                    throw new InsufficientQuantityException(product, requestedQuantity, 0);
+                }
+                if (product.isExpiredOn(epochDay)) {
+                    throw new ExpiredProductException(product);
+                }
+
+                if (product.getQuantity() < requestedQuantity) {
+                    throw new InsufficientQuantityException(product, requestedQuantity, product.getQuantity());
+                }
+            }
+
+            // Every line passed validation while all locks are held, so the whole basket is taken at once
+            for (Map.Entry<Product, Integer> entry : items.entrySet()) {
+                Product product = entry.getKey();
+                setQuantity(product, product.getQuantity() - entry.getValue());
+                inventoryValue.add(-product.getPurchasePrice() * entry.getValue());
+            }
+        } finally {
+            stockLocks.unlockAll(acquired);
+        }
     }
 
     public Product getProductById(int productId) {
@@ -51,11 +206,59 @@ public class Inventory implements Serializable {
                 .collect(Collectors.toList());
     }
 
+    // Reads the products at or below the threshold off the quantity index instead of scanning the catalog
+    public List<Product> getProductsBelowQuantity(int quantityThreshold) {
+        List<Product> result = new ArrayList<>();
+        for (long key : quantityIndex.headSet(quantityKey(quantityThreshold, Integer.MAX_VALUE), true)) {
+            Product product = products.get((int) key);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
     public Map<Integer, Product> getProducts() {
         return products;
     }
 
     public void setProducts(Map<Integer, Product> products) {
-        this.products = products;
+        this.products = new ConcurrentHashMap<>(products);
+        recalculateInventoryValue();
+        quantityIndex.clear();
+        for (Product product : this.products.values()) {
+            quantityIndex.add(quantityKey(product.getQuantity(), product.getId()));
+        }
+    }
+
+    public double getInventoryValue() {
+        return inventoryValue.sum();
+    }
+
+    // Purchase price edits made directly on a Product are not seen by the running total
+    public void recalculateInventoryValue() {
+        inventoryValue.reset();
+        for (Product product : products.values()) {
+            inventoryValue.add(valueOf(product));
+        }
+    }
+
+    // Callers hold the product's stock lock
+    private void setQuantity(Product product, int newQuantity) {
+        quantityIndex.remove(quantityKey(product.getQuantity(), product.getId()));
+        product.setQuantity(newQuantity);
+        quantityIndex.add(quantityKey(newQuantity, product.getId()));
+    }
+
+    private static long quantityKey(int quantity, int productId) {
+        return ((long) quantity << 32) | (productId & 0xFFFFFFFFL);
+    }
+
+    private static double valueOf(Product product) {
+        return product.getPurchasePrice() * product.getQuantity();
+    }
+
+    public StockLocks getStockLocks() {
+        return stockLocks;
     }
-} 
\ No newline at end of file
+}
@@ -25,12 +25,12 @@ public class Register implements Serializable {
         this.registerNumber = registerNumber;
     }
 
-    public void addReceipt(Receipt receipt) {
+    public synchronized void addReceipt(Receipt receipt) {
         dailyReceipts.add(receipt);
         cashAmount += receipt.getTotalAmount();
     }
 
-    public double getDailyTotal() {
+    public synchronized double getDailyTotal() {
         return dailyReceipts.stream()
                 .mapToDouble(Receipt::getTotalAmount)
                 .sum();
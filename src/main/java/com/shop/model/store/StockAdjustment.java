@@ -0,0 +1,27 @@
+package com.shop.model.store;
+
+public class StockAdjustment {
+    private final int productId;
+    private final int quantityChange;
+
+    public StockAdjustment(int productId, int quantityChange) {
+        this.productId = productId;
+        this.quantityChange = quantityChange;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getQuantityChange() {
+        return quantityChange;
+    }
+
+    @Override
+    public String toString() {
+        return "StockAdjustment{" +
+                "productId=" + productId +
+                ", quantityChange=" + quantityChange +
+                '}';
+    }
+}
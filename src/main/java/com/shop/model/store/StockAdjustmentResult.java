@@ -0,0 +1,46 @@
+package com.shop.model.store;
+
+import com.shop.enums.AdjustmentStatus;
+
+public class StockAdjustmentResult {
+    private final StockAdjustment adjustment;
+    private final AdjustmentStatus status;
+    private final int quantityAfter;
+
+    public StockAdjustmentResult(StockAdjustment adjustment, AdjustmentStatus status, int quantityAfter) {
+        this.adjustment = adjustment;
+        this.status = status;
+        this.quantityAfter = quantityAfter;
+    }
+
+    public StockAdjustment getAdjustment() {
+        return adjustment;
+    }
+
+    public int getProductId() {
+        return adjustment.getProductId();
+    }
+
+    public AdjustmentStatus getStatus() {
+        return status;
+    }
+
+    public boolean isApplied() {
+        return status == AdjustmentStatus.APPLIED;
+    }
+
+    // Quantity on hand after this line, or the unchanged quantity when the line was rejected
+    public int getQuantityAfter() {
+        return quantityAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "StockAdjustmentResult{" +
+                "productId=" + adjustment.getProductId() +
+                ", quantityChange=" + adjustment.getQuantityChange() +
+                ", status=" + status +
+                ", quantityAfter=" + quantityAfter +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package com.shop.model.store;
+
+import com.shop.model.product.Product;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A fixed set of lock stripes shared by product id. Stripes are never created or dropped per product, so
+// every thread asking for an id gets the same lock no matter when the product is added or removed
+public class StockLocks implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_STRIPES = 1024;
+
+    private final ReentrantLock[] stripes;
+
+    public StockLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public StockLocks(int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a positive power of two");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(int productId) {
+        return stripes[stripeOf(productId)];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    public List<ReentrantLock> lockAll(Collection<Product> products) {
+        return lockAll(products.stream().mapToInt(Product::getId).toArray());
+    }
+
+    // Stripes are always taken in ascending order so two baskets can never deadlock
+    public List<ReentrantLock> lockAll(int[] productIds) {
+        int[] stripeIndexes = new int[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            stripeIndexes[i] = stripeOf(productIds[i]);
+        }
+        int[] ordered = Arrays.stream(stripeIndexes).distinct().sorted().toArray();
+
+        List<ReentrantLock> acquired = new ArrayList<>(ordered.length);
+        for (int stripe : ordered) {
+            ReentrantLock lock = stripes[stripe];
+            lock.lock();
+            acquired.add(lock);
+        }
+        return acquired;
+    }
+
+    public void unlockAll(List<ReentrantLock> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).unlock();
+        }
+    }
+
+    // Spreads consecutive ids, which are the common case, across the stripes
+    private int stripeOf(int productId) {
+        int hash = productId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+}
@@ -1,36 +1,94 @@
 package com.shop.model.store;
 
+import com.shop.enums.JournalEventType;
+import com.shop.enums.PaymentMethod;
+import com.shop.enums.ProductCategory;
+import com.shop.enums.SyncStatus;
 import com.shop.exceptions.ExpiredProductException;
 import com.shop.exceptions.InsufficientQuantityException;
 import com.shop.model.person.Cashier;
 import com.shop.model.person.Employee;
+import com.shop.model.product.ExpirationTimeline;
+import com.shop.model.product.PriceQuote;
 import com.shop.model.product.Product;
+import com.shop.model.product.ProductLookup;
+import com.shop.model.sales.BestSellers;
+import com.shop.model.sales.OfflineSale;
 import com.shop.model.sales.Receipt;
-
+import com.shop.model.sales.Sale;
+import com.shop.model.sales.SalesFactTable;
+import com.shop.model.sales.SaleSyncResult;
+import com.shop.model.sales.SalesRollup;
+import com.shop.persistence.Journal;
+import com.shop.persistence.JournalEvents;
+import com.shop.utils.BusinessClock;
+
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 public class Store implements Serializable {
     private String name;
+    // The checkpoint read lock admits concurrent writers, so staff changes rely on the list's own locking
     private List<Employee> employees;
     private Inventory inventory;
+    // Removed products stay resolvable by id for the receipts that sold them
+    private final Map<Integer, Product> retiredProducts;
+    private final ProductLookup productLookup;
     private Map<Integer, Register> registers;
     private List<Receipt> receipts;
-    private double foodMarkupPercentage;
-    private double nonFoodMarkupPercentage;
-    private int daysBeforeExpirationForDiscount;
-    private double discountPercentage;
-    private int nextReceiptNumber;
+    // Receipts of offline uploads by idempotency key, journaled with the sale so retries stay duplicates after a restart
+    private final Map<String, Receipt> syncedReceipts;
+    private final SalesRollup salesRollup;
+    private final SalesFactTable salesFacts;
+    private final BestSellers bestSellers;
+    private final ExpirationTimeline expirationTimeline;
+    private final DoubleAdder totalIncome;
+    private final DoubleAdder totalMonthlySalaries;
+    private transient Journal journal;
+    private volatile double foodMarkupPercentage;
+    private volatile double nonFoodMarkupPercentage;
+    private volatile int daysBeforeExpirationForDiscount;
+    private volatile double discountPercentage;
+    // Serializes pricing changes so the journal records them in the order they were made
+    private final Object pricingLock = new Object();
+    private final AtomicInteger nextReceiptNumber;
+    // Cached selling prices are keyed on the business day plus this version, bumped by every pricing setting
+    private final AtomicInteger pricingVersion;
+    // Journaled changes share the read side; snapshots take the write side to see a consistent state
+    private final ReentrantReadWriteLock checkpointLock;
 
     public Store() {
-        this.employees = new ArrayList<>();
+        this.employees = new CopyOnWriteArrayList<>();
         this.inventory = new Inventory();
+        this.retiredProducts = new ConcurrentHashMap<>();
+        this.productLookup = this::findProductForReceipt;
         this.registers = new HashMap<>();
-        this.receipts = new ArrayList<>();
-        this.nextReceiptNumber = 1;
+        this.receipts = Collections.synchronizedList(new ArrayList<>());
+        this.syncedReceipts = new ConcurrentHashMap<>();
+        this.salesRollup = new SalesRollup();
+        this.salesFacts = new SalesFactTable();
+        this.bestSellers = new BestSellers();
+        this.expirationTimeline = new ExpirationTimeline(0);
+        this.totalIncome = new DoubleAdder();
+        this.totalMonthlySalaries = new DoubleAdder();
+        this.nextReceiptNumber = new AtomicInteger(1);
+        this.checkpointLock = new ReentrantReadWriteLock();
+        this.pricingVersion = new AtomicInteger();
         initializeRegisters(5);
     }
 
@@ -42,6 +100,7 @@ public class Store implements Serializable {
         this.nonFoodMarkupPercentage = nonFoodMarkupPercentage;
         this.daysBeforeExpirationForDiscount = daysBeforeExpirationForDiscount;
         this.discountPercentage = discountPercentage;
+        expirationTimeline.setDiscountWindowDays(daysBeforeExpirationForDiscount);
     }
 
     private void initializeRegisters(int count) {
@@ -51,11 +110,119 @@ public class Store implements Serializable {
     }
 
     public void addProduct(Product product) {
-        inventory.addProduct(product);
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            inventory.addProduct(product);
+            expirationTimeline.track(product);
+            journal(JournalEventType.PRODUCT_ADDED, () -> JournalEvents.productAdded(product));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Adds a batch of products under a single acquisition of the checkpoint lock
+    public void addProducts(Collection<Product> products) {
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            for (Product product : products) {
+                inventory.addProduct(product);
+                journal(JournalEventType.PRODUCT_ADDED, () -> JournalEvents.productAdded(product));
+            }
+            expirationTimeline.trackAll(products);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Product removeProduct(int productId) {
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            Product removed = inventory.removeProduct(productId);
+            if (removed != null) {
+                retiredProducts.put(productId, removed);
+                expirationTimeline.untrack(productId);
+                journal(JournalEventType.PRODUCT_REMOVED, () -> JournalEvents.productRemoved(productId));
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void updateProductQuantity(int productId, int quantity) throws InsufficientQuantityException {
-        inventory.updateQuantity(productId, quantity);
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            inventory.updateQuantity(productId, quantity);
+            journal(JournalEventType.STOCK_ADJUSTED, () -> JournalEvents.stockAdjusted(productId, quantity));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<StockAdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) {
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            List<StockAdjustmentResult> results = inventory.adjustQuantities(adjustments);
+            // The whole batch is one journal record holding the net change per product
+            Map<Integer, Integer> netChanges = new LinkedHashMap<>();
+            for (StockAdjustmentResult result : results) {
+                if (result.isApplied()) {
+                    netChanges.merge(result.getProductId(), result.getAdjustment().getQuantityChange(), Integer::sum);
+                }
+            }
+            netChanges.values().removeIf(change -> change == 0);
+            if (!netChanges.isEmpty()) {
+                journal(JournalEventType.STOCK_BATCH_ADJUSTED, () -> JournalEvents.stockBatchAdjusted(netChanges));
+            }
+            return results;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Applies a stock change that was already journaled, e.g. while replaying it
+    public void restoreStock(int productId, int quantityChange) {
+        inventory.restoreQuantity(productId, quantityChange);
+    }
+
+    public List<Product> getProductsBelowQuantity(int quantityThreshold) {
+        return inventory.getProductsBelowQuantity(quantityThreshold);
+    }
+
+    public void recalculateInventoryValue() {
+        inventory.recalculateInventoryValue();
+    }
+
+    public void reserveStock(Map<Product, Integer> items)
+            throws InsufficientQuantityException, ExpiredProductException {
+        inventory.reserveStock(items);
+    }
+
+    public void reserveStock(Map<Product, Integer> items, long epochDay)
+            throws InsufficientQuantityException, ExpiredProductException {
+        inventory.reserveStock(items, epochDay);
+    }
+
+    public ProductLookup getProductLookup() {
+        return productLookup;
+    }
+
+    private Product findProductForReceipt(int productId) {
+        Product product = inventory.getProductById(productId);
+        return product != null ? product : retiredProducts.get(productId);
+    }
+
+    public Collection<Product> getRetiredProducts() {
+        return Collections.unmodifiableCollection(retiredProducts.values());
+    }
+
+    public void retireProduct(Product product) {
+        retiredProducts.put(product.getId(), product);
     }
 
     public Product getProductById(int productId) {
@@ -68,6 +235,7 @@ public class Store implements Serializable {
 
     public void setInventory(Map<Integer, Product> products) {
         inventory.setProducts(products);
+        expirationTimeline.rebuild(products.values());
     }
 
     public Register getRegister(int registerNumber) {
@@ -76,17 +244,61 @@ public class Store implements Serializable {
 
     public void assignCashierToRegister(Cashier cashier, int registerNumber) {
         Register register = registers.get(registerNumber);
-        if (register != null) {
+        if (register == null) {
+            return;
+        }
+
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
             register.setCurrentCashier(cashier);
+            journal(JournalEventType.CASHIER_ASSIGNED,
+                    () -> JournalEvents.cashierAssigned(cashier.getId(), registerNumber));
+        } finally {
+            lock.unlock();
         }
     }
 
     public void addEmployee(Employee employee) {
-        employees.add(employee);
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            employees.add(employee);
+            totalMonthlySalaries.add(employee.getMonthlySalary());
+            journal(JournalEventType.EMPLOYEE_ADDED, () -> JournalEvents.employeeAdded(employee));
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void removeEmployee(int employeeId) {
-        employees.removeIf(employee -> employee.getId() == employeeId);
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            boolean removed = employees.removeIf(employee -> {
+                if (employee.getId() == employeeId) {
+                    totalMonthlySalaries.add(-employee.getMonthlySalary());
+                    return true;
+                }
+                return false;
+            });
+            if (removed) {
+                journal(JournalEventType.EMPLOYEE_REMOVED, () -> JournalEvents.employeeRemoved(employeeId));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordSalaryChange(int employeeId, double previousSalary, double newSalary) {
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            totalMonthlySalaries.add(newSalary - previousSalary);
+            journal(JournalEventType.SALARY_CHANGED, () -> JournalEvents.salaryChanged(employeeId, newSalary));
+        } finally {
+            lock.unlock();
+        }
     }
 
     public Employee getEmployeeById(int employeeId) {
@@ -100,42 +312,171 @@ public class Store implements Serializable {
 
     public Receipt processSale(Map<Product, Integer> items, Cashier cashier)
             throws InsufficientQuantityException, ExpiredProductException {
+        return processSale(items, cashier, 0, null);
+    }
+
+    // Journals the sale id and payment method with the receipt, so the sale can be rebuilt after a restart
+    public Receipt processSale(Sale sale, PaymentMethod paymentMethod)
+            throws InsufficientQuantityException, ExpiredProductException {
+        return processSale(sale.getItems(), sale.getCashier(), sale.getSaleId(), paymentMethod);
+    }
+
+    private Receipt processSale(Map<Product, Integer> items, Cashier cashier, int saleId, PaymentMethod paymentMethod)
+            throws InsufficientQuantityException, ExpiredProductException {
+
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            Receipt receipt = cashier.createReceipt(items, this);
+            receipt.setReceiptNumber(nextReceiptNumber.getAndIncrement());
+            receipt.setSaleId(saleId);
+            receipt.setPaymentMethod(paymentMethod);
+            receipts.add(receipt);
+            salesRollup.record(receipt);
+            salesFacts.append(receipt);
+            bestSellers.record(receipt);
+            totalIncome.add(receipt.getTotalAmount());
+            journal(JournalEventType.SALE_COMPLETED, () -> JournalEvents.saleCompleted(receipt, null));
+
+            return receipt;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        Receipt receipt = cashier.createReceipt(items, this);
-        receipt.setReceiptNumber(nextReceiptNumber++);
+    // Completes a batch under one acquisition of the checkpoint lock. A sale whose stock cannot be taken is
+    // rejected on its own; the others are numbered from one block and recorded together, stamped with the
+    // time the register rang them up
+    public List<SaleSyncResult> processSales(List<OfflineSale> sales) {
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            List<SaleSyncResult> results = new ArrayList<>(sales.size());
+            List<Receipt> created = new ArrayList<>(sales.size());
+            List<String> createdKeys = new ArrayList<>(sales.size());
+            for (OfflineSale offlineSale : sales) {
+                String key = offlineSale.getIdempotencyKey();
+                try {
+                    // Priced and checked for expiry on the day the register rang it up, not the day it arrived
+                    Receipt receipt = offlineSale.getSale().getCashier().createReceipt(offlineSale.getSale().getItems(),
+                            this, offlineSale.getClientTimestamp());
+                    receipt.setSaleId(offlineSale.getSale().getSaleId());
+                    receipt.setPaymentMethod(offlineSale.getPaymentMethod());
+                    created.add(receipt);
+                    createdKeys.add(key);
+                    results.add(SaleSyncResult.completed(key, receipt));
+                } catch (InsufficientQuantityException e) {
+                    results.add(SaleSyncResult.rejected(key, SyncStatus.INSUFFICIENT_QUANTITY, e.getMessage()));
+                } catch (ExpiredProductException e) {
+                    results.add(SaleSyncResult.rejected(key, SyncStatus.EXPIRED_PRODUCT, e.getMessage()));
+                }
+            }
+
+            int receiptNumber = nextReceiptNumber.getAndAdd(created.size());
+            double income = 0;
+            for (int i = 0; i < created.size(); i++) {
+                Receipt receipt = created.get(i);
+                String key = createdKeys.get(i);
+                receipt.setReceiptNumber(receiptNumber++);
+                salesRollup.record(receipt);
+                salesFacts.append(receipt);
+                bestSellers.record(receipt);
+                syncedReceipts.put(key, receipt);
+                income += receipt.getTotalAmount();
+                journal(JournalEventType.SALE_COMPLETED, () -> JournalEvents.saleCompleted(receipt, key));
+            }
+            receipts.addAll(created);
+            totalIncome.add(income);
+
+            return results;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Adds a receipt whose stock was already taken, e.g. while replaying the journal; the key is null for register sales
+    public void restoreReceipt(Receipt receipt, String syncKey) {
         receipts.add(receipt);
+        if (syncKey != null) {
+            syncedReceipts.put(syncKey, receipt);
+        }
+        salesRollup.record(receipt);
+        salesFacts.append(receipt);
+        bestSellers.record(receipt);
+        totalIncome.add(receipt.getTotalAmount());
+        nextReceiptNumber.accumulateAndGet(receipt.getReceiptNumber() + 1, Math::max);
+    }
 
-        return receipt;
+    // The receipt issued for an offline sale uploaded with this key, or null if no such sale was completed
+    public Receipt findSyncedReceipt(String idempotencyKey) {
+        return syncedReceipts.get(idempotencyKey);
     }
 
-    public double calculateExpenses() {
-        double totalExpenses = 0;
+    public Map<String, Receipt> getSyncedReceipts() {
+        return Collections.unmodifiableMap(syncedReceipts);
+    }
 
-        for (Employee employee : employees) {
-            totalExpenses += employee.getMonthlySalary();
+    public void setSyncedReceipts(Map<String, Receipt> receiptsByKey) {
+        syncedReceipts.clear();
+        syncedReceipts.putAll(receiptsByKey);
+    }
+
+    public void syncJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.syncAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Runs the action while no journaled change is in flight, so the state matches the journal's last sequence
+    public <T> T withChangesPaused(Supplier<T> action) {
+        Lock lock = checkpointLock.writeLock();
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
         }
+    }
 
-        for (Product product : inventory.getProducts().values()) {
-            totalExpenses += product.getPurchasePrice() * product.getQuantity();
+    private void journal(JournalEventType type, Supplier<byte[]> payload) {
+        if (journal != null) {
+            journal.append(type, payload.get());
         }
+    }
 
-        return totalExpenses;
+    public double calculateExpenses() {
+        return getTotalMonthlySalaries() + getInventoryValue();
     }
 
     public double calculateIncome() {
-        double totalIncome = 0;
+        return totalIncome.sum();
+    }
 
-        for (Receipt receipt : receipts) {
-            totalIncome += receipt.getTotalAmount();
-        }
+    public double getInventoryValue() {
+        return inventory.getInventoryValue();
+    }
 
-        return totalIncome;
+    public double getTotalMonthlySalaries() {
+        return totalMonthlySalaries.sum();
     }
 
     public double calculateProfit() {
         return calculateIncome() - calculateExpenses();
     }
 
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
     public String getName() {
         return name;
     }
@@ -149,7 +490,11 @@ public class Store implements Serializable {
     }
 
     public void setEmployees(List<Employee> employees) {
-        this.employees = employees;
+        this.employees = new CopyOnWriteArrayList<>(employees);
+        totalMonthlySalaries.reset();
+        for (Employee employee : employees) {
+            totalMonthlySalaries.add(employee.getMonthlySalary());
+        }
     }
 
     public List<Receipt> getReceipts() {
@@ -157,7 +502,60 @@ public class Store implements Serializable {
     }
 
     public void setReceipts(List<Receipt> receipts) {
-        this.receipts = receipts;
+        this.receipts = Collections.synchronizedList(receipts);
+        salesRollup.rebuild(receipts);
+        salesFacts.rebuild(receipts);
+        bestSellers.rebuild(receipts);
+        totalIncome.reset();
+        for (Receipt receipt : receipts) {
+            totalIncome.add(receipt.getTotalAmount());
+        }
+    }
+
+    public SalesRollup getSalesRollup() {
+        return salesRollup;
+    }
+
+    public SalesFactTable getSalesFacts() {
+        return salesFacts;
+    }
+
+    public BestSellers getBestSellers() {
+        return bestSellers;
+    }
+
+    public ExpirationTimeline getExpirationTimeline() {
+        return expirationTimeline;
+    }
+
+    public double getSellingPrice(Product product) {
+        return getPriceQuote(product).getPrice();
+    }
+
+    public PriceQuote getPriceQuote(Product product) {
+        long stamp = getPricingStamp();
+        double markupPercentage = product.getCategory() == ProductCategory.FOOD ?
+                foodMarkupPercentage : nonFoodMarkupPercentage;
+        return product.getPriceQuote(stamp, daysBeforeExpirationForDiscount, discountPercentage, markupPercentage);
+    }
+
+    // Today's quotes come from the product's cache, any other day is priced afresh
+    public PriceQuote getPriceQuote(Product product, long epochDay) {
+        if (epochDay == BusinessClock.get().epochDay()) {
+            return getPriceQuote(product);
+        }
+        double markupPercentage = product.getCategory() == ProductCategory.FOOD ?
+                foodMarkupPercentage : nonFoodMarkupPercentage;
+        return product.getPriceQuoteOn(epochDay, daysBeforeExpirationForDiscount, discountPercentage, markupPercentage);
+    }
+
+    // High half is the business day and low half the settings version, so a real stamp is never zero
+    public long getPricingStamp() {
+        return (BusinessClock.get().epochDay() << 32) | (pricingVersion.get() & 0xFFFFFFFFL);
+    }
+
+    private void invalidatePrices() {
+        pricingVersion.incrementAndGet();
     }
 
     public double getFoodMarkupPercentage() {
@@ -165,7 +563,7 @@ public class Store implements Serializable {
     }
 
     public void setFoodMarkupPercentage(double foodMarkupPercentage) {
-        this.foodMarkupPercentage = foodMarkupPercentage;
+        changePricing(() -> this.foodMarkupPercentage = foodMarkupPercentage);
     }
 
     public double getNonFoodMarkupPercentage() {
@@ -173,7 +571,7 @@ public class Store implements Serializable {
     }
 
     public void setNonFoodMarkupPercentage(double nonFoodMarkupPercentage) {
-        this.nonFoodMarkupPercentage = nonFoodMarkupPercentage;
+        changePricing(() -> this.nonFoodMarkupPercentage = nonFoodMarkupPercentage);
     }
 
     public int getDaysBeforeExpirationForDiscount() {
@@ -181,7 +579,10 @@ public class Store implements Serializable {
     }
 
     public void setDaysBeforeExpirationForDiscount(int daysBeforeExpirationForDiscount) {
-        this.daysBeforeExpirationForDiscount = daysBeforeExpirationForDiscount;
+        changePricing(() -> {
+            this.daysBeforeExpirationForDiscount = daysBeforeExpirationForDiscount;
+            expirationTimeline.setDiscountWindowDays(daysBeforeExpirationForDiscount);
+        });
     }
 
     public double getDiscountPercentage() {
@@ -189,14 +590,30 @@ public class Store implements Serializable {
     }
 
     public void setDiscountPercentage(double discountPercentage) {
-        this.discountPercentage = discountPercentage;
+        changePricing(() -> this.discountPercentage = discountPercentage);
+    }
+
+    // Every change journals the full set of pricing settings, so replay only needs the latest record
+    private void changePricing(Runnable change) {
+        Lock lock = checkpointLock.readLock();
+        lock.lock();
+        try {
+            synchronized (pricingLock) {
+                change.run();
+                invalidatePrices();
+                journal(JournalEventType.PRICING_CHANGED, () -> JournalEvents.pricingChanged(foodMarkupPercentage,
+                        nonFoodMarkupPercentage, daysBeforeExpirationForDiscount, discountPercentage));
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public int getNextReceiptNumber() {
-        return nextReceiptNumber;
+        return nextReceiptNumber.get();
     }
 
     public void setNextReceiptNumber(int nextReceiptNumber) {
-        this.nextReceiptNumber = nextReceiptNumber;
+        this.nextReceiptNumber.set(nextReceiptNumber);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.shop.persistence;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+public class CatalogImportResult {
+
+    private final int importedCount;
+    private final List<RejectedRow> rejectedRows;
+    private final long elapsedNanos;
+
+    public CatalogImportResult(int importedCount, List<RejectedRow> rejectedRows, long elapsedNanos) {
+        this.importedCount = importedCount;
+        this.rejectedRows = Collections.unmodifiableList(rejectedRows);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedRows.size();
+    }
+
+    public List<RejectedRow> getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        long rows = (long) importedCount + rejectedRows.size();
+        return elapsedNanos > 0 ? rows * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+
+    // One line per rejected row: line number, reason and the original text, tab separated
+    public void writeRejectedRows(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (RejectedRow row : rejectedRows) {
+                writer.write(row.getLineNumber() + "\t" + row.getReason() + "\t" + row.getLine());
+                writer.newLine();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogImportResult{" +
+                "imported=" + importedCount +
+                ", rejected=" + rejectedRows.size() +
+                ", rowsPerSecond=" + Math.round(getRowsPerSecond()) +
+                '}';
+    }
+
+    public static class RejectedRow {
+        private final long lineNumber;
+        private final String line;
+        private final String reason;
+
+        public RejectedRow(long lineNumber, String line, String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + ": " + reason;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.shop.persistence;
+
+import com.shop.enums.ProductCategory;
+import com.shop.model.product.Product;
+import com.shop.model.product.ProductFactory;
+import com.shop.model.store.Store;
+import com.shop.persistence.CatalogImportResult.RejectedRow;
+import com.shop.repository.ProductRepository;
+import com.shop.utils.BusinessClock;
+import com.shop.utils.ValidationUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Streams a supplier catalog into the store. The file is read line by line on the calling thread and
+ * handed out in chunks that are parsed and validated in parallel; finished chunks are committed in file
+ * order, each with one block of product ids, one pass over the store and one repository batch.
+ * Rows are {@code category, name, purchase price, expiration date, quantity} separated by commas,
+ * semicolons, tabs or pipes; names may be double-quoted. Invalid rows are collected with their line
+ * number instead of stopping the import, so a failure part way through keeps the chunks already committed.
+ */
+public class CatalogImporter {
+
+    public static final int DEFAULT_CHUNK_ROWS = 8192;
+
+    private static final int COLUMNS = 5;
+    private static final char[] DELIMITERS = {',', ';', '\t', '|'};
+
+    private final Store store;
+    private final ProductRepository productRepository;
+    private int chunkRows = DEFAULT_CHUNK_ROWS;
+    private Executor executor = ForkJoinPool.commonPool();
+    private int maxChunksInFlight = 2 * Runtime.getRuntime().availableProcessors();
+
+    public CatalogImporter(Store store, ProductRepository productRepository) {
+        this.store = store;
+        this.productRepository = productRepository;
+    }
+
+    public void setChunkRows(int chunkRows) {
+        ValidationUtils.validatePositive(chunkRows, "Chunk size must be positive");
+        this.chunkRows = chunkRows;
+    }
+
+    public void setExecutor(Executor executor, int maxChunksInFlight) {
+        ValidationUtils.validateNotNull(executor, "Executor cannot be null");
+        ValidationUtils.validatePositive(maxChunksInFlight, "Chunks in flight must be positive");
+        this.executor = executor;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    public CatalogImportResult importFile(Path file) throws IOException {
+        long started = System.nanoTime();
+        ImportProgress progress = new ImportProgress();
+        ArrayDeque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            char delimiter = ',';
+            String[] lines = new String[chunkRows];
+            int count = 0;
+            long firstLineNumber = 1;
+            long lineNumber = 0;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1) {
+                    delimiter = detectDelimiter(line);
+                    if (isHeader(line, delimiter)) {
+                        firstLineNumber = 2;
+                        continue;
+                    }
+                }
+                lines[count++] = line;
+
+                if (count == chunkRows) {
+                    submit(inFlight, progress, lines, count, firstLineNumber, delimiter);
+                    lines = new String[chunkRows];
+                    count = 0;
+                    firstLineNumber = lineNumber + 1;
+                }
+            }
+            if (count > 0) {
+                submit(inFlight, progress, lines, count, firstLineNumber, delimiter);
+            }
+            while (!inFlight.isEmpty()) {
+                commit(await(inFlight.poll()), progress);
+            }
+        } finally {
+            for (Future<ParsedChunk> pending : inFlight) {
+                pending.cancel(false);
+            }
+        }
+
+        return new CatalogImportResult(progress.imported, progress.rejected, System.nanoTime() - started);
+    }
+
+    private void submit(ArrayDeque<Future<ParsedChunk>> inFlight, ImportProgress progress, String[] lines,
+                        int count, long firstLineNumber, char delimiter) throws IOException {
+        long today = BusinessClock.get().epochDay();
+        inFlight.add(CompletableFuture.supplyAsync(() -> parse(lines, count, firstLineNumber, delimiter, today), executor));
+        // Bounds memory to a few chunks ahead of the commit
+        while (inFlight.size() >= maxChunksInFlight) {
+            commit(await(inFlight.poll()), progress);
+        }
+    }
+
+    private void commit(ParsedChunk chunk, ImportProgress progress) {
+        List<Product> products = chunk.products;
+        if (!products.isEmpty()) {
+            int firstId = ProductFactory.allocateIds(products.size());
+            for (int i = 0; i < products.size(); i++) {
+                products.get(i).setId(firstId + i);
+            }
+            store.addProducts(products);
+            productRepository.saveAll(products);
+        }
+        progress.imported += products.size();
+        progress.rejected.addAll(chunk.rejected);
+    }
+
+    private static ParsedChunk await(Future<ParsedChunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Catalog import interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Catalog chunk failed to parse", cause);
+        }
+    }
+
+    static ParsedChunk parse(String[] lines, int count, long firstLineNumber, char delimiter, long today) {
+        ParsedChunk chunk = new ParsedChunk(count);
+        for (int i = 0; i < count; i++) {
+            String line = lines[i];
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.products.add(parseRow(line, delimiter, today));
+            } catch (NumberFormatException e) {
+                chunk.rejected.add(new RejectedRow(firstLineNumber + i, line, "Invalid number: " + e.getMessage()));
+            } catch (IllegalArgumentException | DateTimeException e) {
+                chunk.rejected.add(new RejectedRow(firstLineNumber + i, line, e.getMessage()));
+            }
+        }
+        return chunk;
+    }
+
+    static Product parseRow(String line, char delimiter, long today) {
+        String[] fields = split(line, delimiter);
+
+        ProductCategory category = parseCategory(fields[0]);
+        String name = fields[1].trim();
+        ValidationUtils.validateNotEmpty(name, "Product name cannot be empty");
+        double purchasePrice = Double.parseDouble(fields[2].trim());
+        if (!Double.isFinite(purchasePrice)) {
+            throw new IllegalArgumentException("Purchase price must be a number");
+        }
+        ValidationUtils.validatePositive(purchasePrice, "Purchase price must be positive");
+        LocalDate expirationDate = parseDate(fields[3].trim());
+        int quantity = Integer.parseInt(fields[4].trim());
+        ValidationUtils.validatePositiveOrZero(quantity, "Quantity cannot be negative");
+
+        if (expirationDate.toEpochDay() < today) {
+            throw new IllegalArgumentException("Cannot add expired product");
+        }
+
+        // The id is assigned when the chunk is committed
+        return ProductFactory.createProductWithId(0, category, name, purchasePrice, expirationDate, quantity);
+    }
+
+    static String[] split(String line, char delimiter) {
+        String[] fields = new String[COLUMNS];
+        int count = 0;
+        int length = line.length();
+        int i = 0;
+
+        while (true) {
+            if (count == COLUMNS) {
+                throw new IllegalArgumentException("Expected " + COLUMNS + " columns but found more");
+            }
+            if (i < length && line.charAt(i) == '"') {
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < length && line.charAt(i) != delimiter) {
+                    throw new IllegalArgumentException("Unexpected text after quoted field");
+                }
+                fields[count++] = field.toString();
+            } else {
+                int end = line.indexOf(delimiter, i);
+                if (end < 0) {
+                    end = length;
+                }
+                fields[count++] = line.substring(i, end);
+                i = end;
+            }
+
+            if (i >= length) {
+                break;
+            }
+            i++;
+        }
+
+        if (count != COLUMNS) {
+            throw new IllegalArgumentException("Expected " + COLUMNS + " columns but found " + count);
+        }
+        return fields;
+    }
+
+    private static ProductCategory parseCategory(String field) {
+        String value = field.trim().toUpperCase(Locale.ROOT).replace('-', '_').replace(' ', '_');
+        return switch (value) {
+            case "FOOD" -> ProductCategory.FOOD;
+            case "NON_FOOD", "NONFOOD" -> ProductCategory.NON_FOOD;
+            default -> throw new IllegalArgumentException("Unknown category: " + field.trim());
+        };
+    }
+
+    // ISO dates are read straight from the characters; anything else goes through the full parser
+    private static LocalDate parseDate(String value) {
+        if (value.length() == 10 && value.charAt(4) == '-' && value.charAt(7) == '-') {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 7);
+            int day = digits(value, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(value);
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    static char detectDelimiter(String firstLine) {
+        char best = DELIMITERS[0];
+        int bestCount = 0;
+        for (char delimiter : DELIMITERS) {
+            int occurrences = 0;
+            for (int i = 0; i < firstLine.length(); i++) {
+                if (firstLine.charAt(i) == delimiter) {
+                    occurrences++;
+                }
+            }
+            if (occurrences > bestCount) {
+                best = delimiter;
+                bestCount = occurrences;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isHeader(String line, char delimiter) {
+        int end = line.indexOf(delimiter);
+        String first = (end < 0 ? line : line.substring(0, end)).trim();
+        return first.equalsIgnoreCase("category") || first.equalsIgnoreCase("\"category\"");
+    }
+
+    static class ParsedChunk {
+        private final List<Product> products;
+        private final List<RejectedRow> rejected = new ArrayList<>();
+
+        private ParsedChunk(int expectedRows) {
+            this.products = new ArrayList<>(expectedRows);
+        }
+    }
+
+    private static class ImportProgress {
+        private int imported;
+        private final List<RejectedRow> rejected = new ArrayList<>();
+    }
+}
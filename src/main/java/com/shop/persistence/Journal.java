@@ -0,0 +1,386 @@
+package com.shop.persistence;
+
+import com.shop.enums.JournalEventType;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log split into segment files named after the first sequence they hold.
+ * Each record is [payload length][sequence][event type][payload][crc32].
+ * Appends only copy into a memory buffer; a single flusher thread writes and forces the buffer,
+ * so every caller waiting in {@link #sync(long)} during one fsync shares it (group commit).
+ */
+public class Journal implements Closeable {
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Byte.BYTES;
+    private static final int TRAILER_BYTES = Integer.BYTES;
+    private static final int MAX_PAYLOAD_BYTES = 64 * 1024 * 1024;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final int DEFAULT_BUFFER_BYTES = 1024 * 1024;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final JournalEventType[] EVENT_TYPES = JournalEventType.values();
+
+    public interface RecordHandler {
+        void handle(JournalRecord record) throws IOException;
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition flushCompleted = lock.newCondition();
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+
+    private FileChannel channel;
+    private ByteBuffer activeBuffer;
+    private ByteBuffer flushBuffer;
+    private long nextSequence;
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean syncRequested;
+    private boolean closed;
+    private IOException failure;
+
+    public Journal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_BUFFER_BYTES);
+    }
+
+    public Journal(Path directory, long segmentBytes, int bufferBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+
+        long lastSequence = openLastSegment();
+        this.nextSequence = lastSequence + 1;
+        this.appendedSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        this.activeBuffer = ByteBuffer.allocate(bufferBytes);
+        this.flushBuffer = ByteBuffer.allocate(bufferBytes);
+
+        this.flusher = new Thread(this::runFlusher, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public long append(JournalEventType type, byte[] payload) {
+        int recordBytes = HEADER_BYTES + payload.length + TRAILER_BYTES;
+
+        lock.lock();
+        try {
+            ensureWritable();
+            while (activeBuffer.remaining() < recordBytes) {
+                if (activeBuffer.position() == 0) {
+                    activeBuffer = ByteBuffer.allocate(recordBytes);
+                    break;
+                }
+                // Buffer is full: wait for the flusher to swap it out
+                syncRequested = true;
+                flushRequested.signal();
+                flushCompleted.awaitUninterruptibly();
+                ensureWritable();
+            }
+
+            long sequence = nextSequence++;
+            int start = activeBuffer.position();
+            activeBuffer.putInt(payload.length);
+            activeBuffer.putLong(sequence);
+            activeBuffer.put((byte) type.ordinal());
+            activeBuffer.put(payload);
+
+            ByteBuffer checksummed = activeBuffer.duplicate();
+            checksummed.position(start + Integer.BYTES);
+            checksummed.limit(activeBuffer.position());
+            crc.reset();
+            crc.update(checksummed);
+            activeBuffer.putInt((int) crc.getValue());
+
+            appendedSequence = sequence;
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sync(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new IOException("Journal write failed", failure);
+                }
+                if (closed && !flusher.isAlive()) {
+                    throw new IOException("Journal is closed");
+                }
+                syncRequested = true;
+                flushRequested.signal();
+                flushCompleted.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void syncAll() throws IOException {
+        sync(getLastSequence());
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDurableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long replay(long afterSequence, RecordHandler handler) throws IOException {
+        long lastSequence = afterSequence;
+        List<Path> segments = listSegments();
+
+        for (int i = 0; i < segments.size(); i++) {
+            // Skip whole segments that end before the requested sequence
+            if (i + 1 < segments.size() && firstSequenceOf(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+
+            try (DataInputStream in = openSegment(segments.get(i))) {
+                JournalRecord record;
+                while ((record = readRecord(in)) != null) {
+                    if (record.getSequence() > afterSequence) {
+                        handler.handle(record);
+                        lastSequence = record.getSequence();
+                    }
+                }
+            }
+        }
+        return lastSequence;
+    }
+
+    // Removes segments whose records all have a sequence at or below the given one
+    public void deleteSegmentsThrough(long sequence) throws IOException {
+        List<Path> segments = listSegments();
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSequenceOf(segments.get(i + 1)) - 1 <= sequence) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushRequested.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+
+        if (failure != null) {
+            throw new IOException("Journal write failed", failure);
+        }
+    }
+
+    private void ensureWritable() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Journal write failed", failure);
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            ByteBuffer toWrite;
+            long target;
+
+            lock.lock();
+            try {
+                if (appendedSequence == durableSequence) {
+                    if (closed) {
+                        return;
+                    }
+                    flushRequested.awaitNanos(FLUSH_INTERVAL_NANOS);
+                    continue;
+                }
+                if (!syncRequested && !closed) {
+                    // Nobody is waiting yet, give other appenders a moment to join this write
+                    flushRequested.awaitNanos(FLUSH_INTERVAL_NANOS);
+                }
+
+                toWrite = activeBuffer;
+                activeBuffer = flushBuffer;
+                flushBuffer = null;
+                target = appendedSequence;
+                syncRequested = false;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                toWrite.flip();
+                while (toWrite.hasRemaining()) {
+                    channel.write(toWrite);
+                }
+                channel.force(false);
+                if (channel.size() >= segmentBytes) {
+                    rollSegment(target + 1);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                toWrite.clear();
+                flushBuffer = toWrite;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableSequence = target;
+                }
+                flushCompleted.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private long openLastSegment() throws IOException {
+        List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            channel = openForAppend(segmentPath(1), 0);
+            return 0;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        long lastSequence = firstSequenceOf(last) - 1;
+        long validBytes = 0;
+
+        try (DataInputStream in = openSegment(last)) {
+            JournalRecord record;
+            while ((record = readRecord(in)) != null) {
+                lastSequence = record.getSequence();
+                validBytes += HEADER_BYTES + record.getPayload().length + TRAILER_BYTES;
+            }
+        }
+
+        // Anything past the last valid record is a torn write from a crash
+        channel = openForAppend(last, validBytes);
+        return lastSequence;
+    }
+
+    private void rollSegment(long firstSequence) throws IOException {
+        channel.close();
+        channel = openForAppend(segmentPath(firstSequence), 0);
+    }
+
+    private static FileChannel openForAppend(Path path, long validBytes) throws IOException {
+        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        fileChannel.truncate(validBytes);
+        fileChannel.position(validBytes);
+        return fileChannel;
+    }
+
+    private JournalRecord readRecord(DataInputStream in) throws IOException {
+        try {
+            int payloadLength = in.readInt();
+            if (payloadLength < 0 || payloadLength > MAX_PAYLOAD_BYTES) {
+                return null;
+            }
+
+            long sequence = in.readLong();
+            int typeOrdinal = in.readUnsignedByte();
+            byte[] payload = new byte[payloadLength];
+            in.readFully(payload);
+            int storedCrc = in.readInt();
+
+            CRC32 recordCrc = new CRC32();
+            ByteBuffer header = ByteBuffer.allocate(Long.BYTES + Byte.BYTES);
+            header.putLong(sequence).put((byte) typeOrdinal).flip();
+            recordCrc.update(header);
+            recordCrc.update(payload);
+
+            if ((int) recordCrc.getValue() != storedCrc || typeOrdinal >= EVENT_TYPES.length) {
+                return null;
+            }
+            return new JournalRecord(sequence, EVENT_TYPES[typeOrdinal], payload);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static DataInputStream openSegment(Path segment) throws IOException {
+        InputStream in = Files.newInputStream(segment);
+        return new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
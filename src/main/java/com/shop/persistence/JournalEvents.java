@@ -0,0 +1,152 @@
+package com.shop.persistence;
+
+import com.shop.model.person.Cashier;
+import com.shop.model.person.Employee;
+import com.shop.model.person.Manager;
+import com.shop.model.product.Product;
+import com.shop.model.sales.Receipt;
+import com.shop.model.sales.ReceiptLines;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class JournalEvents {
+
+    @FunctionalInterface
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    public static byte[] productAdded(Product product) {
+        return encode(out -> writeProduct(out, product));
+    }
+
+    public static byte[] productRemoved(int productId) {
+        return encode(out -> out.writeInt(productId));
+    }
+
+    public static byte[] stockAdjusted(int productId, int quantityChange) {
+        return encode(out -> {
+            out.writeInt(productId);
+            out.writeInt(quantityChange);
+        });
+    }
+
+    public static byte[] stockBatchAdjusted(Map<Integer, Integer> netChanges) {
+        return encode(out -> {
+            out.writeInt(netChanges.size());
+            for (Map.Entry<Integer, Integer> entry : netChanges.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        });
+    }
+
+    // The idempotency key is only present for offline uploads
+    public static byte[] saleCompleted(Receipt receipt, String syncKey) {
+        return encode(out -> {
+            out.writeInt(receipt.getReceiptNumber());
+            out.writeInt(receipt.getCashier().getId());
+            writeDateTime(out, receipt.getDateTime());
+            out.writeDouble(receipt.getTotalAmount());
+            writeSale(out, receipt);
+
+            writeLines(out, receipt.getLines());
+            out.writeBoolean(syncKey != null);
+            if (syncKey != null) {
+                out.writeUTF(syncKey);
+            }
+        });
+    }
+
+    public static byte[] employeeAdded(Employee employee) {
+        return encode(out -> writeEmployee(out, employee));
+    }
+
+    public static byte[] employeeRemoved(int employeeId) {
+        return encode(out -> out.writeInt(employeeId));
+    }
+
+    public static byte[] salaryChanged(int employeeId, double newSalary) {
+        return encode(out -> {
+            out.writeInt(employeeId);
+            out.writeDouble(newSalary);
+        });
+    }
+
+    public static byte[] cashierAssigned(int cashierId, int registerNumber) {
+        return encode(out -> {
+            out.writeInt(cashierId);
+            out.writeInt(registerNumber);
+        });
+    }
+
+    public static byte[] pricingChanged(double foodMarkupPercentage, double nonFoodMarkupPercentage,
+                                        int daysBeforeExpirationForDiscount, double discountPercentage) {
+        return encode(out -> {
+            out.writeDouble(foodMarkupPercentage);
+            out.writeDouble(nonFoodMarkupPercentage);
+            out.writeInt(daysBeforeExpirationForDiscount);
+            out.writeDouble(discountPercentage);
+        });
+    }
+
+    static void writeProduct(DataOutputStream out, Product product) throws IOException {
+        out.writeInt(product.getId());
+        out.writeByte(product.getCategory().ordinal());
+        out.writeUTF(product.getName());
+        out.writeDouble(product.getPurchasePrice());
+        out.writeLong(product.getExpirationDate().toEpochDay());
+        out.writeInt(product.getQuantity());
+    }
+
+    static void writeEmployee(DataOutputStream out, Employee employee) throws IOException {
+        out.writeInt(employee.getId());
+        out.writeByte(employee.getPosition().ordinal());
+        out.writeUTF(employee.getName());
+        out.writeDouble(employee.getMonthlySalary());
+
+        if (employee instanceof Cashier cashier) {
+            out.writeInt(cashier.getRegisterNumber());
+        } else if (employee instanceof Manager manager) {
+            out.writeUTF(manager.getDepartment() != null ? manager.getDepartment() : "");
+        }
+    }
+
+    // The payment method is written as its ordinal, -1 when the receipt has no sale behind it
+    static void writeSale(DataOutputStream out, Receipt receipt) throws IOException {
+        out.writeInt(receipt.getSaleId());
+        out.writeByte(receipt.getPaymentMethod() != null ? receipt.getPaymentMethod().ordinal() : -1);
+    }
+
+    static void writeLines(DataOutputStream out, ReceiptLines lines) throws IOException {
+        out.writeInt(lines.size());
+        for (int line = 0; line < lines.size(); line++) {
+            out.writeInt(lines.getProductId(line));
+            out.writeInt(lines.getQuantity(line));
+            out.writeLong(lines.getUnitPriceCents(line));
+            out.writeLong(lines.getUnitCostCents(line));
+            out.writeInt(lines.getMarkupBasisPoints(line));
+            out.writeInt(lines.getDiscountBasisPoints(line));
+        }
+    }
+
+    static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toLocalDate().toEpochDay());
+        out.writeLong(dateTime.toLocalTime().toNanoOfDay());
+    }
+
+    private static byte[] encode(PayloadWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
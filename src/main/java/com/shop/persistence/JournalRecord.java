@@ -0,0 +1,34 @@
+package com.shop.persistence;
+
+import com.shop.enums.JournalEventType;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+
+public class JournalRecord {
+    private final long sequence;
+    private final JournalEventType type;
+    private final byte[] payload;
+
+    public JournalRecord(long sequence, JournalEventType type, byte[] payload) {
+        this.sequence = sequence;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public JournalEventType getType() {
+        return type;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public DataInputStream openPayload() {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+}
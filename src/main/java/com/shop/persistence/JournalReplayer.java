@@ -0,0 +1,187 @@
+package com.shop.persistence;
+
+import com.shop.enums.EmployeePosition;
+import com.shop.enums.PaymentMethod;
+import com.shop.enums.ProductCategory;
+import com.shop.model.person.Cashier;
+import com.shop.model.person.Employee;
+import com.shop.model.person.Manager;
+import com.shop.model.product.Product;
+import com.shop.model.product.ProductFactory;
+import com.shop.model.sales.Receipt;
+import com.shop.model.sales.ReceiptLines;
+import com.shop.model.store.Store;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Applies journal records to a Store that has no journal attached, so nothing is journaled twice.
+ * Stock is applied without validation: the journal already records what happened.
+ */
+public class JournalReplayer {
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+    private static final EmployeePosition[] POSITIONS = EmployeePosition.values();
+    private static final PaymentMethod[] PAYMENT_METHODS = PaymentMethod.values();
+
+    private final Store store;
+    private int maxProductId;
+    private int maxEmployeeId;
+    private int replayedRecords;
+
+    public JournalReplayer(Store store) {
+        if (store.getJournal() != null) {
+            throw new IllegalStateException("Detach the journal from the store before replaying");
+        }
+        this.store = store;
+    }
+
+    public long replay(Journal journal, long afterSequence) throws IOException {
+        long lastSequence = journal.replay(afterSequence, this::apply);
+        store.recalculateInventoryValue();
+        return lastSequence;
+    }
+
+    public void apply(JournalRecord record) throws IOException {
+        try (DataInputStream in = record.openPayload()) {
+            switch (record.getType()) {
+                case PRODUCT_ADDED -> {
+                    Product product = readProduct(in);
+                    maxProductId = Math.max(maxProductId, product.getId());
+                    store.addProduct(product);
+                }
+                case PRODUCT_REMOVED -> store.removeProduct(in.readInt());
+                case STOCK_ADJUSTED -> store.restoreStock(in.readInt(), in.readInt());
+                case STOCK_BATCH_ADJUSTED -> {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        store.restoreStock(in.readInt(), in.readInt());
+                    }
+                }
+                case SALE_COMPLETED -> {
+                    Receipt receipt = readSale(in);
+                    store.restoreReceipt(receipt, in.readBoolean() ? in.readUTF() : null);
+                }
+                case EMPLOYEE_ADDED -> {
+                    Employee employee = readEmployee(in);
+                    maxEmployeeId = Math.max(maxEmployeeId, employee.getId());
+                    store.addEmployee(employee);
+                }
+                case EMPLOYEE_REMOVED -> store.removeEmployee(in.readInt());
+                case SALARY_CHANGED -> changeSalary(in.readInt(), in.readDouble());
+                case CASHIER_ASSIGNED -> assignCashier(in.readInt(), in.readInt());
+                case PRICING_CHANGED -> {
+                    store.setFoodMarkupPercentage(in.readDouble());
+                    store.setNonFoodMarkupPercentage(in.readDouble());
+                    store.setDaysBeforeExpirationForDiscount(in.readInt());
+                    store.setDiscountPercentage(in.readDouble());
+                }
+            }
+        }
+        replayedRecords++;
+    }
+
+    private Receipt readSale(DataInputStream in) throws IOException {
+        int receiptNumber = in.readInt();
+        int cashierId = in.readInt();
+        LocalDateTime dateTime = readDateTime(in);
+        double totalAmount = in.readDouble();
+        int saleId = in.readInt();
+        PaymentMethod paymentMethod = readPaymentMethod(in);
+
+        Employee employee = store.getEmployeeById(cashierId);
+        Cashier cashier = employee instanceof Cashier c ? c : new Cashier(cashierId, "Unknown", 0, 0);
+
+        ReceiptLines lines = readLines(in);
+        for (int line = 0; line < lines.size(); line++) {
+            store.restoreStock(lines.getProductId(line), -lines.getQuantity(line));
+        }
+
+        Receipt receipt = new Receipt(receiptNumber, cashier, dateTime);
+        receipt.setLines(lines, store.getProductLookup());
+        receipt.setTotalAmount(totalAmount);
+        receipt.setSaleId(saleId);
+        receipt.setPaymentMethod(paymentMethod);
+        return receipt;
+    }
+
+    static PaymentMethod readPaymentMethod(DataInputStream in) throws IOException {
+        byte ordinal = in.readByte();
+        return ordinal >= 0 ? PAYMENT_METHODS[ordinal] : null;
+    }
+
+    private void changeSalary(int employeeId, double newSalary) {
+        Employee employee = store.getEmployeeById(employeeId);
+        if (employee != null) {
+            double previousSalary = employee.getMonthlySalary();
+            employee.setMonthlySalary(newSalary);
+            store.recordSalaryChange(employeeId, previousSalary, newSalary);
+        }
+    }
+
+    private void assignCashier(int cashierId, int registerNumber) {
+        if (store.getEmployeeById(cashierId) instanceof Cashier cashier) {
+            store.assignCashierToRegister(cashier, registerNumber);
+            cashier.setCurrentRegister(store.getRegister(registerNumber));
+        }
+    }
+
+    static Product readProduct(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        ProductCategory category = CATEGORIES[in.readUnsignedByte()];
+        String name = in.readUTF();
+        double purchasePrice = in.readDouble();
+        LocalDate expirationDate = LocalDate.ofEpochDay(in.readLong());
+        int quantity = in.readInt();
+        return ProductFactory.createProductWithId(id, category, name, purchasePrice, expirationDate, quantity);
+    }
+
+    static Employee readEmployee(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        EmployeePosition position = POSITIONS[in.readUnsignedByte()];
+        String name = in.readUTF();
+        double salary = in.readDouble();
+
+        return switch (position) {
+            case CASHIER -> new Cashier(id, name, salary, in.readInt());
+            case MANAGER -> new Manager(id, name, salary, in.readUTF());
+        };
+    }
+
+    // Names are not stored per line, they come from the product, which stays resolvable after removal
+    static ReceiptLines readLines(DataInputStream in) throws IOException {
+        int lineCount = in.readInt();
+        ReceiptLines.Builder lines = new ReceiptLines.Builder(lineCount);
+        for (int line = 0; line < lineCount; line++) {
+            int productId = in.readInt();
+            int quantity = in.readInt();
+            long unitPriceCents = in.readLong();
+            long unitCostCents = in.readLong();
+            int markupBasisPoints = in.readInt();
+            int discountBasisPoints = in.readInt();
+            lines.add(productId, quantity, unitPriceCents, unitCostCents, markupBasisPoints, discountBasisPoints);
+        }
+        return lines.build();
+    }
+
+    static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readLong()));
+    }
+
+    public int getMaxProductId() {
+        return maxProductId;
+    }
+
+    public int getMaxEmployeeId() {
+        return maxEmployeeId;
+    }
+
+    public int getReplayedRecords() {
+        return replayedRecords;
+    }
+}
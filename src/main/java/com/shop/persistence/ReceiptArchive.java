@@ -0,0 +1,437 @@
+package com.shop.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores receipt texts in rolling segment files written by one background thread.
+ * Checkout threads only enqueue, and a text supplied lazily is rendered by the writer, or by the first reader
+ * that gets to it while it is queued. When the bounded queue is full they wait, which keeps memory in check
+ * if the disk falls behind. Every segment has an index file of [receipt number][offset][length] entries
+ * so a receipt can be read back without scanning. Only one archive may have a directory open at a time,
+ * in this JVM or any other, since two writers would append with independent offsets and corrupt the index.
+ */
+public class ReceiptArchive implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "receipts-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String LOCK_FILE = "archive.lock";
+    private static final int INDEX_ENTRY_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final long DEFAULT_SEGMENT_BYTES = 16L * 1024 * 1024;
+    private static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final int MAX_BATCH = 512;
+
+    private static final PendingReceipt SHUTDOWN = new PendingReceipt(0, () -> "");
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final BlockingQueue<PendingReceipt> queue;
+    private final NavigableMap<Integer, PendingReceipt> pending = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Integer, Location> index = new ConcurrentSkipListMap<>();
+    private final Object progress = new Object();
+    // Submits hold it shared while they enqueue; close takes it exclusively, so nothing is queued behind shutdown
+    private final ReadWriteLock submitLock = new ReentrantReadWriteLock();
+    private final Thread writer;
+    // Holds the directory's exclusive lock for as long as it is open
+    private final FileChannel lockChannel;
+
+    private FileChannel segment;
+    private FileChannel indexFile;
+    private int segmentNumber;
+    private long submitted;
+    private long written;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public ReceiptArchive(Path directory) throws IOException {
+        this(directory, DEFAULT_QUEUE_CAPACITY, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public ReceiptArchive(Path directory, int queueCapacity, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Files.createDirectories(directory);
+        this.lockChannel = lockDirectory(directory);
+
+        try {
+            loadIndexes();
+            // Appends to the newest segment; bytes a crash left behind without an index entry are never read
+            openSegment(Math.max(segmentNumber, 1));
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+
+        this.writer = new Thread(this::runWriter, "receipt-archive-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Queues the receipt for writing, waiting for room when the writer is behind
+    public void submit(int receiptNumber, String text) {
+        submit(receiptNumber, () -> text);
+    }
+
+    // Fails once the writer has failed, since nothing queued after that would ever reach the disk
+    public void submit(int receiptNumber, Supplier<String> text) {
+        Lock lock = submitLock.readLock();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Receipt archive is closed");
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Receipt archive write failed", failure);
+            }
+
+            PendingReceipt receipt = new PendingReceipt(receiptNumber, text);
+            pending.put(receiptNumber, receipt);
+            synchronized (progress) {
+                submitted++;
+            }
+            try {
+                queue.put(receipt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.remove(receiptNumber);
+                synchronized (progress) {
+                    submitted--;
+                    progress.notifyAll();
+                }
+                throw new IllegalStateException("Interrupted while queueing receipt " + receiptNumber, e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String read(int receiptNumber) throws IOException {
+        PendingReceipt queued = pending.get(receiptNumber);
+        if (queued != null) {
+            return queued.text();
+        }
+
+        Location location = index.get(receiptNumber);
+        if (location == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(location.segment), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(location.length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, location.offset + buffer.position()) < 0) {
+                    throw new EOFException("Receipt " + receiptNumber + " is truncated");
+                }
+            }
+            return new String(buffer.array(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public boolean contains(int receiptNumber) {
+        return pending.containsKey(receiptNumber) || index.containsKey(receiptNumber);
+    }
+
+    public int size() {
+        int size = index.size();
+        for (Integer receiptNumber : pending.keySet()) {
+            // A written receipt is indexed a moment before it leaves the pending map
+            if (!index.containsKey(receiptNumber)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    // A page of archived receipt numbers in ascending order, or descending to list the newest first
+    public List<Integer> receiptNumbers(int fromIndex, int maxCount, boolean newestFirst) {
+        Iterator<Integer> written = (newestFirst ? index.descendingKeySet() : index.keySet()).iterator();
+        Iterator<Integer> queued = (newestFirst ? pending.descendingKeySet() : pending.keySet()).iterator();
+        Integer nextWritten = written.hasNext() ? written.next() : null;
+        Integer nextQueued = queued.hasNext() ? queued.next() : null;
+
+        List<Integer> page = new ArrayList<>(Math.min(maxCount, 1024));
+        int position = 0;
+        while (page.size() < maxCount && (nextWritten != null || nextQueued != null)) {
+            int receiptNumber;
+            if (nextQueued == null || (nextWritten != null
+                    && (newestFirst ? nextWritten >= nextQueued : nextWritten <= nextQueued))) {
+                receiptNumber = nextWritten;
+                if (nextWritten.equals(nextQueued)) {
+                    nextQueued = queued.hasNext() ? queued.next() : null;
+                }
+                nextWritten = written.hasNext() ? written.next() : null;
+            } else {
+                receiptNumber = nextQueued;
+                nextQueued = queued.hasNext() ? queued.next() : null;
+            }
+            if (position++ >= fromIndex) {
+                page.add(receiptNumber);
+            }
+        }
+        return page;
+    }
+
+    // Waits until everything submitted so far is on disk
+    public void flush() throws IOException {
+        synchronized (progress) {
+            long target = submitted;
+            while (written < target && failure == null && writer.isAlive()) {
+                try {
+                    progress.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while flushing receipts", e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw new IOException("Receipt archive write failed", failure);
+        }
+    }
+
+    // Waits for submits already past the closed check to finish queueing, then writes everything queued
+    @Override
+    public void close() throws IOException {
+        Lock lock = submitLock.writeLock();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            queue.put(SHUTDOWN);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        segment.close();
+        indexFile.close();
+        lockChannel.close();
+        if (failure != null) {
+            throw new IOException("Receipt archive write failed", failure);
+        }
+    }
+
+    private static FileChannel lockDirectory(Path directory) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IllegalStateException("Receipt archive in " + directory + " is already open");
+        }
+        return channel;
+    }
+
+    private void runWriter() {
+        List<PendingReceipt> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+
+        while (!stopping) {
+            try {
+                PendingReceipt first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (batch.remove(SHUTDOWN)) {
+                // Anything that raced in behind the shutdown marker still gets written
+                queue.drainTo(batch);
+                stopping = true;
+            }
+
+            try {
+                if (failure == null) {
+                    writeBatch(batch);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                // A receipt that fails to render must not stop the writer, or queued submits would wait forever
+                failure = new IOException("Failed to render a queued receipt", e);
+            }
+
+            synchronized (progress) {
+                written += batch.size();
+                progress.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingReceipt> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> texts = new ArrayList<>(batch.size());
+        int dataBytes = 0;
+        for (PendingReceipt receipt : batch) {
+            byte[] bytes = receipt.text().getBytes(StandardCharsets.UTF_8);
+            texts.add(bytes);
+            dataBytes += bytes.length;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(dataBytes);
+        ByteBuffer entries = ByteBuffer.allocate(batch.size() * INDEX_ENTRY_BYTES);
+        long offset = segment.size();
+        List<Location> locations = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            byte[] bytes = texts.get(i);
+            data.put(bytes);
+            entries.putInt(batch.get(i).receiptNumber).putLong(offset).putInt(bytes.length);
+            locations.add(new Location(segmentNumber, offset, bytes.length));
+            offset += bytes.length;
+        }
+
+        // Data goes down before the index so an index entry never points past the end of its segment
+        writeFully(segment, data.flip());
+        segment.force(false);
+        writeFully(indexFile, entries.flip());
+        indexFile.force(false);
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingReceipt receipt = batch.get(i);
+            index.put(receipt.receiptNumber, locations.get(i));
+            pending.remove(receipt.receiptNumber, receipt);
+        }
+
+        if (segment.size() >= segmentBytes) {
+            segment.close();
+            indexFile.close();
+            openSegment(segmentNumber + 1);
+        }
+    }
+
+    private void openSegment(int number) throws IOException {
+        segmentNumber = number;
+        segment = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        indexFile = FileChannel.open(indexPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void loadIndexes() throws IOException {
+        List<Path> indexFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            indexFiles = files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(INDEX_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        for (Path path : indexFiles) {
+            String name = path.getFileName().toString();
+            int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - INDEX_SUFFIX.length()));
+            segmentNumber = Math.max(segmentNumber, number);
+
+            long segmentSize = Files.exists(segmentPath(number)) ? Files.size(segmentPath(number)) : 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                while (true) {
+                    int receiptNumber = in.readInt();
+                    long offset = in.readLong();
+                    int length = in.readInt();
+                    // Entries from a write that did not complete are skipped
+                    if (offset + length <= segmentSize) {
+                        index.put(receiptNumber, new Location(number, offset, length));
+                    }
+                }
+            } catch (EOFException e) {
+                // End of index, a torn last entry is ignored
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private Path indexPath(int number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, INDEX_SUFFIX));
+    }
+
+    private static class PendingReceipt {
+        private final int receiptNumber;
+        private Supplier<String> source;
+        private String text;
+
+        private PendingReceipt(int receiptNumber, Supplier<String> source) {
+            this.receiptNumber = receiptNumber;
+            this.source = source;
+        }
+
+        // Rendered once, by whichever of the writer and a reader asks first
+        private synchronized String text() {
+            if (text == null) {
+                text = source.get();
+                source = null;
+            }
+            return text;
+        }
+    }
+
+    private static class Location {
+        private final int segment;
+        private final long offset;
+        private final int length;
+
+        private Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
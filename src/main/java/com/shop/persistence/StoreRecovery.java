@@ -0,0 +1,84 @@
+package com.shop.persistence;
+
+import com.shop.model.person.Employee;
+import com.shop.model.product.Product;
+import com.shop.model.product.ProductFactory;
+import com.shop.model.sales.Receipt;
+import com.shop.model.sales.Sale;
+import com.shop.model.store.Store;
+import com.shop.repository.EmployeeRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.repository.ReceiptRepository;
+import com.shop.repository.SaleRepository;
+
+import java.io.IOException;
+
+public class StoreRecovery {
+
+    private final Store store;
+    private final ProductRepository productRepository;
+    private final EmployeeRepository employeeRepository;
+    private final ReceiptRepository receiptRepository;
+    private final SaleRepository saleRepository;
+
+    public StoreRecovery(Store store, ProductRepository productRepository, EmployeeRepository employeeRepository,
+                         ReceiptRepository receiptRepository, SaleRepository saleRepository) {
+        this.store = store;
+        this.productRepository = productRepository;
+        this.employeeRepository = employeeRepository;
+        this.receiptRepository = receiptRepository;
+        this.saleRepository = saleRepository;
+    }
+
+    // Rebuilds the store from the journal and attaches it; returns false when there was nothing to replay
+    public boolean recover(Journal journal) throws IOException {
+        return recover(journal, null);
+    }
+
+    // Loads the latest snapshot first so only the journal records written after it are replayed
+    public boolean recover(Journal journal, StoreSnapshots snapshots) throws IOException {
+        long snapshotSequence = snapshots != null ? snapshots.loadLatest() : -1;
+
+        JournalReplayer replayer = new JournalReplayer(store);
+        replayer.replay(journal, Math.max(snapshotSequence, 0));
+
+        populateRepositories(replayer.getMaxProductId(), replayer.getMaxEmployeeId());
+        store.setJournal(journal);
+
+        return snapshotSequence >= 0 || replayer.getReplayedRecords() > 0;
+    }
+
+    private void populateRepositories(int maxProductId, int maxEmployeeId) {
+        for (Product product : store.getInventory().values()) {
+            productRepository.save(product);
+            maxProductId = Math.max(maxProductId, product.getId());
+        }
+        for (Employee employee : store.getEmployees()) {
+            employeeRepository.save(employee);
+            maxEmployeeId = Math.max(maxEmployeeId, employee.getId());
+        }
+        int maxSaleId = 0;
+        synchronized (store.getReceipts()) {
+            for (Receipt receipt : store.getReceipts()) {
+                receiptRepository.save(receipt);
+                // Sales are not persisted on their own, each one is rebuilt from the receipt that completed it
+                if (receipt.getSaleId() > 0) {
+                    saleRepository.save(restoreSale(receipt));
+                    maxSaleId = Math.max(maxSaleId, receipt.getSaleId());
+                }
+            }
+        }
+
+        // Snapshot counters can be ahead of the ids still in use, e.g. after removals
+        ProductFactory.setNextId(Math.max(ProductFactory.peekNextId(), maxProductId + 1));
+        employeeRepository.setNextId(Math.max(employeeRepository.peekNextId(), maxEmployeeId + 1));
+        saleRepository.setNextId(Math.max(saleRepository.peekNextId(), maxSaleId + 1));
+    }
+
+    private static Sale restoreSale(Receipt receipt) {
+        Sale sale = new Sale(receipt.getSaleId(), receipt.getCashier());
+        sale.setSaleDateTime(receipt.getDateTime());
+        sale.completeSale(receipt.getPaymentMethod(), receipt.getTotalAmount(), receipt);
+        return sale;
+    }
+}
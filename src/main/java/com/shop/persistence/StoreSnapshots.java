@@ -0,0 +1,494 @@
+package com.shop.persistence;
+
+import com.shop.enums.PaymentMethod;
+import com.shop.model.person.Cashier;
+import com.shop.model.person.Employee;
+import com.shop.model.product.Product;
+import com.shop.model.product.ProductFactory;
+import com.shop.model.sales.Receipt;
+import com.shop.model.sales.ReceiptLines;
+import com.shop.model.store.Register;
+import com.shop.model.store.Store;
+import com.shop.repository.EmployeeRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.repository.ReceiptRepository;
+import com.shop.repository.SaleRepository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshots of a Store and the counters around it, named after the journal sequence they cover.
+ * Startup loads the newest valid snapshot and replays only the journal records after that sequence.
+ * Layout: [magic][version][journal sequence][counters][settings][products][retired products]
+ * [employees][retired cashiers][registers][receipts][synced receipt keys][crc32 of everything before it].
+ */
+public class StoreSnapshots implements Closeable {
+
+    private static final int MAGIC = 0x53484F50;
+    private static final int VERSION = 5;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOTS_TO_KEEP = 2;
+    private static final int BUFFER_BYTES = 1024 * 1024;
+
+    private final Path directory;
+    private final Store store;
+    private final ProductRepository productRepository;
+    private final EmployeeRepository employeeRepository;
+    private final ReceiptRepository receiptRepository;
+    private final SaleRepository saleRepository;
+
+    private ScheduledExecutorService scheduler;
+    private long lastSnapshotSequence = -1;
+
+    public StoreSnapshots(Path directory, Store store, ProductRepository productRepository,
+                          EmployeeRepository employeeRepository, ReceiptRepository receiptRepository,
+                          SaleRepository saleRepository) throws IOException {
+        this.directory = directory;
+        this.store = store;
+        this.productRepository = productRepository;
+        this.employeeRepository = employeeRepository;
+        this.receiptRepository = receiptRepository;
+        this.saleRepository = saleRepository;
+        Files.createDirectories(directory);
+    }
+
+    // Writes a snapshot of the current state and returns the journal sequence it covers
+    public synchronized long write() throws IOException {
+        State state = store.withChangesPaused(this::capture);
+
+        // A crash must never leave a snapshot ahead of the durable journal: the journal would reopen below its
+        // sequence and hand those numbers out again, and recovery would skip the new records as covered
+        Journal journal = store.getJournal();
+        if (journal != null) {
+            journal.sync(state.journalSequence);
+        }
+
+        Path target = snapshotPath(state.journalSequence);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_BYTES));
+            out.write(state.header);
+            writeReceipts(out, state.receipts);
+            writeSyncedReceipts(out, state.syncedReceipts);
+            out.flush();
+
+            out.writeInt((int) checksum(temporary, file.getChannel().size()));
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+
+        lastSnapshotSequence = state.journalSequence;
+        prune();
+        return state.journalSequence;
+    }
+
+    // Loads the newest readable snapshot into an empty store; returns the journal sequence it covers, or -1 if none
+    public long loadLatest() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path snapshot = snapshots.get(i);
+            if (!isIntact(snapshot)) {
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(snapshot), BUFFER_BYTES))) {
+                long sequence = read(in);
+                lastSnapshotSequence = sequence;
+                return sequence;
+            } catch (EOFException | IllegalStateException e) {
+                // Falls back to the previous snapshot
+            }
+        }
+        return -1;
+    }
+
+    // Takes a snapshot every period, skipping runs where the journal has not moved
+    public synchronized void schedule(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Snapshots are already scheduled");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "store-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                Journal journal = store.getJournal();
+                if (journal == null || journal.getLastSequence() != lastSnapshotSequence) {
+                    write();
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to write snapshot: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running == null) {
+            return;
+        }
+
+        // Waits outside the monitor, a snapshot in progress needs it to finish
+        running.shutdown();
+        try {
+            running.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private State capture() {
+        Journal journal = store.getJournal();
+        State state = new State();
+        state.journalSequence = journal != null ? journal.getLastSequence() : 0;
+        state.receipts = store.getReceipts().toArray(new Receipt[0]);
+        state.syncedReceipts = new HashMap<>(store.getSyncedReceipts());
+
+        // Everything except receipts is small and still mutable, so it is encoded while changes are paused
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(state.journalSequence);
+
+            out.writeInt(ProductFactory.peekNextId());
+            out.writeInt(store.getNextReceiptNumber());
+            out.writeInt(productRepository.peekNextId());
+            out.writeInt(employeeRepository.peekNextId());
+            out.writeInt(receiptRepository.peekNextId());
+            out.writeInt(saleRepository.peekNextId());
+
+            out.writeUTF(store.getName() != null ? store.getName() : "");
+            out.writeDouble(store.getFoodMarkupPercentage());
+            out.writeDouble(store.getNonFoodMarkupPercentage());
+            out.writeInt(store.getDaysBeforeExpirationForDiscount());
+            out.writeDouble(store.getDiscountPercentage());
+
+            List<Product> products = new ArrayList<>(store.getInventory().values());
+            out.writeInt(products.size());
+            for (Product product : products) {
+                JournalEvents.writeProduct(out, product);
+                state.productIds.add(product.getId());
+            }
+
+            // Receipts may reference products that were removed since, they are kept without stock
+            Map<Integer, Product> retiredProducts = new LinkedHashMap<>();
+            for (Product product : store.getRetiredProducts()) {
+                retiredProducts.put(product.getId(), product);
+            }
+            Map<Integer, Cashier> retiredCashiers = new LinkedHashMap<>();
+            for (Employee employee : store.getEmployees()) {
+                state.employeeIds.add(employee.getId());
+            }
+            for (Receipt receipt : state.receipts) {
+                ReceiptLines lines = receipt.getLines();
+                for (int line = 0; line < lines.size(); line++) {
+                    int productId = lines.getProductId(line);
+                    if (!state.productIds.contains(productId) && !retiredProducts.containsKey(productId)) {
+                        // Only receipts built outside checkout know products the store never retired
+                        for (Product product : receipt.getItems().keySet()) {
+                            if (product.getId() == productId) {
+                                retiredProducts.put(productId, product);
+                            }
+                        }
+                    }
+                }
+                if (!state.employeeIds.contains(receipt.getCashier().getId())) {
+                    retiredCashiers.putIfAbsent(receipt.getCashier().getId(), receipt.getCashier());
+                }
+            }
+            out.writeInt(retiredProducts.size());
+            for (Product product : retiredProducts.values()) {
+                JournalEvents.writeProduct(out, product);
+            }
+
+            out.writeInt(store.getEmployees().size());
+            for (Employee employee : store.getEmployees()) {
+                JournalEvents.writeEmployee(out, employee);
+            }
+            out.writeInt(retiredCashiers.size());
+            for (Cashier cashier : retiredCashiers.values()) {
+                JournalEvents.writeEmployee(out, cashier);
+            }
+
+            int registerCount = 0;
+            while (store.getRegister(registerCount + 1) != null) {
+                registerCount++;
+            }
+            out.writeInt(registerCount);
+            for (int number = 1; number <= registerCount; number++) {
+                Register register = store.getRegister(number);
+                out.writeInt(number);
+                out.writeInt(register.getCurrentCashier() != null ? register.getCurrentCashier().getId() : 0);
+                out.writeDouble(register.getCashAmount());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode snapshot", e);
+        }
+        state.header = bytes.toByteArray();
+        return state;
+    }
+
+    private static void writeReceipts(DataOutputStream out, Receipt[] receipts) throws IOException {
+        out.writeInt(receipts.length);
+        for (Receipt receipt : receipts) {
+            out.writeInt(receipt.getReceiptNumber());
+            out.writeInt(receipt.getCashier().getId());
+            JournalEvents.writeDateTime(out, receipt.getDateTime());
+            out.writeDouble(receipt.getTotalAmount());
+            JournalEvents.writeSale(out, receipt);
+            JournalEvents.writeLines(out, receipt.getLines());
+        }
+    }
+
+    // Keys refer to receipts by number, so they are read back after the receipts
+    private static void writeSyncedReceipts(DataOutputStream out, Map<String, Receipt> syncedReceipts) throws IOException {
+        out.writeInt(syncedReceipts.size());
+        for (Map.Entry<String, Receipt> entry : syncedReceipts.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().getReceiptNumber());
+        }
+    }
+
+    private long read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IllegalStateException("Not a store snapshot");
+        }
+        long journalSequence = in.readLong();
+
+        int productFactoryNextId = in.readInt();
+        int nextReceiptNumber = in.readInt();
+        int productRepositoryNextId = in.readInt();
+        int employeeRepositoryNextId = in.readInt();
+        int receiptRepositoryNextId = in.readInt();
+        int saleRepositoryNextId = in.readInt();
+
+        store.setName(in.readUTF());
+        store.setFoodMarkupPercentage(in.readDouble());
+        store.setNonFoodMarkupPercentage(in.readDouble());
+        store.setDaysBeforeExpirationForDiscount(in.readInt());
+        store.setDiscountPercentage(in.readDouble());
+
+        Map<Integer, Product> inventory = new HashMap<>();
+        int productCount = in.readInt();
+        for (int i = 0; i < productCount; i++) {
+            Product product = JournalReplayer.readProduct(in);
+            inventory.put(product.getId(), product);
+        }
+        List<Product> retiredProducts = new ArrayList<>();
+        int retiredProductCount = in.readInt();
+        for (int i = 0; i < retiredProductCount; i++) {
+            retiredProducts.add(JournalReplayer.readProduct(in));
+        }
+
+        List<Employee> employees = new ArrayList<>();
+        Map<Integer, Employee> allEmployees = new HashMap<>();
+        int employeeCount = in.readInt();
+        for (int i = 0; i < employeeCount; i++) {
+            Employee employee = JournalReplayer.readEmployee(in);
+            employees.add(employee);
+            allEmployees.put(employee.getId(), employee);
+        }
+        int retiredCashierCount = in.readInt();
+        for (int i = 0; i < retiredCashierCount; i++) {
+            Employee employee = JournalReplayer.readEmployee(in);
+            allEmployees.put(employee.getId(), employee);
+        }
+
+        store.setInventory(inventory);
+        for (Product product : retiredProducts) {
+            store.retireProduct(product);
+        }
+        store.setEmployees(employees);
+
+        int registerCount = in.readInt();
+        for (int i = 0; i < registerCount; i++) {
+            Register register = store.getRegister(in.readInt());
+            int cashierId = in.readInt();
+            double cashAmount = in.readDouble();
+            if (register == null) {
+                continue;
+            }
+            register.setCashAmount(cashAmount);
+            if (allEmployees.get(cashierId) instanceof Cashier cashier) {
+                register.setCurrentCashier(cashier);
+                cashier.setCurrentRegister(register);
+            }
+        }
+
+        int receiptCount = in.readInt();
+        List<Receipt> receipts = new ArrayList<>(receiptCount);
+        for (int i = 0; i < receiptCount; i++) {
+            receipts.add(readReceipt(in, allEmployees));
+        }
+        store.setReceipts(receipts);
+
+        Map<Integer, Receipt> receiptsByNumber = new HashMap<>();
+        for (Receipt receipt : receipts) {
+            receiptsByNumber.put(receipt.getReceiptNumber(), receipt);
+        }
+        Map<String, Receipt> syncedReceipts = new HashMap<>();
+        int syncKeyCount = in.readInt();
+        for (int i = 0; i < syncKeyCount; i++) {
+            String key = in.readUTF();
+            Receipt receipt = receiptsByNumber.get(in.readInt());
+            if (receipt != null) {
+                syncedReceipts.put(key, receipt);
+            }
+        }
+        store.setSyncedReceipts(syncedReceipts);
+
+        ProductFactory.setNextId(productFactoryNextId);
+        store.setNextReceiptNumber(nextReceiptNumber);
+        productRepository.setNextId(productRepositoryNextId);
+        employeeRepository.setNextId(employeeRepositoryNextId);
+        receiptRepository.setNextId(receiptRepositoryNextId);
+        saleRepository.setNextId(saleRepositoryNextId);
+
+        return journalSequence;
+    }
+
+    private Receipt readReceipt(DataInputStream in, Map<Integer, Employee> employees) throws IOException {
+        int receiptNumber = in.readInt();
+        int cashierId = in.readInt();
+        LocalDateTime dateTime = JournalReplayer.readDateTime(in);
+        double totalAmount = in.readDouble();
+        int saleId = in.readInt();
+        PaymentMethod paymentMethod = JournalReplayer.readPaymentMethod(in);
+
+        Cashier cashier = employees.get(cashierId) instanceof Cashier c ? c : new Cashier(cashierId, "Unknown", 0, 0);
+
+        Receipt receipt = new Receipt(receiptNumber, cashier, dateTime);
+        receipt.setLines(JournalReplayer.readLines(in), store.getProductLookup());
+        receipt.setTotalAmount(totalAmount);
+        receipt.setSaleId(saleId);
+        receipt.setPaymentMethod(paymentMethod);
+        return receipt;
+    }
+
+    // Keeps the newest snapshots and the journal segments the oldest kept one still needs
+    private void prune() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        int excess = snapshots.size() - SNAPSHOTS_TO_KEEP;
+        for (int i = 0; i < excess; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+
+        Journal journal = store.getJournal();
+        if (journal != null && !snapshots.isEmpty()) {
+            long covered = sequenceOf(snapshots.get(Math.max(excess, 0)));
+            journal.deleteSegmentsThrough(Math.min(covered, journal.getDurableSequence()));
+        }
+    }
+
+    // Makes the rename itself durable; some platforms cannot open a directory for syncing
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private boolean isIntact(Path snapshot) throws IOException {
+        long size = Files.size(snapshot);
+        if (size < Integer.BYTES) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(trailer, size - Integer.BYTES);
+            trailer.flip();
+            return (int) checksum(snapshot, size - Integer.BYTES) == trailer.getInt();
+        }
+    }
+
+    private static long checksum(Path file, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                crc.update(buffer);
+                position += read;
+            }
+        }
+        return crc.getValue();
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private Path snapshotPath(long journalSequence) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, journalSequence, SNAPSHOT_SUFFIX));
+    }
+
+    private static long sequenceOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private static class State {
+        private long journalSequence;
+        private byte[] header;
+        private Receipt[] receipts;
+        private Map<String, Receipt> syncedReceipts;
+        private final Set<Integer> productIds = new HashSet<>();
+        private final Set<Integer> employeeIds = new HashSet<>();
+    }
+}
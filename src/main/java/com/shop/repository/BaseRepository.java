@@ -5,35 +5,51 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+// Shared by every register thread, so each public method here and in the subclasses is synchronized
 public abstract class BaseRepository<T> {
 
     protected Map<Integer, T> entities = new HashMap<>();
     protected int nextId = 1;
 
-    public T findById(int id) {
+    public synchronized T findById(int id) {
         return entities.get(id);
     }
 
-    public List<T> findAll() {
+    public synchronized List<T> findAll() {
         return new ArrayList<>(entities.values());
     }
 
-    public void save(T entity) {
+    public synchronized void save(T entity) {
         int id = getEntityId(entity);
         entities.put(id, entity);
     }
 
-    public void delete(int id) {
+    public synchronized void delete(int id) {
         entities.remove(id);
     }
 
-    public int count() {
+    public synchronized int count() {
         return entities.size();
     }
 
-    public int getNextId() {
+    public synchronized int getNextId() {
         return nextId++;
     }
 
+    // Reserves a contiguous range of ids and returns the first one
+    public synchronized int allocateIds(int count) {
+        int first = nextId;
+        nextId += count;
+        return first;
+    }
+
+    public synchronized int peekNextId() {
+        return nextId;
+    }
+
+    public synchronized void setNextId(int nextId) {
+        this.nextId = nextId;
+    }
+
     protected abstract int getEntityId(T entity);
 } 
\ No newline at end of file
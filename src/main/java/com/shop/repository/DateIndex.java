@@ -0,0 +1,57 @@
+package com.shop.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+
+class DateIndex<T> {
+
+    private final TreeMap<LocalDate, List<T>> buckets = new TreeMap<>();
+    private final Map<Integer, LocalDate> indexedDates = new HashMap<>();
+    private final ToIntFunction<T> idFunction;
+
+    DateIndex(ToIntFunction<T> idFunction) {
+        this.idFunction = idFunction;
+    }
+
+    void add(T entity, LocalDate date) {
+        int id = idFunction.applyAsInt(entity);
+        remove(id);
+
+        if (date == null) {
+            return;
+        }
+
+        buckets.computeIfAbsent(date, d -> new ArrayList<>()).add(entity);
+        indexedDates.put(id, date);
+    }
+
+    void remove(int id) {
+        LocalDate date = indexedDates.remove(id);
+        if (date == null) {
+            return;
+        }
+
+        List<T> bucket = buckets.get(date);
+        bucket.removeIf(entity -> idFunction.applyAsInt(entity) == id);
+        if (bucket.isEmpty()) {
+            buckets.remove(date);
+        }
+    }
+
+    List<T> findBetween(LocalDate startDate, LocalDate endDate) {
+        List<T> result = new ArrayList<>();
+        if (endDate.isBefore(startDate)) {
+            return result;
+        }
+
+        for (List<T> bucket : buckets.subMap(startDate, true, endDate, true).values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+}
@@ -1,6 +1,8 @@
 package com.shop.repository;
 
 import com.shop.enums.EmployeePosition;
+import com.shop.metrics.LatencyHistogram;
+import com.shop.metrics.MetricsRegistry;
 import com.shop.model.person.Employee;
 
 import java.util.ArrayList;
@@ -8,14 +10,22 @@ import java.util.List;
 
 public class EmployeeRepository extends BaseRepository<Employee> {
 
-    public List<Employee> findByPosition(EmployeePosition position) {
-        List<Employee> result = new ArrayList<>();
-        for (Employee employee : entities.values()) {
-            if (employee.getPosition() == position) {
-                result.add(employee);
+    private static final LatencyHistogram QUERY_LATENCY = MetricsRegistry.global()
+            .histogram("shop_employee_query_seconds", "Time taken by employee repository queries");
+
+    public synchronized List<Employee> findByPosition(EmployeePosition position) {
+        long started = System.nanoTime();
+        try {
+            List<Employee> result = new ArrayList<>();
+            for (Employee employee : entities.values()) {
+                if (employee.getPosition() == position) {
+                    result.add(employee);
+                }
             }
+            return result;
+        } finally {
+            QUERY_LATENCY.recordSince(started);
         }
-        return result;
     }
 
     @Override
@@ -1,56 +1,166 @@
 package com.shop.repository;
 
 import com.shop.enums.ProductCategory;
+import com.shop.metrics.LatencyHistogram;
+import com.shop.metrics.MetricsRegistry;
 import com.shop.model.product.Product;
+import com.shop.utils.BusinessClock;
 import com.shop.utils.DateUtils;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 public class ProductRepository extends BaseRepository<Product> {
 
-    public List<Product> findByCategory(ProductCategory category) {
-        List<Product> result = new ArrayList<>();
-        for (Product product : entities.values()) {
-            if (product.getCategory() == category) {
-                result.add(product);
+    private static final LatencyHistogram QUERY_LATENCY = MetricsRegistry.global()
+            .histogram("shop_product_query_seconds", "Time taken by product catalog repository queries");
+
+    private final Map<ProductCategory, Map<Integer, Product>> categoryIndex = new EnumMap<>(ProductCategory.class);
+    private final TreeMap<LocalDate, Map<Integer, Product>> expirationIndex = new TreeMap<>();
+    private final Map<Integer, IndexedKeys> indexedKeys = new HashMap<>();
+
+    @Override
+    public synchronized void save(Product product) {
+        unindex(product.getId());
+        super.save(product);
+        index(product);
+    }
+
+    @Override
+    public synchronized void delete(int id) {
+        unindex(id);
+        super.delete(id);
+    }
+
+    public synchronized List<Product> findByCategory(ProductCategory category) {
+        long started = System.nanoTime();
+        try {
+            Map<Integer, Product> products = categoryIndex.get(category);
+            return products != null ? new ArrayList<>(products.values()) : new ArrayList<>();
+        } finally {
+            QUERY_LATENCY.recordSince(started);
+        }
+    }
+
+    public synchronized List<Product> findExpired() {
+        long started = System.nanoTime();
+        try {
+            List<Product> result = new ArrayList<>();
+            for (Map<Integer, Product> products : expirationIndex.headMap(BusinessClock.get().today(), false).values()) {
+                for (Product product : products.values()) {
+                    if (DateUtils.isExpired(product.getExpirationDate())) {
+                        result.add(product);
+                    }
+                }
             }
+            return result;
+        } finally {
+            QUERY_LATENCY.recordSince(started);
         }
-        return result;
     }
 
-    public List<Product> findExpired() {
-        List<Product> result = new ArrayList<>();
-        for (Product product : entities.values()) {
-            if (DateUtils.isExpired(product.getExpirationDate())) {
-                result.add(product);
+    public synchronized List<Product> findSoonToExpire(int daysThreshold) {
+        long started = System.nanoTime();
+        try {
+            LocalDate today = BusinessClock.get().today();
+            NavigableMap<LocalDate, Map<Integer, Product>> range =
+                    expirationIndex.subMap(today, true, today.plusDays(daysThreshold), true);
+
+            List<Product> result = new ArrayList<>();
+            for (Map<Integer, Product> products : range.values()) {
+                for (Product product : products.values()) {
+                    if (DateUtils.isExpiringSoon(product.getExpirationDate(), daysThreshold)) {
+                        result.add(product);
+                    }
+                }
             }
+            return result;
+        } finally {
+            QUERY_LATENCY.recordSince(started);
         }
-        return result;
     }
 
-    public List<Product> findSoonToExpire(int daysThreshold) {
-        List<Product> result = new ArrayList<>();
-        for (Product product : entities.values()) {
-            if (DateUtils.isExpiringSoon(product.getExpirationDate(), daysThreshold)) {
-                result.add(product);
+    public synchronized List<Product> findBelowQuantity(int quantityThreshold) {
+        long started = System.nanoTime();
+        try {
+            // Stock moves without passing through the repository, so this reads live quantities;
+            // Inventory keeps the indexed version of this query
+            List<Product> result = new ArrayList<>();
+            for (Product product : entities.values()) {
+                if (product.getQuantity() <= quantityThreshold) {
+                    result.add(product);
+                }
             }
+            return result;
+        } finally {
+            QUERY_LATENCY.recordSince(started);
         }
-        return result;
     }
 
-    public List<Product> findBelowQuantity(int quantityThreshold) {
-        List<Product> result = new ArrayList<>();
-        for (Product product : entities.values()) {
-            if (product.getQuantity() <= quantityThreshold) {
-                result.add(product);
+    public synchronized void saveAll(Collection<Product> products) {
+        for (Product product : products) {
+            save(product);
+        }
+    }
+
+    private void index(Product product) {
+        int id = product.getId();
+        IndexedKeys keys = new IndexedKeys(product.getCategory(), product.getExpirationDate());
+
+        if (keys.category != null) {
+            categoryIndex.computeIfAbsent(keys.category, c -> new LinkedHashMap<>()).put(id, product);
+        }
+        if (keys.expirationDate != null) {
+            expirationIndex.computeIfAbsent(keys.expirationDate, d -> new LinkedHashMap<>()).put(id, product);
+        }
+
+        indexedKeys.put(id, keys);
+    }
+
+    private void unindex(int id) {
+        IndexedKeys keys = indexedKeys.remove(id);
+        if (keys == null) {
+            return;
+        }
+
+        if (keys.category != null) {
+            removeFromBucket(categoryIndex, keys.category, id);
+        }
+        if (keys.expirationDate != null) {
+            removeFromBucket(expirationIndex, keys.expirationDate, id);
+        }
+    }
+
+    private static <K> void removeFromBucket(Map<K, Map<Integer, Product>> index, K key, int id) {
+        Map<Integer, Product> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(id);
+            if (bucket.isEmpty()) {
+                index.remove(key);
             }
         }
-        return result;
     }
 
     @Override
     protected int getEntityId(Product product) {
         return product.getId();
     }
-} 
\ No newline at end of file
+
+    private static class IndexedKeys {
+        private final ProductCategory category;
+        private final LocalDate expirationDate;
+
+        private IndexedKeys(ProductCategory category, LocalDate expirationDate) {
+            this.category = category;
+            this.expirationDate = expirationDate;
+        }
+    }
+}
@@ -1,28 +1,42 @@
 package com.shop.repository;
 
+import com.shop.metrics.LatencyHistogram;
+import com.shop.metrics.MetricsRegistry;
 import com.shop.model.sales.Receipt;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 public class ReceiptRepository extends BaseRepository<Receipt> {
 
+    private static final LatencyHistogram QUERY_LATENCY = MetricsRegistry.global()
+            .histogram("shop_receipt_query_seconds", "Time taken by receipt repository queries");
+
+    private final DateIndex<Receipt> dateIndex = new DateIndex<>(Receipt::getReceiptNumber);
     private int nextReceiptNumber = 1;
 
-    public List<Receipt> findByDateRange(LocalDate startDate, LocalDate endDate) {
-        List<Receipt> result = new ArrayList<>();
-        for (Receipt receipt : entities.values()) {
-            LocalDate receiptDate = receipt.getDateTime().toLocalDate();
-            if ((receiptDate.isEqual(startDate) || receiptDate.isAfter(startDate)) &&
-                    (receiptDate.isEqual(endDate) || receiptDate.isBefore(endDate))) {
-                result.add(receipt);
-            }
+    @Override
+    public synchronized void save(Receipt receipt) {
+        super.save(receipt);
+        dateIndex.add(receipt, receipt.getDateTime() != null ? receipt.getDateTime().toLocalDate() : null);
+    }
+
+    @Override
+    public synchronized void delete(int id) {
+        dateIndex.remove(id);
+        super.delete(id);
+    }
+
+    public synchronized List<Receipt> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        long started = System.nanoTime();
+        try {
+            return dateIndex.findBetween(startDate, endDate);
+        } finally {
+            QUERY_LATENCY.recordSince(started);
         }
-        return result;
     }
 
-    public int getNextReceiptNumber() {
+    public synchronized int getNextReceiptNumber() {
         return nextReceiptNumber++;
     }
 
@@ -30,4 +44,4 @@ public class ReceiptRepository extends BaseRepository<Receipt> {
     protected int getEntityId(Receipt receipt) {
         return receipt.getReceiptNumber();
     }
-} 
\ No newline at end of file
+}
@@ -1,27 +1,42 @@
 package com.shop.repository;
 
+import com.shop.metrics.LatencyHistogram;
+import com.shop.metrics.MetricsRegistry;
 import com.shop.model.sales.Sale;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 public class SaleRepository extends BaseRepository<Sale> {
 
-    public List<Sale> findByDateRange(LocalDate startDate, LocalDate endDate) {
-        List<Sale> result = new ArrayList<>();
-        for (Sale sale : entities.values()) {
-            LocalDate saleDate = sale.getSaleDateTime().toLocalDate();
-            if ((saleDate.isEqual(startDate) || saleDate.isAfter(startDate)) &&
-                    (saleDate.isEqual(endDate) || saleDate.isBefore(endDate))) {
-                result.add(sale);
-            }
+    private static final LatencyHistogram QUERY_LATENCY = MetricsRegistry.global()
+            .histogram("shop_sale_query_seconds", "Time taken by sale repository queries");
+
+    private final DateIndex<Sale> dateIndex = new DateIndex<>(Sale::getSaleId);
+
+    @Override
+    public synchronized void save(Sale sale) {
+        super.save(sale);
+        dateIndex.add(sale, sale.getSaleDateTime() != null ? sale.getSaleDateTime().toLocalDate() : null);
+    }
+
+    @Override
+    public synchronized void delete(int id) {
+        dateIndex.remove(id);
+        super.delete(id);
+    }
+
+    public synchronized List<Sale> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        long started = System.nanoTime();
+        try {
+            return dateIndex.findBetween(startDate, endDate);
+        } finally {
+            QUERY_LATENCY.recordSince(started);
         }
-        return result;
     }
 
     @Override
     protected int getEntityId(Sale sale) {
         return sale.getSaleId();
     }
-} 
\ No newline at end of file
+}
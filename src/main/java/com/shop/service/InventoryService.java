@@ -4,7 +4,12 @@ import com.shop.enums.ProductCategory;
 import com.shop.exceptions.ExpiredProductException;
 import com.shop.exceptions.InsufficientQuantityException;
 import com.shop.model.product.Product;
+import com.shop.model.store.StockAdjustment;
+import com.shop.model.store.StockAdjustmentResult;
+import com.shop.persistence.CatalogImportResult;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -12,11 +17,15 @@ public interface InventoryService {
     Product addProduct(ProductCategory category, String name, double purchasePrice,
                        LocalDate expirationDate, int quantity);
 
+    CatalogImportResult importCatalog(Path file) throws IOException;
+
     void removeProduct(int productId);
 
     void updateProductQuantity(int productId, int quantityChange)
             throws InsufficientQuantityException;
 
+    List<StockAdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments);
+
     Product getProductById(int productId);
 
     List<Product> getAllProducts();
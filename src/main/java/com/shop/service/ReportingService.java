@@ -1,8 +1,11 @@
 package com.shop.service;
 
+import com.shop.enums.ProductRanking;
+import com.shop.model.sales.RankedProduct;
 import com.shop.model.sales.Receipt;
 import com.shop.model.sales.SalesReport;
 import com.shop.model.store.FinancialReport;
+import com.shop.utils.CacheStats;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -24,6 +27,16 @@ public interface ReportingService {
 
     List<String> getAllReceiptTexts();
 
+    List<String> getReceiptTexts(int fromIndex, int maxCount);
+
+    int getReceiptCount();
+
+    List<RankedProduct> getBestSellers(ProductRanking ranking, int count);
+
+    CacheStats getReportCacheStats();
+
+    CacheStats getReceiptCacheStats();
+
     void generateDailySalesReport();
 
     void generateMonthlyFinancialReport();
@@ -33,4 +46,6 @@ public interface ReportingService {
     void generateEmployeeReport();
 
     List<String> getAvailableReports();
+
+    void shutdown();
 }
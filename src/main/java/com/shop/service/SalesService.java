@@ -5,8 +5,10 @@ import com.shop.exceptions.ExpiredProductException;
 import com.shop.exceptions.InsufficientQuantityException;
 import com.shop.model.person.Cashier;
 import com.shop.model.product.Product;
+import com.shop.model.sales.OfflineSale;
 import com.shop.model.sales.Receipt;
 import com.shop.model.sales.Sale;
+import com.shop.model.sales.SaleSyncResult;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -21,6 +23,8 @@ public interface SalesService {
     Receipt completeSale(Sale sale, PaymentMethod paymentMethod)
             throws InsufficientQuantityException, ExpiredProductException;
 
+    List<SaleSyncResult> completeSales(List<OfflineSale> sales);
+
     List<Receipt> getReceiptsByDateRange(LocalDate startDate, LocalDate endDate);
 
     Receipt getReceiptById(int receiptId);
@@ -91,7 +91,9 @@ public class EmployeeServiceImpl implements EmployeeService {
         Employee employee = store.getEmployeeById(employeeId);
 
         if (employee != null) {
+            double previousSalary = employee.getMonthlySalary();
             employee.setMonthlySalary(newSalary);
+            store.recordSalaryChange(employeeId, previousSalary, newSalary);
             employeeRepository.save(employee);
         } else {
             throw new IllegalArgumentException("Employee with ID " + employeeId + " not found");
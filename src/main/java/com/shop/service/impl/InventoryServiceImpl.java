@@ -3,16 +3,25 @@ package com.shop.service.impl;
 import com.shop.enums.ProductCategory;
 import com.shop.exceptions.ExpiredProductException;
 import com.shop.exceptions.InsufficientQuantityException;
+import com.shop.model.product.ExpirationTimeline;
 import com.shop.model.product.Product;
 import com.shop.model.product.ProductFactory;
+import com.shop.model.store.StockAdjustment;
+import com.shop.model.store.StockAdjustmentResult;
 import com.shop.model.store.Store;
+import com.shop.persistence.CatalogImportResult;
+import com.shop.persistence.CatalogImporter;
 import com.shop.repository.ProductRepository;
 import com.shop.service.InventoryService;
 import com.shop.utils.DateUtils;
 import com.shop.utils.ValidationUtils;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class InventoryServiceImpl implements InventoryService {
 
@@ -45,13 +54,19 @@ public class InventoryServiceImpl implements InventoryService {
         return product;
     }
 
+    @Override
+    public CatalogImportResult importCatalog(Path file) throws IOException {
+        ValidationUtils.validateNotNull(file, "Catalog file cannot be null");
+        return new CatalogImporter(store, productRepository).importFile(file);
+    }
+
     @Override
     public void removeProduct(int productId) {
         ValidationUtils.validatePositive(productId, "Product ID must be positive");
 
         Product product = store.getProductById(productId);
         if (product != null) {
-            store.getInventory().remove(productId);
+            store.removeProduct(productId);
             productRepository.delete(productId);
         }
     }
@@ -65,6 +80,25 @@ public class InventoryServiceImpl implements InventoryService {
         productRepository.save(store.getProductById(productId));
     }
 
+    @Override
+    public List<StockAdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) {
+        ValidationUtils.validateNotNull(adjustments, "Stock adjustments cannot be null");
+
+        List<StockAdjustmentResult> results = store.adjustQuantities(adjustments);
+        // Each changed product is written back once however many lines touched it
+        Map<Integer, Product> changed = new LinkedHashMap<>();
+        for (StockAdjustmentResult result : results) {
+            if (result.isApplied()) {
+                changed.computeIfAbsent(result.getProductId(), store::getProductById);
+            }
+        }
+        productRepository.saveAll(changed.values());
+        if (!changed.isEmpty()) {
+            store.syncJournal();
+        }
+        return results;
+    }
+
     @Override
     public Product getProductById(int productId) {
         ValidationUtils.validatePositive(productId, "Product ID must be positive");
@@ -84,34 +118,35 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     public List<Product> getExpiredProducts() {
-        return productRepository.findExpired();
+        ExpirationTimeline timeline = store.getExpirationTimeline();
+        return timeline != null ? timeline.getExpiredProducts() : productRepository.findExpired();
     }
 
     @Override
     public List<Product> getSoonToExpireProducts(int daysThreshold) {
         ValidationUtils.validatePositive(daysThreshold, "Days threshold must be positive");
-        return productRepository.findSoonToExpire(daysThreshold);
+        ExpirationTimeline timeline = store.getExpirationTimeline();
+        return timeline != null ? timeline.getExpiringWithin(daysThreshold) : productRepository.findSoonToExpire(daysThreshold);
     }
 
     @Override
     public List<Product> getProductsBelowThreshold(int quantityThreshold) {
         ValidationUtils.validatePositiveOrZero(quantityThreshold, "Quantity threshold cannot be negative");
-        return productRepository.findBelowQuantity(quantityThreshold);
+        return store.getProductsBelowQuantity(quantityThreshold);
     }
 
     @Override
     public void checkExpirationDates() throws ExpiredProductException {
-        List<Product> expiredProducts = getExpiredProducts();
-        if (!expiredProducts.isEmpty()) {
-            throw new ExpiredProductException("Found " + expiredProducts.size() + " expired products");
+        ExpirationTimeline timeline = store.getExpirationTimeline();
+        int expiredCount = timeline != null ? timeline.getExpiredCount() : productRepository.findExpired().size();
+        if (expiredCount > 0) {
+            throw new ExpiredProductException("Found " + expiredCount + " expired products");
         }
     }
 
     @Override
     public double calculateInventoryValue() {
-        return store.getInventory().values().stream()
-                .mapToDouble(p -> p.getPurchasePrice() * p.getQuantity())
-                .sum();
+        return store.getInventoryValue();
     }
 
     @Override
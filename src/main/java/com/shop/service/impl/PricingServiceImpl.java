@@ -21,7 +21,7 @@ public class PricingServiceImpl implements PricingService {
     @Override
     public double calculateSellingPrice(Product product) {
         ValidationUtils.validateNotNull(product, "Product cannot be null");
-        return calculateSellingPrice(product,
+        return product.getSellingPrice(store.getPricingStamp(),
                 store.getDaysBeforeExpirationForDiscount(),
                 store.getDiscountPercentage(),
                 getMarkupPercentage(product.getCategory()));
@@ -1,12 +1,21 @@
 package com.shop.service.impl;
 
+import com.shop.enums.ProductRanking;
+import com.shop.metrics.LatencyHistogram;
+import com.shop.metrics.MetricsRegistry;
+import com.shop.model.sales.BestSellers;
+import com.shop.model.sales.RankedProduct;
 import com.shop.model.sales.Receipt;
 import com.shop.model.sales.SalesReport;
 import com.shop.model.store.FinancialReport;
 import com.shop.model.store.Store;
+import com.shop.persistence.ReceiptArchive;
 import com.shop.service.EmployeeService;
 import com.shop.service.InventoryService;
 import com.shop.service.ReportingService;
+import com.shop.utils.BoundedCache;
+import com.shop.utils.BusinessClock;
+import com.shop.utils.CacheStats;
 import com.shop.utils.CurrencyFormatter;
 import com.shop.utils.DateUtils;
 import com.shop.utils.FileUtils;
@@ -15,28 +24,51 @@ import com.shop.utils.ValidationUtils;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 public class ReportingServiceImpl implements ReportingService {
 
+    private static final LatencyHistogram SALES_REPORT_LATENCY = MetricsRegistry.global()
+            .histogram("shop_sales_report_seconds", "Time taken to generate a sales report");
+    private static final LatencyHistogram FINANCIAL_REPORT_LATENCY = MetricsRegistry.global()
+            .histogram("shop_financial_report_seconds", "Time taken to generate a financial report");
+
     private static final String REPORTS_DIRECTORY = "reports";
+    private static final String RECEIPT_PREFIX = "receipt_";
+    private static final long REPORT_CACHE_BYTES = 8L * 1024 * 1024;
+    private static final long RECEIPT_CACHE_BYTES = 8L * 1024 * 1024;
+    private static final int RECEIPTS_LISTED = 20;
+    private static final int RECEIPT_CACHE_SEGMENTS = 16;
 
     private final Store store;
     private final InventoryService inventoryService;
     private final EmployeeService employeeService;
-    private final Map<String, String> reportCache;
-    private final List<String> receiptTexts;
+    private final BoundedCache<String, String> reportCache;
+    // Receipt texts evicted from here are read back from the archive, or from their own file without one
+    private final BoundedCache<Integer, ReceiptText> receiptTextCache;
+    private final ReceiptArchive receiptArchive;
 
     public ReportingServiceImpl(Store store,
                                 InventoryService inventoryService,
                                 EmployeeService employeeService) {
+        this(store, inventoryService, employeeService, null);
+    }
+
+    // Without an archive every receipt is written to its own file on the calling thread. The service takes
+    // over the archive and closes it on shutdown; one archive per directory is shared by the whole process
+    public ReportingServiceImpl(Store store,
+                                InventoryService inventoryService,
+                                EmployeeService employeeService,
+                                ReceiptArchive receiptArchive) {
         this.store = store;
         this.inventoryService = inventoryService;
         this.employeeService = employeeService;
-        this.reportCache = new HashMap<>();
-        this.receiptTexts = new ArrayList<>();
+        this.reportCache = BoundedCache.forStrings(REPORT_CACHE_BYTES);
+        this.receiptTextCache = new BoundedCache<>(RECEIPT_CACHE_BYTES, ReceiptText::weight, RECEIPT_CACHE_SEGMENTS);
+        this.receiptArchive = receiptArchive;
 
         try {
             FileUtils.createDirectory(REPORTS_DIRECTORY);
@@ -54,8 +86,10 @@ public class ReportingServiceImpl implements ReportingService {
             throw new IllegalArgumentException("End date cannot be before start date");
         }
 
+        long started = System.nanoTime();
         SalesReport report = new SalesReport();
         report.generateReport(store, startDate, endDate);
+        SALES_REPORT_LATENCY.recordSince(started);
         return report;
     }
 
@@ -68,8 +102,10 @@ public class ReportingServiceImpl implements ReportingService {
             throw new IllegalArgumentException("End date cannot be before start date");
         }
 
+        long started = System.nanoTime();
         FinancialReport report = new FinancialReport();
         report.generateReport(store, startDate, endDate);
+        FINANCIAL_REPORT_LATENCY.recordSince(started);
         return report;
     }
 
@@ -109,15 +145,17 @@ public class ReportingServiceImpl implements ReportingService {
     public void saveReceiptToMemory(Receipt receipt) {
         ValidationUtils.validateNotNull(receipt, "Receipt cannot be null");
 
-        String receiptText = receipt.generateReceiptText();
-        receiptTexts.add(receiptText);
+        // Nothing is rendered at checkout; the archive writer or the first reader renders it, once
+        ReceiptText receiptText = new ReceiptText(receipt);
+        receiptTextCache.put(receipt.getReceiptNumber(), receiptText);
 
-        String receiptName = "receipt_" + receipt.getReceiptNumber();
-        reportCache.put(receiptName, receiptText);
+        if (receiptArchive != null) {
+            receiptArchive.submit(receipt.getReceiptNumber(), receiptText::text);
+            return;
+        }
 
         try {
-            String filePath = REPORTS_DIRECTORY + "/" + receiptName + ".txt";
-            FileUtils.writeToFile(filePath, receiptText);
+            FileUtils.writeToFile(receiptFilePath(receipt.getReceiptNumber()), receiptText.text());
         } catch (IOException e) {
             System.err.println("Failed to save receipt to file: " + e.getMessage());
         }
@@ -129,6 +167,10 @@ public class ReportingServiceImpl implements ReportingService {
 
         String report = reportCache.get(reportName);
 
+        if (report == null && reportName.startsWith(RECEIPT_PREFIX)) {
+            report = getReceiptText(reportName);
+        }
+
         if (report == null && FileUtils.fileExists(REPORTS_DIRECTORY + "/" + reportName + ".txt")) {
             try {
                 report = FileUtils.readFromFile(REPORTS_DIRECTORY + "/" + reportName + ".txt");
@@ -141,14 +183,126 @@ public class ReportingServiceImpl implements ReportingService {
         return report;
     }
 
+    private String getReceiptText(String reportName) {
+        try {
+            return textOf(receiptTextCache.get(Integer.parseInt(reportName.substring(RECEIPT_PREFIX.length())),
+                    this::loadReceiptText));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private ReceiptText loadReceiptText(int receiptNumber) {
+        try {
+            String text;
+            if (receiptArchive != null) {
+                text = receiptArchive.read(receiptNumber);
+            } else {
+                String filePath = receiptFilePath(receiptNumber);
+                text = FileUtils.fileExists(filePath) ? FileUtils.readFromFile(filePath) : null;
+            }
+            return text != null ? new ReceiptText(text) : null;
+        } catch (IOException e) {
+            System.err.println("Failed to read receipt " + receiptNumber + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String textOf(ReceiptText receiptText) {
+        return receiptText != null ? receiptText.text() : null;
+    }
+
+    private static String receiptFilePath(int receiptNumber) {
+        return REPORTS_DIRECTORY + "/" + RECEIPT_PREFIX + receiptNumber + ".txt";
+    }
+
+    // Receipt numbers come from the archive's index; without one, from the receipt files
+    private List<Integer> receiptNumbers(int fromIndex, int maxCount, boolean newestFirst) {
+        if (receiptArchive != null) {
+            return receiptArchive.receiptNumbers(fromIndex, maxCount, newestFirst);
+        }
+
+        List<Integer> numbers = receiptFileNumbers();
+        numbers.sort(newestFirst ? Comparator.reverseOrder() : Comparator.naturalOrder());
+        int toIndex = (int) Math.min(numbers.size(), (long) fromIndex + maxCount);
+        return fromIndex < toIndex ? new ArrayList<>(numbers.subList(fromIndex, toIndex)) : List.of();
+    }
+
+    private static List<Integer> receiptFileNumbers() {
+        List<Integer> numbers = new ArrayList<>();
+        for (String fileName : FileUtils.listFiles(REPORTS_DIRECTORY)) {
+            Integer receiptNumber = parseReceiptNumber(fileName);
+            if (receiptNumber != null) {
+                numbers.add(receiptNumber);
+            }
+        }
+        return numbers;
+    }
+
+    private static Integer parseReceiptNumber(String fileName) {
+        if (!fileName.startsWith(RECEIPT_PREFIX) || !fileName.endsWith(".txt")) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(fileName.substring(RECEIPT_PREFIX.length(), fileName.length() - 4));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     @Override
     public List<String> getAllReceiptTexts() {
-        return new ArrayList<>(receiptTexts);
+        return getReceiptTexts(0, getReceiptCount());
+    }
+
+    @Override
+    public List<String> getReceiptTexts(int fromIndex, int maxCount) {
+        if (fromIndex < 0 || maxCount < 0) {
+            throw new IllegalArgumentException("Page bounds cannot be negative");
+        }
+
+        List<Integer> page = receiptNumbers(fromIndex, maxCount, false);
+        List<String> texts = new ArrayList<>(page.size());
+        for (int receiptNumber : page) {
+            String text = textOf(receiptTextCache.get(receiptNumber, this::loadReceiptText));
+            if (text != null) {
+                texts.add(text);
+            }
+        }
+        return texts;
+    }
+
+    @Override
+    public int getReceiptCount() {
+        return receiptArchive != null ? receiptArchive.size() : receiptFileNumbers().size();
+    }
+
+    @Override
+    public List<RankedProduct> getBestSellers(ProductRanking ranking, int count) {
+        BestSellers bestSellers = store.getBestSellers();
+        if (bestSellers != null) {
+            return bestSellers.getTop(ranking, count);
+        }
+
+        // Stores without running best sellers rank an all-time report instead
+        SalesReport report = new SalesReport();
+        report.generateReport(store, LocalDate.EPOCH, BusinessClock.get().today());
+        return report.getTopProducts(ranking, count);
+    }
+
+    @Override
+    public CacheStats getReportCacheStats() {
+        return reportCache.stats();
+    }
+
+    @Override
+    public CacheStats getReceiptCacheStats() {
+        return receiptTextCache.stats();
     }
 
     @Override
     public void generateDailySalesReport() {
-        LocalDate today = LocalDate.now();
+        LocalDate today = BusinessClock.get().today();
         SalesReport report = generateSalesReport(today, today);
         String reportName = "sales_report_" + DateUtils.formatDate(today);
         saveReportToMemory(report, reportName);
@@ -156,7 +310,7 @@ public class ReportingServiceImpl implements ReportingService {
 
     @Override
     public void generateMonthlyFinancialReport() {
-        LocalDate today = LocalDate.now();
+        LocalDate today = BusinessClock.get().today();
         LocalDate startOfMonth = today.withDayOfMonth(1);
         LocalDate endOfMonth = today.withDayOfMonth(today.lengthOfMonth());
 
@@ -172,7 +326,7 @@ public class ReportingServiceImpl implements ReportingService {
         reportBuilder.append("======================================\n");
         reportBuilder.append("           INVENTORY REPORT           \n");
         reportBuilder.append("======================================\n");
-        reportBuilder.append("Date: ").append(DateUtils.formatDate(LocalDate.now())).append("\n");
+        reportBuilder.append("Date: ").append(DateUtils.formatDate(BusinessClock.get().today())).append("\n");
         reportBuilder.append("--------------------------------------\n");
         reportBuilder.append("Total Products: ").append(inventoryService.getAllProducts().size()).append("\n");
         reportBuilder.append("Total Inventory Value: ").append(CurrencyFormatter.format(inventoryService.calculateInventoryValue())).append("\n");
@@ -182,7 +336,7 @@ public class ReportingServiceImpl implements ReportingService {
         reportBuilder.append("Soon to Expire Products (7 days): ").append(inventoryService.getSoonToExpireProducts(7).size()).append("\n");
         reportBuilder.append("Products Below Threshold (5 units): ").append(inventoryService.getProductsBelowThreshold(5).size()).append("\n");
 
-        String reportName = "inventory_report_" + DateUtils.formatDate(LocalDate.now());
+        String reportName = "inventory_report_" + DateUtils.formatDate(BusinessClock.get().today());
         reportCache.put(reportName, reportBuilder.toString());
 
         saveReportToFile(reportName, reportBuilder.toString());
@@ -195,7 +349,7 @@ public class ReportingServiceImpl implements ReportingService {
         reportBuilder.append("======================================\n");
         reportBuilder.append("           EMPLOYEE REPORT            \n");
         reportBuilder.append("======================================\n");
-        reportBuilder.append("Date: ").append(DateUtils.formatDate(LocalDate.now())).append("\n");
+        reportBuilder.append("Date: ").append(DateUtils.formatDate(BusinessClock.get().today())).append("\n");
         reportBuilder.append("--------------------------------------\n");
         reportBuilder.append("Total Employees: ").append(employeeService.getAllEmployees().size()).append("\n");
         reportBuilder.append("Total Cashiers: ").append(employeeService.getAllCashiers().size()).append("\n");
@@ -203,7 +357,7 @@ public class ReportingServiceImpl implements ReportingService {
         reportBuilder.append("--------------------------------------\n");
         reportBuilder.append("Total Monthly Salary: ").append(CurrencyFormatter.format(employeeService.calculateTotalSalaries())).append("\n");
 
-        String reportName = "employee_report_" + DateUtils.formatDate(LocalDate.now());
+        String reportName = "employee_report_" + DateUtils.formatDate(BusinessClock.get().today());
         reportCache.put(reportName, reportBuilder.toString());
 
         saveReportToFile(reportName, reportBuilder.toString());
@@ -211,22 +365,74 @@ public class ReportingServiceImpl implements ReportingService {
 
     @Override
     public List<String> getAvailableReports() {
-        List<String> reports = new ArrayList<>(reportCache.keySet());
+        Set<String> reports = new LinkedHashSet<>();
+        for (String reportName : reportCache.keys()) {
+            if (!reportName.startsWith(RECEIPT_PREFIX)) {
+                reports.add(reportName);
+            }
+        }
 
         try {
             List<String> fileReports = FileUtils.listFiles(REPORTS_DIRECTORY);
             for (String fileReport : fileReports) {
-                if (fileReport.endsWith(".txt")) {
-                    String reportName = fileReport.substring(0, fileReport.length() - 4);
-                    if (!reportCache.containsKey(reportName)) {
-                        reports.add(reportName);
-                    }
+                if (fileReport.endsWith(".txt") && !fileReport.startsWith(RECEIPT_PREFIX)) {
+                    reports.add(fileReport.substring(0, fileReport.length() - 4));
                 }
             }
         } catch (Exception e) {
             System.err.println("Failed to read reports from directory: " + e.getMessage());
         }
 
-        return reports;
+        // Only the latest receipts are listed; older ones stay readable by name or through getReceiptTexts
+        for (int receiptNumber : receiptNumbers(0, RECEIPTS_LISTED, true)) {
+            reports.add(RECEIPT_PREFIX + receiptNumber);
+        }
+
+        return new ArrayList<>(reports);
+    }
+
+    @Override
+    public void shutdown() {
+        if (receiptArchive == null) {
+            return;
+        }
+        try {
+            receiptArchive.close();
+        } catch (IOException e) {
+            System.err.println("Failed to flush receipt archive: " + e.getMessage());
+        }
+    }
+
+    // A receipt's text, rendered from the receipt the first time anyone asks for it. The cache and the archive
+    // share one instance, so it is rendered at most once; its weight is estimated up front from the line count
+    private static final class ReceiptText {
+        private static final int HEADER_CHARS = 400;
+        private static final int LINE_CHARS = 40;
+
+        private final long weight;
+        private Receipt receipt;
+        private String text;
+
+        private ReceiptText(Receipt receipt) {
+            this.receipt = receipt;
+            this.weight = 56L + 2L * (HEADER_CHARS + (long) LINE_CHARS * receipt.getLines().size());
+        }
+
+        private ReceiptText(String text) {
+            this.text = text;
+            this.weight = 56L + 2L * text.length();
+        }
+
+        private synchronized String text() {
+            if (text == null) {
+                text = receipt.generateReceiptText();
+                receipt = null;
+            }
+            return text;
+        }
+
+        private long weight() {
+            return weight;
+        }
     }
-} 
\ No newline at end of file
+}
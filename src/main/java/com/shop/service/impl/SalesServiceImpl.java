@@ -1,25 +1,47 @@
 package com.shop.service.impl;
 
 import com.shop.enums.PaymentMethod;
+import com.shop.enums.SyncStatus;
 import com.shop.exceptions.ExpiredProductException;
 import com.shop.exceptions.InsufficientQuantityException;
+import com.shop.metrics.Counter;
+import com.shop.metrics.LatencyHistogram;
+import com.shop.metrics.MetricsRegistry;
 import com.shop.model.person.Cashier;
 import com.shop.model.product.Product;
+import com.shop.model.sales.OfflineSale;
 import com.shop.model.sales.Receipt;
 import com.shop.model.sales.Sale;
+import com.shop.model.sales.SaleSyncResult;
 import com.shop.model.store.Store;
 import com.shop.repository.ReceiptRepository;
 import com.shop.repository.SaleRepository;
 import com.shop.service.SalesService;
+import com.shop.utils.ValidationUtils;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class SalesServiceImpl implements SalesService {
 
+    private static final LatencyHistogram COMPLETE_SALE_LATENCY = MetricsRegistry.global()
+            .histogram("shop_complete_sale_seconds", "Time taken to complete a sale");
+    private static final Counter SALES_COMPLETED = MetricsRegistry.global()
+            .counter("shop_sales_completed_total", "Sales completed, including offline uploads");
+    private static final Counter SALES_REJECTED = MetricsRegistry.global()
+            .counter("shop_sales_rejected_total", "Sales rejected for missing stock or expired products");
+
     private final Store store;
     private final ReceiptRepository receiptRepository;
     private final SaleRepository saleRepository;
+    private final Object syncLock = new Object();
 
     public SalesServiceImpl(Store store, ReceiptRepository receiptRepository, SaleRepository saleRepository) {
         this.store = store;
@@ -52,14 +74,111 @@ public class SalesServiceImpl implements SalesService {
     public Receipt completeSale(Sale sale, PaymentMethod paymentMethod)
             throws InsufficientQuantityException, ExpiredProductException {
 
-        Receipt receipt = store.processSale(sale.getItems(), sale.getCashier());
+        long started = System.nanoTime();
+        try {
+            Receipt receipt = store.processSale(sale, paymentMethod);
 
-        sale.completeSale(paymentMethod, receipt.getTotalAmount(), receipt);
+            sale.completeSale(paymentMethod, receipt.getTotalAmount(), receipt);
 
-        receiptRepository.save(receipt);
-        saleRepository.save(sale);
+            receiptRepository.save(receipt);
+            saleRepository.save(sale);
+            store.syncJournal();
 
-        return receipt;
+            SALES_COMPLETED.increment();
+            return receipt;
+        } catch (InsufficientQuantityException | ExpiredProductException e) {
+            SALES_REJECTED.increment();
+            throw e;
+        } finally {
+            COMPLETE_SALE_LATENCY.recordSince(started);
+        }
+    }
+
+    @Override
+    public List<SaleSyncResult> completeSales(List<OfflineSale> sales) {
+        ValidationUtils.validateNotNull(sales, "Sales cannot be null");
+
+        // Held across the key check and the recording so two uploads of the same batch cannot both complete it
+        synchronized (syncLock) {
+            SaleSyncResult[] results = new SaleSyncResult[sales.size()];
+            List<OfflineSale> pending = new ArrayList<>(sales.size());
+            List<Integer> pendingIndexes = new ArrayList<>(sales.size());
+            Map<String, Integer> firstIndexByKey = new HashMap<>();
+            Set<Sale> claimedSales = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < sales.size(); i++) {
+                OfflineSale offlineSale = sales.get(i);
+                String key = offlineSale.getIdempotencyKey();
+                // The store journals completed keys with their sale, so this holds across restarts
+                Receipt previous = store.findSyncedReceipt(key);
+                if (previous != null) {
+                    results[i] = SaleSyncResult.duplicate(key, previous);
+                } else if (firstIndexByKey.putIfAbsent(key, i) != null) {
+                    continue;
+                } else if (offlineSale.getSale().isCompleted() || !claimedSales.add(offlineSale.getSale())) {
+                    // Rejected up front, completing it after the store recorded the batch would throw midway
+                    results[i] = SaleSyncResult.rejected(key, SyncStatus.ALREADY_COMPLETED, "Sale is already completed");
+                } else {
+                    pending.add(offlineSale);
+                    pendingIndexes.add(i);
+                }
+            }
+
+            // Ids are handed out before the store journals the sales, a rejected sale just leaves a gap
+            int unnumbered = 0;
+            for (OfflineSale offlineSale : pending) {
+                if (offlineSale.getSale().getSaleId() == 0) {
+                    unnumbered++;
+                }
+            }
+            int saleId = saleRepository.allocateIds(unnumbered);
+            for (OfflineSale offlineSale : pending) {
+                if (offlineSale.getSale().getSaleId() == 0) {
+                    offlineSale.getSale().setSaleId(saleId++);
+                }
+            }
+
+            List<SaleSyncResult> processed = pending.isEmpty() ? List.of() : store.processSales(pending);
+
+            int completedCount = 0;
+            for (SaleSyncResult result : processed) {
+                if (result.isCompleted()) {
+                    completedCount++;
+                }
+            }
+
+            SALES_COMPLETED.add(completedCount);
+            SALES_REJECTED.add(processed.size() - completedCount);
+            for (int p = 0; p < processed.size(); p++) {
+                SaleSyncResult result = processed.get(p);
+                results[pendingIndexes.get(p)] = result;
+                if (!result.isCompleted()) {
+                    continue;
+                }
+
+                OfflineSale offlineSale = pending.get(p);
+                Sale sale = offlineSale.getSale();
+                Receipt receipt = result.getReceipt();
+                sale.setSaleDateTime(offlineSale.getClientTimestamp());
+                sale.completeSale(offlineSale.getPaymentMethod(), receipt.getTotalAmount(), receipt);
+
+                receiptRepository.save(receipt);
+                saleRepository.save(sale);
+            }
+
+            // Repeats of a key inside the batch answer with whatever its first occurrence produced
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    String key = sales.get(i).getIdempotencyKey();
+                    SaleSyncResult first = results[firstIndexByKey.get(key)];
+                    results[i] = first.isCompleted() ? SaleSyncResult.duplicate(key, first.getReceipt()) : first;
+                }
+            }
+
+            if (!processed.isEmpty()) {
+                store.syncJournal();
+            }
+            return Arrays.asList(results);
+        }
     }
 
     @Override
@@ -0,0 +1,341 @@
+package com.shop.tools;
+
+import com.shop.enums.PaymentMethod;
+import com.shop.enums.ProductCategory;
+import com.shop.exceptions.ExpiredProductException;
+import com.shop.exceptions.InsufficientQuantityException;
+import com.shop.model.person.Cashier;
+import com.shop.model.product.Product;
+import com.shop.model.sales.Sale;
+import com.shop.model.store.Store;
+import com.shop.repository.EmployeeRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.repository.ReceiptRepository;
+import com.shop.repository.SaleRepository;
+import com.shop.service.EmployeeService;
+import com.shop.service.InventoryService;
+import com.shop.service.SalesService;
+import com.shop.service.impl.EmployeeServiceImpl;
+import com.shop.service.impl.InventoryServiceImpl;
+import com.shop.service.impl.SalesServiceImpl;
+import com.shop.utils.BusinessClock;
+import com.shop.utils.FileUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a number of registers ringing up sales against one store, each register on its own thread,
+ * and reports throughput with completeSale latency percentiles. Products are picked by a Zipf popularity
+ * distribution and basket sizes are geometric around a configurable mean. Registers run virtual threads
+ * when the runtime provides them and fall back to platform threads otherwise.
+ * <p>
+ * Usage: {@code LoadGenerator [--registers N] [--duration S] [--warmup S] [--products N] [--zipf S]
+ * [--basket-mean N] [--basket-max N] [--max-quantity N] [--platform-threads] [--format text|csv] [--output FILE]}
+ */
+public class LoadGenerator {
+
+    private static final int PRODUCT_STOCK = Integer.MAX_VALUE / 4;
+    private static final PaymentMethod[] PAYMENT_METHODS = PaymentMethod.values();
+
+    private int registers = 16;
+    private double durationSeconds = 10;
+    private double warmupSeconds = 2;
+    private int catalogSize = 1_000;
+    private double zipfExponent = 1.0;
+    private double basketMean = 6;
+    private int basketMax = 40;
+    private int maxQuantityPerLine = 3;
+    private boolean virtualThreads = true;
+    private long seed = 42;
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        String format = "text";
+        String output = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--platform-threads")) {
+                generator.setVirtualThreads(false);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--registers" -> generator.setRegisters(Integer.parseInt(value));
+                case "--duration" -> generator.setDurationSeconds(Double.parseDouble(value));
+                case "--warmup" -> generator.setWarmupSeconds(Double.parseDouble(value));
+                case "--products" -> generator.setCatalogSize(Integer.parseInt(value));
+                case "--zipf" -> generator.setZipfExponent(Double.parseDouble(value));
+                case "--basket-mean" -> generator.setBasketMean(Double.parseDouble(value));
+                case "--basket-max" -> generator.setBasketMax(Integer.parseInt(value));
+                case "--max-quantity" -> generator.setMaxQuantityPerLine(Integer.parseInt(value));
+                case "--seed" -> generator.setSeed(Long.parseLong(value));
+                case "--format" -> format = value;
+                case "--output" -> output = value;
+                default -> throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (!format.equals("text") && !format.equals("csv")) {
+            throw new IllegalArgumentException("Format must be text or csv");
+        }
+
+        LoadReport report = generator.run();
+        String rendered = format.equals("csv") ? report.toCsv() : report.toText();
+        System.out.print(rendered);
+        if (output != null) {
+            FileUtils.writeToFile(output, rendered);
+        }
+    }
+
+    public LoadReport run() throws InterruptedException {
+        Store store = new Store("Load Test Shop", 20.0, 15.0, 5, 30.0);
+        InventoryService inventoryService = new InventoryServiceImpl(store, new ProductRepository());
+        EmployeeService employeeService = new EmployeeServiceImpl(store, new EmployeeRepository());
+        SalesService salesService = new SalesServiceImpl(store, new ReceiptRepository(), new SaleRepository());
+
+        List<Product> catalog = createCatalog(inventoryService);
+        ZipfDistribution popularity = new ZipfDistribution(catalog.size(), zipfExponent);
+
+        ThreadFactory threadFactory = virtualThreads ? virtualThreadFactory() : null;
+        String threadKind = threadFactory != null ? "virtual" : "platform";
+        if (threadFactory == null) {
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+
+        CountDownLatch startSignal = new CountDownLatch(1);
+        long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+        long measureFrom = startNanos + (long) (warmupSeconds * 1e9);
+        long measureUntil = measureFrom + (long) (durationSeconds * 1e9);
+
+        List<RegisterWorker> workers = new ArrayList<>(registers);
+        List<Thread> threads = new ArrayList<>(registers);
+        for (int registerNumber = 1; registerNumber <= registers; registerNumber++) {
+            Cashier cashier = employeeService.addCashier("Cashier " + registerNumber, 1500.0, registerNumber);
+            if (store.getRegister(registerNumber) != null) {
+                employeeService.assignCashierToRegister(cashier.getId(), registerNumber);
+            }
+
+            RegisterWorker worker = new RegisterWorker(salesService, cashier, catalog, popularity,
+                    new SplittableRandom(seed + registerNumber), startSignal, measureFrom, measureUntil);
+            Thread thread = threadFactory.newThread(worker);
+            thread.setName("register-" + registerNumber);
+            workers.add(worker);
+            threads.add(thread);
+            thread.start();
+        }
+
+        startSignal.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long completed = 0;
+        long failed = 0;
+        long items = 0;
+        int latencyCount = 0;
+        for (RegisterWorker worker : workers) {
+            if (worker.error != null) {
+                throw new IllegalStateException("Register failed during the load run", worker.error);
+            }
+            completed += worker.completed;
+            failed += worker.failed;
+            items += worker.items;
+            latencyCount += worker.latencyCount;
+        }
+
+        long[] latencies = new long[latencyCount];
+        int offset = 0;
+        for (RegisterWorker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.latencyCount);
+            offset += worker.latencyCount;
+        }
+
+        return new LoadReport(registers, threadKind, measureUntil - measureFrom, completed, failed, items, latencies);
+    }
+
+    private List<Product> createCatalog(InventoryService inventoryService) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Product> catalog = new ArrayList<>(catalogSize);
+        for (int i = 1; i <= catalogSize; i++) {
+            ProductCategory category = (i & 1) == 0 ? ProductCategory.FOOD : ProductCategory.NON_FOOD;
+            double purchasePrice = 0.5 + random.nextInt(1, 10_000) / 100.0;
+            catalog.add(inventoryService.addProduct(category, "Product " + i, purchasePrice,
+                    BusinessClock.get().today().plusDays(365 + random.nextInt(365)), PRODUCT_STOCK));
+        }
+        return catalog;
+    }
+
+    int sampleBasketSize(SplittableRandom random) {
+        if (basketMean <= 1) {
+            return 1;
+        }
+        // Geometric on 1, 2, 3, ... with the configured mean
+        double failureProbability = 1 - 1 / basketMean;
+        int size = 1 + (int) (Math.log(1 - random.nextDouble()) / Math.log(failureProbability));
+        return Math.min(size, basketMax);
+    }
+
+    // Virtual threads arrived in Java 21 while the build targets 17, so they are looked up reflectively
+    static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public void setRegisters(int registers) {
+        if (registers <= 0) {
+            throw new IllegalArgumentException("Register count must be positive");
+        }
+        this.registers = registers;
+    }
+
+    public void setDurationSeconds(double durationSeconds) {
+        if (durationSeconds <= 0) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        this.durationSeconds = durationSeconds;
+    }
+
+    public void setWarmupSeconds(double warmupSeconds) {
+        if (warmupSeconds < 0) {
+            throw new IllegalArgumentException("Warm-up cannot be negative");
+        }
+        this.warmupSeconds = warmupSeconds;
+    }
+
+    public void setCatalogSize(int catalogSize) {
+        if (catalogSize <= 0) {
+            throw new IllegalArgumentException("Catalog size must be positive");
+        }
+        this.catalogSize = catalogSize;
+    }
+
+    public void setZipfExponent(double zipfExponent) {
+        this.zipfExponent = zipfExponent;
+    }
+
+    public void setBasketMean(double basketMean) {
+        if (basketMean < 1) {
+            throw new IllegalArgumentException("Mean basket size must be at least 1");
+        }
+        this.basketMean = basketMean;
+    }
+
+    public void setBasketMax(int basketMax) {
+        if (basketMax <= 0) {
+            throw new IllegalArgumentException("Maximum basket size must be positive");
+        }
+        this.basketMax = basketMax;
+    }
+
+    public void setMaxQuantityPerLine(int maxQuantityPerLine) {
+        if (maxQuantityPerLine <= 0) {
+            throw new IllegalArgumentException("Maximum quantity per line must be positive");
+        }
+        this.maxQuantityPerLine = maxQuantityPerLine;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    private class RegisterWorker implements Runnable {
+        private final SalesService salesService;
+        private final Cashier cashier;
+        private final List<Product> catalog;
+        private final ZipfDistribution popularity;
+        private final SplittableRandom random;
+        private final CountDownLatch startSignal;
+        private final long measureFrom;
+        private final long measureUntil;
+
+        private long[] latencies = new long[1024];
+        private int latencyCount;
+        private long completed;
+        private long failed;
+        private long items;
+        private Throwable error;
+
+        private RegisterWorker(SalesService salesService, Cashier cashier, List<Product> catalog,
+                               ZipfDistribution popularity, SplittableRandom random, CountDownLatch startSignal,
+                               long measureFrom, long measureUntil) {
+            this.salesService = salesService;
+            this.cashier = cashier;
+            this.catalog = catalog;
+            this.popularity = popularity;
+            this.random = random;
+            this.startSignal = startSignal;
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        @Override
+        public void run() {
+            try {
+                startSignal.await();
+                long now = System.nanoTime();
+                while (now < measureUntil) {
+                    Sale sale = salesService.createSale(cashier);
+                    int basketSize = sampleBasketSize(random);
+                    int lineItems = 0;
+                    for (int i = 0; i < basketSize; i++) {
+                        int quantity = 1 + random.nextInt(maxQuantityPerLine);
+                        salesService.addItemToSale(sale, catalog.get(popularity.sample(random)), quantity);
+                        lineItems += quantity;
+                    }
+
+                    long started = System.nanoTime();
+                    boolean succeeded = true;
+                    try {
+                        salesService.completeSale(sale, PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)]);
+                    } catch (InsufficientQuantityException | ExpiredProductException e) {
+                        succeeded = false;
+                    }
+                    now = System.nanoTime();
+
+                    // Sales finishing during the warm-up are not counted
+                    if (started >= measureFrom && now <= measureUntil) {
+                        record(now - started, succeeded, lineItems);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException | Error e) {
+                error = e;
+            }
+        }
+
+        private void record(long latencyNanos, boolean succeeded, int lineItems) {
+            if (!succeeded) {
+                failed++;
+                return;
+            }
+            completed++;
+            items += lineItems;
+            if (latencyCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[latencyCount++] = latencyNanos;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.shop.tools;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+public class LoadReport {
+
+    private final int registers;
+    private final String threadKind;
+    private final long elapsedNanos;
+    private final long completedSales;
+    private final long failedSales;
+    private final long itemsSold;
+    private final long[] sortedLatencies;
+
+    public LoadReport(int registers, String threadKind, long elapsedNanos, long completedSales, long failedSales,
+                      long itemsSold, long[] latencyNanos) {
+        this.registers = registers;
+        this.threadKind = threadKind;
+        this.elapsedNanos = elapsedNanos;
+        this.completedSales = completedSales;
+        this.failedSales = failedSales;
+        this.itemsSold = itemsSold;
+        this.sortedLatencies = latencyNanos.clone();
+        Arrays.sort(this.sortedLatencies);
+    }
+
+    public int getRegisters() {
+        return registers;
+    }
+
+    public String getThreadKind() {
+        return threadKind;
+    }
+
+    public long getCompletedSales() {
+        return completedSales;
+    }
+
+    public long getFailedSales() {
+        return failedSales;
+    }
+
+    public long getItemsSold() {
+        return itemsSold;
+    }
+
+    public double getSalesPerSecond() {
+        return elapsedNanos > 0 ? completedSales * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+
+    // Latency of completeSale at the given quantile (0..1), in nanoseconds, by the nearest-rank method
+    public long getLatencyNanos(double quantile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sortedLatencies.length);
+        return sortedLatencies[Math.max(0, Math.min(rank, sortedLatencies.length) - 1)];
+    }
+
+    public long getMaxLatencyNanos() {
+        return sortedLatencies.length == 0 ? 0 : sortedLatencies[sortedLatencies.length - 1];
+    }
+
+    public String toText() {
+        return String.format(Locale.ROOT,
+                "Registers:        %d (%s threads)%n" +
+                "Duration:         %.2f s%n" +
+                "Completed sales:  %d%n" +
+                "Failed sales:     %d%n" +
+                "Items sold:       %d%n" +
+                "Throughput:       %.1f sales/s%n" +
+                "completeSale p50:  %.1f us%n" +
+                "completeSale p99:  %.1f us%n" +
+                "completeSale p999: %.1f us%n" +
+                "completeSale max:  %.1f us%n",
+                registers, threadKind, elapsedNanos / 1e9, completedSales, failedSales, itemsSold,
+                getSalesPerSecond(), micros(getLatencyNanos(0.50)), micros(getLatencyNanos(0.99)),
+                micros(getLatencyNanos(0.999)), micros(getMaxLatencyNanos()));
+    }
+
+    public String toCsv() {
+        return "registers,threads,duration_s,completed_sales,failed_sales,items_sold,sales_per_s,p50_us,p99_us,p999_us,max_us\n" +
+                String.format(Locale.ROOT, "%d,%s,%.3f,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f%n",
+                        registers, threadKind, elapsedNanos / 1e9, completedSales, failedSales, itemsSold,
+                        getSalesPerSecond(), micros(getLatencyNanos(0.50)), micros(getLatencyNanos(0.99)),
+                        micros(getLatencyNanos(0.999)), micros(getMaxLatencyNanos()));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+}
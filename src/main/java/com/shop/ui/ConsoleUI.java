@@ -3,16 +3,23 @@ package com.shop.ui;
 import com.shop.enums.EmployeePosition;
 import com.shop.enums.PaymentMethod;
 import com.shop.enums.ProductCategory;
+import com.shop.enums.ProductRanking;
 import com.shop.exceptions.ExpiredProductException;
 import com.shop.exceptions.InsufficientQuantityException;
 import com.shop.model.person.Cashier;
 import com.shop.model.person.Employee;
 import com.shop.model.product.Product;
+import com.shop.model.sales.RankedProduct;
 import com.shop.model.sales.Receipt;
 import com.shop.model.sales.Sale;
 import com.shop.model.store.Store;
+import com.shop.persistence.CatalogImportResult;
 import com.shop.service.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -21,6 +28,8 @@ import java.util.Scanner;
 
 public class ConsoleUI {
 
+    private static final int MAX_REJECTED_ROWS_SHOWN = 10;
+
     private final Store store;
     private final InventoryService inventoryService;
     private final EmployeeService employeeService;
@@ -82,6 +91,7 @@ public class ConsoleUI {
                 case 2 -> addNewProduct();
                 case 3 -> updateProductQuantity();
                 case 4 -> removeProduct();
+                case 5 -> importCatalog();
                 case 0 -> running = false;
                 default -> outputPrinter.printError("Invalid choice. Please try again.");
             }
@@ -171,6 +181,25 @@ public class ConsoleUI {
         }
     }
 
+    private void importCatalog() {
+        outputPrinter.printHeader("IMPORT CATALOG");
+
+        String file = inputReader.readNonEmptyString("Enter catalog file path: ");
+        try {
+            CatalogImportResult result = inventoryService.importCatalog(Paths.get(file));
+            outputPrinter.printSuccess("Imported " + result.getImportedCount() + " products.");
+            for (CatalogImportResult.RejectedRow row : result.getRejectedRows().subList(0,
+                    Math.min(result.getRejectedCount(), MAX_REJECTED_ROWS_SHOWN))) {
+                outputPrinter.printError(row.toString());
+            }
+            if (result.getRejectedCount() > MAX_REJECTED_ROWS_SHOWN) {
+                outputPrinter.print("... and " + (result.getRejectedCount() - MAX_REJECTED_ROWS_SHOWN) + " more rejected rows");
+            }
+        } catch (IOException | InvalidPathException e) {
+            outputPrinter.printError("Failed to import catalog: " + e.getMessage());
+        }
+    }
+
     private void manageEmployees() {
         boolean running = true;
         while (running) {
@@ -373,7 +402,12 @@ public class ConsoleUI {
             try {
                 Receipt receipt = salesService.completeSale(sale, paymentMethod);
 
-                reportingService.saveReceiptToMemory(receipt);
+                // The sale is already recorded, a receipt that cannot be archived is still printed
+                try {
+                    reportingService.saveReceiptToMemory(receipt);
+                } catch (UncheckedIOException e) {
+                    outputPrinter.printError("Receipt could not be archived: " + e.getMessage());
+                }
 
                 outputPrinter.printHeader("RECEIPT");
                 outputPrinter.print(receipt.generateReceiptText());
@@ -431,6 +465,7 @@ public class ConsoleUI {
                     outputPrinter.printSuccess("Employee report generated successfully.");
                 }
                 case 5 -> viewReports();
+                case 6 -> viewBestSellers();
                 case 0 -> running = false;
                 default -> outputPrinter.printError("Invalid choice. Please try again.");
             }
@@ -459,6 +494,30 @@ public class ConsoleUI {
         outputPrinter.print(reportContent);
     }
 
+    private void viewBestSellers() {
+        outputPrinter.print("Rank by:");
+        outputPrinter.print("1. Units sold");
+        outputPrinter.print("2. Revenue");
+        outputPrinter.print("3. Margin");
+        int rankingChoice = inputReader.readInt("Enter choice: ", 1, 3);
+        ProductRanking ranking = ProductRanking.values()[rankingChoice - 1];
+
+        outputPrinter.printHeader("BEST SELLERS");
+        List<RankedProduct> bestSellers = reportingService.getBestSellers(ranking, 10);
+        if (bestSellers.isEmpty()) {
+            outputPrinter.print("No sales recorded yet.");
+            return;
+        }
+
+        int position = 1;
+        for (RankedProduct ranked : bestSellers) {
+            Product product = store.getProductLookup().findProduct(ranked.getProductId());
+            String productName = product != null ? product.getName() : "Unknown";
+            outputPrinter.print(String.format("%2d. %s (ID: %d): %d units, %.2f revenue, %.2f margin", position++,
+                    productName, ranked.getProductId(), ranked.getUnitsSold(), ranked.getRevenue(), ranked.getMargin()));
+        }
+    }
+
     private void displayStoreInfo() {
         int productCount = inventoryService.getAllProducts().size();
         int employeeCount = employeeService.getAllEmployees().size();
@@ -17,7 +17,7 @@ public class MenuHandler {
 
     public int handleInventoryMenu() {
         outputPrinter.printInventoryMenu();
-        return inputReader.readInt("Enter your choice: ", 0, 4);
+        return inputReader.readInt("Enter your choice: ", 0, 5);
     }
 
     public int handleEmployeeMenu() {
@@ -32,7 +32,7 @@ public class MenuHandler {
 
     public int handleReportsMenu() {
         outputPrinter.printReportsMenu();
-        return inputReader.readInt("Enter your choice: ", 0, 5);
+        return inputReader.readInt("Enter your choice: ", 0, 6);
     }
 
     public boolean confirmAction(String message) {
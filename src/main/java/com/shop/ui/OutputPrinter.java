@@ -42,6 +42,7 @@ public class OutputPrinter {
         System.out.println("2. Add New Product");
         System.out.println("3. Update Product Quantity");
         System.out.println("4. Remove Product");
+        System.out.println("5. Import Catalog");
         System.out.println("0. Back to Main Menu");
         printSeparator();
     }
@@ -71,6 +72,7 @@ public class OutputPrinter {
         System.out.println("3. Generate Inventory Report");
         System.out.println("4. Generate Employee Report");
         System.out.println("5. View Reports");
+        System.out.println("6. View Best Sellers");
         System.out.println("0. Back to Main Menu");
         printSeparator();
     }
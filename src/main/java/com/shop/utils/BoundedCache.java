@@ -0,0 +1,214 @@
+package com.shop.utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe LRU cache bounded by the total weight of its values rather than their count.
+ * Keys are spread over independently locked segments, each holding an equal share of the weight limit,
+ * so threads touching different keys rarely wait on each other; recency is exact within a segment.
+ * Loaders run outside the locks, so a slow render never blocks readers of other keys.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int STRING_CACHE_SEGMENTS = 16;
+
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final Segment<K, V>[] segments;
+
+    public BoundedCache(long maxWeight, ToLongFunction<V> weigher) {
+        this(maxWeight, weigher, 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(long maxWeight, ToLongFunction<V> weigher, int segmentCount) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache weight limit must be positive");
+        }
+        if (segmentCount <= 0 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a positive power of two");
+        }
+        // Never split the limit into segments too small to hold anything
+        int count = (int) Math.min(segmentCount, Integer.highestOneBit((int) Math.min(maxWeight, Integer.MAX_VALUE)));
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(maxWeight / count);
+        }
+    }
+
+    // Rough heap footprint of a String: object header, array header and two bytes per char
+    public static <K> BoundedCache<K, String> forStrings(long maxBytes) {
+        return new BoundedCache<>(maxBytes, text -> 56L + 2L * text.length(), STRING_CACHE_SEGMENTS);
+    }
+
+    public V get(K key) {
+        return segmentFor(key).get(key);
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        segmentFor(key).put(key, value, weigher.applyAsLong(value));
+    }
+
+    public V remove(K key) {
+        return segmentFor(key).remove(key);
+    }
+
+    public boolean containsKey(K key) {
+        return segmentFor(key).containsKey(key);
+    }
+
+    public List<K> keys() {
+        List<K> keys = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                keys.addAll(segment.entries.keySet());
+            }
+        }
+        return keys;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    // Each segment is read under its own lock, so the totals are not one atomic view
+    public CacheStats stats() {
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        int size = 0;
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+                misses += segment.misses;
+                evictions += segment.evictions;
+                size += segment.entries.size();
+                weight += segment.weight;
+            }
+        }
+        return new CacheStats(hits, misses, evictions, size, weight, maxWeight);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static class Segment<K, V> {
+        private final long maxWeight;
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private long weight;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        private Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        private synchronized V get(K key) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return entry.value;
+            }
+            misses++;
+            return null;
+        }
+
+        private synchronized void put(K key, V value, long valueWeight) {
+            Entry<V> previous = entries.remove(key);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            // A value heavier than the whole segment would only evict everything else
+            if (valueWeight > maxWeight) {
+                return;
+            }
+
+            entries.put(key, new Entry<>(value, valueWeight));
+            weight += valueWeight;
+            evictToLimit();
+        }
+
+        private synchronized V remove(K key) {
+            Entry<V> entry = entries.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            weight -= entry.weight;
+            return entry.value;
+        }
+
+        private synchronized boolean containsKey(K key) {
+            return entries.containsKey(key);
+        }
+
+        private void evictToLimit() {
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                weight -= eldest.next().getValue().weight;
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long weight;
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.shop.utils;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The store's notion of "today". The current date is cached as an epoch day and only recomputed when the
+ * clock passes local midnight, either by the midnight scheduler or by the first read after it, and each
+ * change of day is published to the registered rollover listeners. Tests install their own instance
+ * with a fixed {@link Clock} and move it with {@link #setClock(Clock)}.
+ */
+public class BusinessClock {
+
+    private static volatile BusinessClock current = new BusinessClock(Clock.systemDefaultZone());
+
+    private final List<DayRolloverListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Clock clock;
+    private volatile LocalDate today;
+    private volatile long epochDay;
+    private volatile long nextMidnightMillis;
+    private ScheduledExecutorService scheduler;
+
+    public BusinessClock(Clock clock) {
+        this.clock = clock;
+        this.today = LocalDate.now(clock);
+        this.epochDay = today.toEpochDay();
+        this.nextMidnightMillis = midnightAfter(today, clock);
+    }
+
+    public static BusinessClock get() {
+        return current;
+    }
+
+    public static void install(BusinessClock clock) {
+        ValidationUtils.validateNotNull(clock, "Business clock cannot be null");
+        current = clock;
+    }
+
+    public long epochDay() {
+        if (clock.millis() >= nextMidnightMillis) {
+            rollOver();
+        }
+        return epochDay;
+    }
+
+    public LocalDate today() {
+        if (clock.millis() >= nextMidnightMillis) {
+            rollOver();
+        }
+        return today;
+    }
+
+    public LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    public void setClock(Clock clock) {
+        ValidationUtils.validateNotNull(clock, "Clock cannot be null");
+        this.clock = clock;
+        rollOver();
+    }
+
+    public void addRolloverListener(DayRolloverListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeRolloverListener(DayRolloverListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Starts a daemon thread that rolls the day over at each local midnight
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "business-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleMidnight();
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private synchronized void scheduleMidnight() {
+        if (scheduler == null) {
+            return;
+        }
+        long delay = Math.max(0, nextMidnightMillis - clock.millis());
+        scheduler.schedule(() -> {
+            rollOver();
+            scheduleMidnight();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void rollOver() {
+        LocalDate previous;
+        LocalDate next;
+        synchronized (this) {
+            previous = today;
+            next = LocalDate.now(clock);
+            nextMidnightMillis = midnightAfter(next, clock);
+            if (next.equals(previous)) {
+                return;
+            }
+            today = next;
+            epochDay = next.toEpochDay();
+        }
+
+        // Listeners run outside the lock so they can read the clock themselves
+        for (DayRolloverListener listener : listeners) {
+            listener.onDayRollover(previous, next);
+        }
+    }
+
+    private static long midnightAfter(LocalDate day, Clock clock) {
+        return day.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    @FunctionalInterface
+    public interface DayRolloverListener {
+        void onDayRollover(LocalDate previousDay, LocalDate newDay);
+    }
+}
@@ -2,7 +2,6 @@ package com.shop.utils;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 
 public class DateUtils {
 
@@ -13,7 +12,7 @@ public class DateUtils {
     }
 
     public static boolean isExpired(LocalDate expirationDate) {
-        return expirationDate.isBefore(LocalDate.now());
+        return expirationDate.toEpochDay() < BusinessClock.get().epochDay();
     }
 
     public static boolean isExpiringSoon(LocalDate expirationDate, int daysThreshold) {
@@ -21,8 +20,7 @@ public class DateUtils {
     }
 
     private static boolean isWithinDays(LocalDate date, int days) {
-        LocalDate now = LocalDate.now();
-        long daysBetween = ChronoUnit.DAYS.between(now, date);
+        long daysBetween = date.toEpochDay() - BusinessClock.get().epochDay();
         return daysBetween >= 0 && daysBetween <= days;
     }
 } 
\ No newline at end of file
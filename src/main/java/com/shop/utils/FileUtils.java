@@ -1,5 +1,9 @@
 package com.shop.utils;
 
+import com.shop.metrics.Counter;
+import com.shop.metrics.LatencyHistogram;
+import com.shop.metrics.MetricsRegistry;
+
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -8,7 +12,13 @@ import java.util.List;
 
 public class FileUtils {
 
+    private static final LatencyHistogram WRITE_LATENCY = MetricsRegistry.global()
+            .histogram("shop_file_write_seconds", "Time taken to write a file");
+    private static final Counter WRITTEN_CHARS = MetricsRegistry.global()
+            .counter("shop_file_written_chars_total", "Characters written to files");
+
     public static void writeToFile(String filePath, String content) throws IOException {
+        long started = System.nanoTime();
         File file = new File(filePath);
 
         File parentDir = file.getParentFile();
@@ -19,6 +29,8 @@ public class FileUtils {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
             writer.write(content);
         }
+        WRITTEN_CHARS.add(content.length());
+        WRITE_LATENCY.recordSince(started);
     }
 
     public static String readFromFile(String filePath) throws IOException {
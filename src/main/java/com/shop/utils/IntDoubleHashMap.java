@@ -0,0 +1,184 @@
+package com.shop.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// Open-addressing int to double map for money totals, laid out like IntLongHashMap
+public class IntDoubleHashMap implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final float LOAD_FACTOR = 0.7f;
+
+    private int[] keys;
+    private double[] values;
+    private boolean[] used;
+    private int size;
+    private int resizeAt;
+
+    public IntDoubleHashMap() {
+        this(0);
+    }
+
+    public IntDoubleHashMap(int expectedSize) {
+        allocate(IntLongHashMap.capacityFor(expectedSize));
+    }
+
+    public double get(int key) {
+        return getOrDefault(key, 0.0);
+    }
+
+    public double getOrDefault(int key, double defaultValue) {
+        int slot = find(key);
+        return used[slot] ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return used[find(key)];
+    }
+
+    public void put(int key, double value) {
+        int slot = find(key);
+        if (!used[slot]) {
+            slot = insert(slot, key);
+        }
+        values[slot] = value;
+    }
+
+    // Adds delta to the entry, creating it at zero first
+    public double addTo(int key, double delta) {
+        int slot = find(key);
+        if (!used[slot]) {
+            slot = insert(slot, key);
+        }
+        return values[slot] += delta;
+    }
+
+    public void addAll(IntDoubleHashMap other) {
+        for (int slot = 0; slot < other.used.length; slot++) {
+            if (other.used[slot]) {
+                addTo(other.keys[slot], other.values[slot]);
+            }
+        }
+    }
+
+    public void forEach(EntryConsumer action) {
+        for (int slot = 0; slot < used.length; slot++) {
+            if (used[slot]) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    public int[] keys() {
+        int[] result = new int[size];
+        int next = 0;
+        for (int slot = 0; slot < used.length; slot++) {
+            if (used[slot]) {
+                result[next++] = keys[slot];
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int find(int key) {
+        int mask = used.length - 1;
+        int slot = IntLongHashMap.mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int insert(int slot, int key) {
+        if (size >= resizeAt) {
+            grow();
+            slot = find(key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = 0.0;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        allocate(oldUsed.length * 2);
+        for (int slot = 0; slot < oldUsed.length; slot++) {
+            if (oldUsed[slot]) {
+                int target = find(oldKeys[slot]);
+                used[target] = true;
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new double[capacity];
+        used = new boolean[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntDoubleHashMap)) return false;
+        IntDoubleHashMap other = (IntDoubleHashMap) o;
+        if (size != other.size) return false;
+        for (int slot = 0; slot < used.length; slot++) {
+            if (used[slot]) {
+                int otherSlot = other.find(keys[slot]);
+                if (!other.used[otherSlot] || Double.compare(other.values[otherSlot], values[slot]) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int slot = 0; slot < used.length; slot++) {
+            if (used[slot]) {
+                hash += keys[slot] ^ Double.hashCode(values[slot]);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, double value);
+    }
+}
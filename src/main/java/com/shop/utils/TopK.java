@@ -0,0 +1,93 @@
+package com.shop.utils;
+
+/**
+ * Keeps the k highest-scoring int keys seen so far in a bounded min-heap, so picking the top entries
+ * out of n candidates costs O(n log k) and never copies the candidates. Equal scores favour the lower key.
+ */
+public class TopK {
+
+    private final int[] keys;
+    private final long[] scores;
+    private int size;
+
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Top-k size cannot be negative");
+        }
+        this.keys = new int[k];
+        this.scores = new long[k];
+    }
+
+    public void offer(int key, long score) {
+        if (size < keys.length) {
+            keys[size] = key;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && ranksBelow(keys[0], scores[0], key, score)) {
+            keys[0] = key;
+            scores[0] = score;
+            siftDown(0, size);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns the kept keys from best to worst; the heap is left empty
+    public int[] drainDescending() {
+        int count = size;
+        // Heap sort: repeatedly moving the weakest entry to the end leaves the array in descending order
+        for (int end = count - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        int[] result = new int[count];
+        System.arraycopy(keys, 0, result, 0, count);
+        size = 0;
+        return result;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBelow(keys[index], scores[index], keys[parent], scores[parent])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int limit) {
+        while (true) {
+            int weakest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < limit && ranksBelow(keys[left], scores[left], keys[weakest], scores[weakest])) {
+                weakest = left;
+            }
+            if (right < limit && ranksBelow(keys[right], scores[right], keys[weakest], scores[weakest])) {
+                weakest = right;
+            }
+            if (weakest == index) {
+                return;
+            }
+            swap(index, weakest);
+            index = weakest;
+        }
+    }
+
+    private static boolean ranksBelow(int key, long score, int otherKey, long otherScore) {
+        return score < otherScore || (score == otherScore && key > otherKey);
+    }
+
+    private void swap(int i, int j) {
+        int key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
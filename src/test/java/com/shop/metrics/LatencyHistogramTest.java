@@ -0,0 +1,59 @@
+package com.shop.metrics;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverTheWholeRangeWithinThreePercent() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1_000, 123_456, 10_000_000_000L, Long.MAX_VALUE};
+        for (long value : values) {
+            long reported = LatencyHistogram.bucketValue(LatencyHistogram.bucketIndex(value));
+            assertEquals("value " + value, value, reported, Math.max(1, value * 0.032));
+        }
+    }
+
+    @Test
+    public void testQuantilesUseNearestRank() {
+        LatencyHistogram histogram = new LatencyHistogram("test_seconds", "");
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1_000, snapshot.getCount());
+        assertEquals(500_500_000L, snapshot.getSum());
+        assertEquals(1_000_000L, snapshot.getMax());
+        assertEquals(500_000, snapshot.getValueAtQuantile(0.5), 500_000 * 0.032);
+        assertEquals(990_000, snapshot.getValueAtQuantile(0.99), 990_000 * 0.032);
+        assertEquals(1_000_000, snapshot.getValueAtQuantile(1.0));
+    }
+
+    @Test
+    public void testConcurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("test_seconds", "");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(200_000, histogram.snapshot().getCount());
+        assertEquals(49_999, histogram.snapshot().getMax());
+    }
+}
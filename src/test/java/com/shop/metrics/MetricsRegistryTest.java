@@ -0,0 +1,75 @@
+package com.shop.metrics;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testScrapeRendersPrometheusText() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_sales_total", "Sales").add(3);
+        registry.gauge("test_stock_value", "Stock value", () -> 12.5);
+        registry.histogram("test_latency_seconds", "Latency").record(2_000_000);
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("# HELP test_sales_total Sales\n# TYPE test_sales_total counter\ntest_sales_total 3\n"));
+        assertTrue(text.contains("# TYPE test_stock_value gauge\ntest_stock_value 12.5\n"));
+        assertTrue(text.contains("# TYPE test_latency_seconds summary\n"));
+        assertTrue(text.contains("test_latency_seconds{quantile=\"0.99\"} 0.002\n"));
+        assertTrue(text.contains("test_latency_seconds_count 1\n"));
+        assertTrue(text.indexOf("test_latency_seconds") < text.indexOf("test_sales_total"));
+    }
+
+    @Test
+    public void testMetricsAreSharedByNameAndTyped() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("test_events_total", "Events");
+
+        assertSame(counter, registry.counter("test_events_total", "Events"));
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("test_events_total", "Events"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("bad name", "Spaces"));
+    }
+
+    @Test
+    public void testGlobalRegistryIsVisibleOverJmx() throws Exception {
+        MetricsRegistry registry = MetricsRegistry.global();
+        registry.counter("test_jmx_events_total", "Events").increment();
+        registry.histogram("test_jmx_latency_seconds", "Latency").record(1_000);
+
+        ObjectName name = registry.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        assertTrue((Long) server.getAttribute(name, "test_jmx_events_total") >= 1);
+        assertTrue((Long) server.getAttribute(name, "test_jmx_latency_seconds.Count") >= 1);
+        assertEquals(1e-6, (Double) server.getAttribute(name, "test_jmx_latency_seconds.MaxSeconds"), 1e-7);
+    }
+
+    @Test
+    public void testEndpointServesTheScrape() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_requests_total", "Requests").add(7);
+
+        try (PrometheusEndpoint endpoint = new PrometheusEndpoint(registry, 0)) {
+            URL url = new URL("http://127.0.0.1:" + endpoint.getPort() + "/metrics");
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            try (InputStream in = connection.getInputStream()) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertEquals(200, connection.getResponseCode());
+                assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+                assertTrue(body.contains("test_requests_total 7\n"));
+            }
+        }
+    }
+}
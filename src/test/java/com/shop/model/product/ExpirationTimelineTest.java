@@ -0,0 +1,187 @@
+package com.shop.model.product;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.shop.enums.ExpirationState;
+import com.shop.utils.BusinessClock;
+
+public class ExpirationTimelineTest {
+
+    private static final ZoneId ZONE = ZoneId.of("UTC");
+    private static final LocalDate START = LocalDate.of(2024, 3, 10);
+
+    private BusinessClock previous;
+    private BusinessClock clock;
+    private ExpirationTimeline timeline;
+    private List<String> transitions;
+
+    @Before
+    public void setUp() {
+        previous = BusinessClock.get();
+        clock = new BusinessClock(fixedOn(START));
+        BusinessClock.install(clock);
+
+        timeline = new ExpirationTimeline(3);
+        transitions = new ArrayList<>();
+        timeline.addListener((product, from, to) -> transitions.add(product.getName() + ":" + from + ">" + to));
+    }
+
+    @After
+    public void tearDown() {
+        BusinessClock.install(previous);
+    }
+
+    @Test
+    public void testProductsAreClassifiedWhenTracked() {
+        timeline.track(food(1, "Milk", START.plusDays(2)));
+        timeline.track(food(2, "Rice", START.plusDays(30)));
+        timeline.track(food(3, "Bread", START.minusDays(1)));
+
+        assertEquals(ExpirationState.DISCOUNTED, timeline.getState(1));
+        assertEquals(ExpirationState.FRESH, timeline.getState(2));
+        assertEquals(ExpirationState.EXPIRED, timeline.getState(3));
+        assertEquals(List.of("Milk:FRESH>DISCOUNTED", "Bread:FRESH>EXPIRED"), transitions);
+        assertEquals(1, timeline.getExpiredCount());
+    }
+
+    @Test
+    public void testRolloverOnlyMovesProductsCrossingABoundary() {
+        timeline.track(food(1, "Milk", START.plusDays(1)));
+        timeline.track(food(2, "Yogurt", START.plusDays(5)));
+        timeline.track(food(3, "Rice", START.plusDays(30)));
+        transitions.clear();
+
+        clock.addRolloverListener(timeline);
+        clock.setClock(fixedOn(START.plusDays(2)));
+
+        assertEquals(List.of("Milk:DISCOUNTED>EXPIRED", "Yogurt:FRESH>DISCOUNTED"), transitions);
+        assertEquals(1, timeline.getExpiredProducts().size());
+        assertEquals("Yogurt", timeline.getDiscountedProducts().get(0).getName());
+        assertEquals(ExpirationState.FRESH, timeline.getState(3));
+    }
+
+    @Test
+    public void testReadsCatchUpWithoutRolloverSubscription() {
+        timeline.track(food(1, "Milk", START.plusDays(1)));
+
+        clock.setClock(fixedOn(START.plusDays(10)));
+
+        assertEquals(1, timeline.getExpiredProducts().size());
+        assertTrue(timeline.getDiscountedProducts().isEmpty());
+        assertEquals(List.of("Milk:FRESH>DISCOUNTED", "Milk:DISCOUNTED>EXPIRED"), transitions);
+    }
+
+    @Test
+    public void testExpiringWithinOtherThresholdsUsesTheDayIndex() {
+        timeline.track(food(1, "Milk", START));
+        timeline.track(food(2, "Yogurt", START.plusDays(5)));
+        timeline.track(food(3, "Bread", START.minusDays(1)));
+
+        assertEquals(1, timeline.getExpiringWithin(3).size());
+        assertEquals(2, timeline.getExpiringWithin(7).size());
+    }
+
+    @Test
+    public void testWindowChangeAndUntrack() {
+        timeline.track(food(1, "Yogurt", START.plusDays(5)));
+        timeline.setDiscountWindowDays(5);
+        assertEquals(ExpirationState.DISCOUNTED, timeline.getState(1));
+
+        timeline.setDiscountWindowDays(2);
+        assertEquals(ExpirationState.FRESH, timeline.getState(1));
+
+        timeline.untrack(1);
+        assertNull(timeline.getState(1));
+        assertEquals(0, timeline.size());
+    }
+
+    @Test
+    public void testRetrackingMovesProductToItsNewDay() {
+        Product milk = food(1, "Milk", START.plusDays(1));
+        timeline.track(milk);
+
+        milk.setExpirationDate(START.plusDays(20));
+        timeline.track(milk);
+
+        assertEquals(ExpirationState.FRESH, timeline.getState(1));
+        assertTrue(timeline.getDiscountedProducts().isEmpty());
+        assertEquals(1, timeline.size());
+    }
+
+    @Test
+    public void testChangingTheExpirationDateRetracksTheProduct() {
+        Product milk = food(1, "Milk", START.plusDays(20));
+        timeline.track(milk);
+
+        milk.setExpirationDate(START.plusDays(1));
+
+        assertEquals(ExpirationState.DISCOUNTED, timeline.getState(1));
+        assertEquals(List.of("Milk:FRESH>DISCOUNTED"), transitions);
+
+        timeline.untrack(1);
+        milk.setExpirationDate(START.minusDays(1));
+        assertNull(timeline.getState(1));
+    }
+
+    @Test
+    public void testRolloverFiredByAReadRunsListenersOutsideTheLock() {
+        MovableClock movable = new MovableClock(fixedOn(START));
+        BusinessClock.install(clock = new BusinessClock(movable));
+        timeline = new ExpirationTimeline(3);
+        clock.addRolloverListener(timeline);
+        List<Boolean> lockHeld = new ArrayList<>();
+        timeline.addListener((product, from, to) -> lockHeld.add(Thread.holdsLock(timeline)));
+        timeline.track(food(1, "Milk", START.plusDays(1)));
+
+        // The day changes without anyone rolling the clock over, so the read below does it
+        movable.moveTo(fixedOn(START.plusDays(2)));
+
+        assertEquals(1, timeline.getExpiredCount());
+        assertEquals(List.of(false, false), lockHeld);
+    }
+
+    private static Product food(int id, String name, LocalDate expirationDate) {
+        return new FoodProduct(id, name, 2.0, expirationDate, 10);
+    }
+
+    private static Clock fixedOn(LocalDate day) {
+        return Clock.fixed(day.atTime(12, 0).atZone(ZONE).toInstant(), ZONE);
+    }
+
+    private static final class MovableClock extends Clock {
+        private volatile Clock delegate;
+
+        private MovableClock(Clock delegate) {
+            this.delegate = delegate;
+        }
+
+        private void moveTo(Clock clock) {
+            this.delegate = clock;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return delegate.getZone();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return delegate.withZone(zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return delegate.instant();
+        }
+    }
+}
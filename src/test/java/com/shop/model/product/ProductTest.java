@@ -73,4 +73,35 @@ public class ProductTest {
         price = foodProduct.calculateSellingPrice(5, 10, 20);
         assertEquals(2.7, price, 0.001);
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testSellingPriceIsCachedUntilInputsChange() {
+        assertEquals(3.0, foodProduct.getSellingPrice(7L, 5, 10, 20), 0.001);
+        // Same stamp, so the cached price wins even though the arguments differ
+        assertEquals(3.0, foodProduct.getSellingPrice(7L, 5, 10, 50), 0.001);
+        assertEquals(3.75, foodProduct.getSellingPrice(8L, 5, 10, 50), 0.001);
+
+        foodProduct.setPurchasePrice(4.0);
+        assertEquals(6.0, foodProduct.getSellingPrice(8L, 5, 10, 50), 0.001);
+
+        foodProduct.setExpirationDate(LocalDate.now().plusDays(1));
+        assertEquals(5.4, foodProduct.getSellingPrice(8L, 5, 10, 50), 0.001);
+
+        // Without a stamp nothing is cached
+        assertEquals(4.8, foodProduct.getSellingPrice(0L, 0, 10, 20), 0.001);
+        assertEquals(4.32, foodProduct.getSellingPrice(0L, 5, 10, 20), 0.001);
+    }
+
+    @Test
+    public void testPriceQuoteReportsTheAppliedDiscount() {
+        PriceQuote regular = foodProduct.getPriceQuote(0L, 5, 10, 20);
+        assertEquals(3.0, regular.getPrice(), 0.001);
+        assertEquals(20, regular.getMarkupPercentage(), 0.001);
+        assertFalse(regular.isDiscounted());
+
+        foodProduct.setExpirationDate(LocalDate.now().plusDays(3));
+        PriceQuote expiring = foodProduct.getPriceQuote(0L, 5, 10, 20);
+        assertEquals(2.7, expiring.getPrice(), 0.001);
+        assertEquals(10, expiring.getDiscountPercentage(), 0.001);
+    }
+}
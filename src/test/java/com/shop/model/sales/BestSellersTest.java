@@ -0,0 +1,89 @@
+package com.shop.model.sales;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.shop.enums.ProductRanking;
+import com.shop.model.person.Cashier;
+
+public class BestSellersTest {
+
+    private BestSellers bestSellers;
+    private Cashier cashier;
+
+    @Before
+    public void setUp() {
+        bestSellers = new BestSellers(2);
+        cashier = new Cashier(1, "Anna", 1500.0, 1);
+    }
+
+    @Test
+    public void testListsFollowEachRanking() {
+        // Cheap item sells the most units, the expensive one earns the most, the middle one the best margin
+        bestSellers.record(receipt(1, 10, 100, 90));
+        bestSellers.record(receipt(2, 2, 1000, 900));
+        bestSellers.record(receipt(3, 4, 400, 100));
+
+        assertEquals(List.of(1, 3), ids(bestSellers.getTop(ProductRanking.UNITS, 5)));
+        assertEquals(List.of(2, 3), ids(bestSellers.getTop(ProductRanking.REVENUE, 5)));
+        assertEquals(List.of(3, 2), ids(bestSellers.getTop(ProductRanking.MARGIN, 5)));
+        assertEquals(List.of(1), ids(bestSellers.getTop(ProductRanking.UNITS, 1)));
+    }
+
+    @Test
+    public void testProductEntersListWhenItOvertakes() {
+        bestSellers.record(receipt(1, 5, 100, 50));
+        bestSellers.record(receipt(2, 4, 100, 50));
+        bestSellers.record(receipt(3, 3, 100, 50));
+        assertEquals(List.of(1, 2), ids(bestSellers.getTop(ProductRanking.UNITS, 2)));
+
+        bestSellers.record(receipt(3, 3, 100, 50));
+        assertEquals(List.of(3, 1), ids(bestSellers.getTop(ProductRanking.UNITS, 2)));
+        assertEquals(6, bestSellers.getProduct(3).getUnitsSold());
+    }
+
+    @Test
+    public void testSaleBelowCostRefreshesMarginList() {
+        bestSellers.record(receipt(1, 1, 500, 100));
+        bestSellers.record(receipt(2, 1, 300, 100));
+        bestSellers.record(receipt(3, 1, 200, 100));
+        assertEquals(List.of(1, 2), ids(bestSellers.getTop(ProductRanking.MARGIN, 2)));
+
+        bestSellers.record(receipt(1, 10, 50, 100));
+        assertEquals(List.of(2, 3), ids(bestSellers.getTop(ProductRanking.MARGIN, 2)));
+    }
+
+    @Test
+    public void testRebuildStartsOver() {
+        bestSellers.record(receipt(1, 5, 100, 50));
+
+        List<Receipt> receipts = new ArrayList<>();
+        receipts.add(receipt(2, 1, 100, 50));
+        bestSellers.rebuild(receipts);
+
+        assertEquals(List.of(2), ids(bestSellers.getTop(ProductRanking.UNITS, 2)));
+        assertNull(bestSellers.getProduct(1));
+    }
+
+    private Receipt receipt(int productId, int quantity, long priceCents, long costCents) {
+        ReceiptLines lines = new ReceiptLines.Builder(1)
+                .add(productId, quantity, priceCents, costCents, 0, 0)
+                .build();
+        Receipt receipt = new Receipt(productId, cashier, LocalDateTime.now());
+        receipt.setLines(lines, id -> null);
+        return receipt;
+    }
+
+    private static List<Integer> ids(List<RankedProduct> ranked) {
+        List<Integer> ids = new ArrayList<>();
+        for (RankedProduct product : ranked) {
+            ids.add(product.getProductId());
+        }
+        return ids;
+    }
+}
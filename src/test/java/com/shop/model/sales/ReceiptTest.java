@@ -91,4 +91,81 @@ public class ReceiptTest {
         assertEquals(Integer.valueOf(3), receipt.getItems().get(product1));
         assertEquals(Integer.valueOf(2), receipt.getItems().get(product2));
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testLinesAreResolvedThroughTheLookup() {
+        Map<Integer, Product> catalog = new HashMap<>();
+        catalog.put(1, product1);
+        catalog.put(2, product2);
+
+        Receipt compact = new Receipt(7, cashier, LocalDateTime.now());
+        compact.setLines(new ReceiptLines.Builder(3)
+                        .add(1, 3, 250, 200, 2500, 0)
+                        .add(2, 2, 190, 150, 2500, 0)
+                        .add(3, 1, 99, 50, 2500, 0)
+                        .build(),
+                catalog::get);
+
+        // Product 3 cannot be resolved and is left out of the view
+        assertEquals(items, compact.getItems());
+        assertEquals(Integer.valueOf(3), compact.getItems().get(product1));
+        assertEquals(3, compact.getLines().size());
+        assertEquals(6, compact.getLines().getTotalQuantity());
+        assertTrue(compact.generateReceiptText().contains("Banana"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testItemsViewIsReadOnly() {
+        receipt.getItems().put(product1, 10);
+    }
+
+    @Test
+    public void testRenderingAndRefundsUseCapturedPrices() {
+        Receipt priced = new Receipt(8, cashier, LocalDateTime.now());
+        priced.setLines(new ReceiptLines.Builder(1).add(1, 4, 175, 200, 2000, 3000).build(),
+                productId -> productId == 1 ? product1 : null);
+
+        // The product price changing later must not affect the receipt
+        product1.setPurchasePrice(10.0);
+
+        assertTrue(priced.generateReceiptText().contains("Apple                x4       7.00"));
+        assertEquals(3.50, priced.calculateRefund(1, 2), 0.001);
+        assertEquals(3000, priced.getLines().getDiscountBasisPoints(0));
+        assertEquals(-100, priced.getLines().getLineMarginCents(0));
+    }
+
+    @Test
+    public void testUnresolvedProductIsRenderedAsUnknown() {
+        Receipt orphan = new Receipt(9, cashier, LocalDateTime.now());
+        orphan.setLines(new ReceiptLines.Builder(1).add(42, 1, 100, 80, 2500, 0).build(), productId -> null);
+
+        assertTrue(orphan.generateReceiptText().contains("Unknown"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRefundOfMoreThanWasSoldIsRejected() {
+        receipt.calculateRefund(1, 4);
+    }
+
+    @Test
+    public void testPackedLinesKeepEveryFieldAcrossGrowth() {
+        ReceiptLines.Builder builder = new ReceiptLines.Builder(1);
+        for (int line = 0; line < 9; line++) {
+            builder.add(Integer.MAX_VALUE - line, line + 1, 1_000_000_000_000L + line, -line, -1500, 3000 + line);
+        }
+        ReceiptLines lines = builder.build();
+
+        assertEquals(9, lines.size());
+        for (int line = 0; line < 9; line++) {
+            assertEquals(Integer.MAX_VALUE - line, lines.getProductId(line));
+            assertEquals(line + 1, lines.getQuantity(line));
+            assertEquals(1_000_000_000_000L + line, lines.getUnitPriceCents(line));
+            assertEquals(-line, lines.getUnitCostCents(line));
+            assertEquals(-1500, lines.getMarkupBasisPoints(line));
+            assertEquals(3000 + line, lines.getDiscountBasisPoints(line));
+        }
+        assertEquals(45, lines.getTotalQuantity());
+        assertEquals(8, lines.indexOf(Integer.MAX_VALUE - 8));
+        assertEquals(0, builder.build().size());
+    }
+}
@@ -0,0 +1,44 @@
+package com.shop.model.sales;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class ReportPartitionsTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    public void testShortRangesAreSplitPerDay() {
+        List<ReportPartitions.Partition> partitions = ReportPartitions.split(START, START.plusDays(9));
+
+        assertEquals(10, partitions.size());
+        assertEquals(START.plusDays(3), partitions.get(3).getStartDate());
+        assertEquals(START.plusDays(3), partitions.get(3).getEndDate());
+    }
+
+    @Test
+    public void testLongRangesAreSplitPerWeek() {
+        LocalDate end = START.plusDays(365);
+        List<ReportPartitions.Partition> partitions = ReportPartitions.split(START, end);
+
+        assertEquals(53, partitions.size());
+        assertEquals(START.plusDays(7), partitions.get(1).getStartDate());
+        assertEquals(START.plusDays(13), partitions.get(1).getEndDate());
+        assertEquals(end, partitions.get(52).getEndDate());
+        assertTrue(ReportPartitions.split(end, START).isEmpty());
+    }
+
+    @Test
+    public void testAggregateMergesEveryPartition() {
+        List<ReportPartitions.Partition> partitions = ReportPartitions.split(START, START.plusDays(99));
+
+        long days = ReportPartitions.aggregate(partitions,
+                partition -> partition.getEndDate().toEpochDay() - partition.getStartDate().toEpochDay() + 1,
+                Long::sum);
+
+        assertEquals(100, days);
+    }
+}
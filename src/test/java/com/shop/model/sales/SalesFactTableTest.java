@@ -0,0 +1,184 @@
+package com.shop.model.sales;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.shop.enums.FactDimension;
+import com.shop.enums.FactMeasure;
+import com.shop.model.person.Cashier;
+import com.shop.utils.IntLongHashMap;
+
+public class SalesFactTableTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    private SalesFactTable facts;
+    private Cashier anna;
+    private Cashier boris;
+
+    @Before
+    public void setUp() {
+        facts = new SalesFactTable(4, 1);
+        anna = new Cashier(1, "Anna", 1500.0, 1);
+        boris = new Cashier(2, "Boris", 1500.0, 2);
+    }
+
+    @Test
+    public void testSumsAndGroupsByDimension() {
+        facts.append(receipt(anna, START, new int[]{10, 11}, new int[]{2, 1}, new long[]{150, 300}));
+        facts.append(receipt(boris, START.plusDays(1), new int[]{10}, new int[]{5}, new long[]{150}));
+
+        assertEquals(3, facts.rowCount());
+        assertEquals(8, facts.sum(FactMeasure.QUANTITY, SalesFactFilter.all()));
+        assertEquals(2 * 150 + 300 + 5 * 150, facts.sum(FactMeasure.AMOUNT_CENTS, SalesFactFilter.all()));
+        assertEquals(2 * 100 + 200 + 5 * 100, facts.sum(FactMeasure.COST_CENTS, SalesFactFilter.all()));
+
+        IntLongHashMap quantityByProduct = facts.sumBy(FactDimension.PRODUCT, FactMeasure.QUANTITY, SalesFactFilter.all());
+        assertEquals(2, quantityByProduct.size());
+        assertEquals(7L, quantityByProduct.get(10));
+        assertEquals(1L, quantityByProduct.get(11));
+
+        SalesFactFilter firstDay = SalesFactFilter.between(START, START);
+        assertEquals(600, facts.sum(FactMeasure.AMOUNT_CENTS, firstDay));
+        assertEquals(750, facts.sum(FactMeasure.AMOUNT_CENTS, SalesFactFilter.all().withCashier(2)));
+        assertEquals(1, facts.sum(FactMeasure.LINES, firstDay.withProduct(10)));
+
+        IntLongHashMap amountByRegister = facts.sumBy(FactDimension.REGISTER, FactMeasure.AMOUNT_CENTS, SalesFactFilter.all());
+        assertEquals(600L, amountByRegister.get(1));
+        assertEquals(750L, amountByRegister.get(2));
+    }
+
+    @Test
+    public void testFewRowsOverAWideCatalogAreGroupedSparsely() {
+        assertTrue(SalesFactTable.groupsDensely(1_000, 5_000));
+        assertFalse(SalesFactTable.groupsDensely(1_000_000, 5_000));
+        assertFalse(SalesFactTable.groupsDensely(1 << 21, 1 << 21));
+
+        facts.append(receipt(anna, START, new int[]{3, 999_999}, new int[]{2, 1}, new long[]{150, 300}));
+        facts.append(receipt(boris, START, new int[]{3}, new int[]{4}, new long[]{150}));
+
+        IntLongHashMap[] byProduct = facts.sumBy(FactDimension.PRODUCT, SalesFactFilter.all(),
+                FactMeasure.QUANTITY, FactMeasure.AMOUNT_CENTS);
+        assertEquals(2, byProduct[0].size());
+        assertEquals(6L, byProduct[0].get(3));
+        assertEquals(1L, byProduct[0].get(999_999));
+        assertEquals(900L, byProduct[1].get(3));
+        assertEquals(300L, byProduct[1].get(999_999));
+    }
+
+    @Test
+    public void testZoneMapsSkipChunksOutsideTheFilter() {
+        // Four single-line receipts per day fill exactly one chunk per day
+        for (int day = 0; day < 5; day++) {
+            for (int i = 0; i < 4; i++) {
+                facts.append(receipt(anna, START.plusDays(day), new int[]{day + 1}, new int[]{1}, new long[]{100}));
+            }
+        }
+
+        assertEquals(5, facts.countChunksToScan(SalesFactFilter.all()));
+        assertEquals(1, facts.countChunksToScan(SalesFactFilter.between(START.plusDays(2), START.plusDays(2))));
+        assertEquals(1, facts.countChunksToScan(SalesFactFilter.all().withProduct(4)));
+        assertEquals(0, facts.countChunksToScan(SalesFactFilter.all().withCashier(2)));
+
+        IntLongHashMap byDay = facts.sumBy(FactDimension.DAY, FactMeasure.QUANTITY,
+                SalesFactFilter.between(START.plusDays(1), START.plusDays(3)));
+        assertEquals(3, byDay.size());
+        assertEquals(4L, byDay.get((int) START.plusDays(2).toEpochDay()));
+    }
+
+    @Test
+    public void testRebuildReplacesRows() {
+        facts.append(receipt(anna, START, new int[]{1, 2, 3, 4, 5}, new int[]{1, 1, 1, 1, 1}, new long[]{1, 1, 1, 1, 1}));
+        assertEquals(5, facts.rowCount());
+
+        List<Receipt> receipts = new ArrayList<>();
+        receipts.add(receipt(boris, START, new int[]{7}, new int[]{3}, new long[]{200}));
+        facts.rebuild(receipts);
+
+        assertEquals(1, facts.rowCount());
+        assertEquals(600, facts.sum(FactMeasure.AMOUNT_CENTS, SalesFactFilter.all()));
+        assertTrue(facts.sumBy(FactDimension.CASHIER, FactMeasure.LINES, SalesFactFilter.all().withCashier(1)).isEmpty());
+    }
+
+    @Test
+    public void testSeveralMeasuresAreGroupedInOneScan() {
+        facts.append(receipt(anna, START, new int[]{10, 11}, new int[]{2, 1}, new long[]{150, 300}));
+        facts.append(receipt(boris, START.plusDays(1), new int[]{10}, new int[]{5}, new long[]{150}));
+
+        IntLongHashMap[] byProduct = facts.sumBy(FactDimension.PRODUCT, SalesFactFilter.all(),
+                FactMeasure.QUANTITY, FactMeasure.AMOUNT_CENTS, FactMeasure.LINES);
+        assertEquals(3, byProduct.length);
+        assertEquals(7L, byProduct[0].get(10));
+        assertEquals(2 * 150 + 5 * 150, byProduct[1].get(10));
+        assertEquals(300L, byProduct[1].get(11));
+        assertEquals(2L, byProduct[2].get(10));
+
+        IntLongHashMap[] none = facts.sumBy(FactDimension.PRODUCT, SalesFactFilter.all().withCashier(3),
+                FactMeasure.QUANTITY, FactMeasure.AMOUNT_CENTS);
+        assertTrue(none[0].isEmpty() && none[1].isEmpty());
+    }
+
+    @Test
+    public void testReceiptsAreNeverSplitAcrossAPublishedChunk() {
+        facts.append(receipt(anna, START, new int[]{1, 2, 3}, new int[]{1, 1, 1}, new long[]{100, 100, 100}));
+        // Two lines do not fit in the one row left, so the receipt starts a new chunk
+        facts.append(receipt(anna, START, new int[]{4, 5}, new int[]{1, 1}, new long[]{100, 100}));
+        assertEquals(2, facts.countChunksToScan(SalesFactFilter.all()));
+        assertEquals(1, facts.countChunksToScan(SalesFactFilter.all().withProduct(5)));
+
+        // A receipt larger than a chunk fills as many fresh chunks as it needs
+        int[] productIds = {6, 7, 8, 9, 10, 11, 12, 13, 14};
+        int[] quantities = new int[productIds.length];
+        long[] prices = new long[productIds.length];
+        Arrays.fill(quantities, 2);
+        Arrays.fill(prices, 50);
+        facts.append(receipt(boris, START, productIds, quantities, prices));
+
+        assertEquals(14, facts.rowCount());
+        assertEquals(5, facts.countChunksToScan(SalesFactFilter.all()));
+        assertEquals(23, facts.sum(FactMeasure.QUANTITY, SalesFactFilter.all()));
+        assertEquals(900, facts.sum(FactMeasure.AMOUNT_CENTS, SalesFactFilter.all().withCashier(2)));
+    }
+
+    @Test
+    public void testGroupingWhileAppendingNeverSeesKeysOutsideItsRange() throws Exception {
+        SalesFactTable shared = new SalesFactTable(16, 1);
+        Thread writer = new Thread(() -> {
+            // Every receipt widens the product range past what a running scan has seen
+            for (int productId = 1; productId <= 20_000; productId++) {
+                shared.append(receipt(anna, START.plusDays(productId % 7), new int[]{productId}, new int[]{1}, new long[]{100}));
+            }
+        });
+        writer.start();
+
+        long lastLines = 0;
+        while (writer.isAlive()) {
+            IntLongHashMap[] byProduct = shared.sumBy(FactDimension.PRODUCT, SalesFactFilter.all(),
+                    FactMeasure.LINES, FactMeasure.QUANTITY);
+            assertEquals(byProduct[0].size(), byProduct[1].size());
+            assertTrue(byProduct[0].size() >= lastLines);
+            lastLines = byProduct[0].size();
+        }
+        writer.join();
+
+        assertEquals(20_000, shared.sumBy(FactDimension.PRODUCT, FactMeasure.LINES, SalesFactFilter.all()).size());
+    }
+
+    private static Receipt receipt(Cashier cashier, LocalDate date, int[] productIds, int[] quantities, long[] unitPrices) {
+        ReceiptLines.Builder builder = new ReceiptLines.Builder(productIds.length);
+        for (int i = 0; i < productIds.length; i++) {
+            long cost = unitPrices[i] * 2 / 3;
+            builder.add(productIds[i], quantities[i], unitPrices[i], cost, 5000, 0);
+        }
+
+        Receipt receipt = new Receipt(0, cashier, date.atTime(12, 0));
+        receipt.setLines(builder.build(), productId -> null);
+        return receipt;
+    }
+}
@@ -0,0 +1,157 @@
+package com.shop.model.sales;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.shop.enums.ProductCategory;
+import com.shop.enums.ProductRanking;
+import com.shop.model.person.Cashier;
+import com.shop.model.product.FoodProduct;
+import com.shop.model.product.Product;
+import com.shop.model.store.Store;
+
+public class SalesReportTest {
+
+    private Store store;
+    private Cashier cashier1;
+    private Cashier cashier2;
+    private Product bread;
+    private Product milk;
+    private LocalDate today;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new Store("Test Shop", 0.0, 0.0, 0, 0.0);
+        today = LocalDate.now();
+
+        bread = new FoodProduct(1, "Bread", 2.0, today.plusDays(30), 100);
+        milk = new FoodProduct(2, "Milk", 3.0, today.plusDays(30), 100);
+        store.addProduct(bread);
+        store.addProduct(milk);
+
+        cashier1 = new Cashier(1, "First", 1500.0, 1);
+        cashier2 = new Cashier(2, "Second", 1500.0, 2);
+        store.addEmployee(cashier1);
+        store.addEmployee(cashier2);
+
+        store.processSale(basket(bread, 2), cashier1);
+        store.processSale(basket(milk, 1), cashier1);
+        store.processSale(basket(bread, 3), cashier2);
+    }
+
+    private Map<Product, Integer> basket(Product product, int quantity) {
+        Map<Product, Integer> items = new HashMap<>();
+        items.put(product, quantity);
+        return items;
+    }
+
+    @Test
+    public void testGenerateReportFromLiveRollup() {
+        SalesReport report = new SalesReport();
+        report.generateReport(store, today, today);
+
+        assertEquals(3, report.getTotalTransactions());
+        assertEquals(13.0, report.getTotalSales(), 0.001);
+        assertEquals(7.0, report.getSalesByCashier().get(1), 0.001);
+        assertEquals(6.0, report.getSalesByCashier().get(2), 0.001);
+        assertEquals(5, report.getItemsSoldByProduct().get(1));
+        assertEquals(1, report.getItemsSoldByProduct().get(2));
+        assertEquals(13.0, report.getSalesByDate().get(today), 0.001);
+    }
+
+    @Test
+    public void testGenerateReportOutsideRangeIsEmpty() {
+        SalesReport report = new SalesReport();
+        report.generateReport(store, today.minusDays(7), today.minusDays(1));
+
+        assertEquals(0, report.getTotalTransactions());
+        assertTrue(report.getSalesByCashier().isEmpty());
+    }
+
+    @Test
+    public void testRollupIsRebuiltWhenReceiptsAreReplaced() {
+        List<Receipt> receipts = new ArrayList<>(store.getReceipts());
+        receipts.remove(0);
+        store.setReceipts(receipts);
+
+        SalesReport report = new SalesReport();
+        report.generateReport(store, today, today);
+
+        assertEquals(2, report.getTotalTransactions());
+        assertEquals(9.0, report.getTotalSales(), 0.001);
+    }
+
+    @Test
+    public void testParallelReportMatchesSequentialReport() {
+        // Spread the same three sales over six weeks so the range is split per week
+        List<Receipt> receipts = new ArrayList<>();
+        for (int week = 0; week < 6; week++) {
+            for (Receipt receipt : store.getReceipts()) {
+                Receipt copy = new Receipt(receipts.size() + 1, receipt.getCashier(),
+                        receipt.getDateTime().minusDays(week * 7L));
+                copy.setLines(receipt.getLines(), store.getProductLookup());
+                copy.setTotalAmount(receipt.getTotalAmount());
+                receipts.add(copy);
+            }
+        }
+        store.setReceipts(receipts);
+
+        SalesReport sequential = new SalesReport();
+        sequential.generateReport(store, today.minusDays(60), today);
+
+        int threshold = ReportPartitions.getParallelThreshold();
+        ReportPartitions.setParallelThreshold(0);
+        SalesReport parallel = new SalesReport();
+        try {
+            parallel.generateReport(store, today.minusDays(60), today);
+        } finally {
+            ReportPartitions.setParallelThreshold(threshold);
+        }
+
+        assertEquals(18, parallel.getTotalTransactions());
+        assertEquals(sequential.getTotalSales(), parallel.getTotalSales(), 0.001);
+        assertEquals(sequential.getSalesByCashier(), parallel.getSalesByCashier());
+        assertEquals(sequential.getItemsSoldByProduct(), parallel.getItemsSoldByProduct());
+        assertEquals(30, parallel.getItemsSoldByProduct().get(1));
+        assertEquals(sequential.getRevenueByProduct(), parallel.getRevenueByProduct());
+        assertEquals(6, parallel.getSalesByDate().size());
+    }
+
+    @Test
+    public void testTopProductsByRankingAndCategory() {
+        SalesReport report = new SalesReport();
+        report.generateReport(store, today, today);
+
+        List<RankedProduct> byRevenue = report.getTopProducts(ProductRanking.REVENUE, 1);
+        assertEquals(1, byRevenue.size());
+        assertEquals(1, byRevenue.get(0).getProductId());
+        assertEquals(10.0, byRevenue.get(0).getRevenue(), 0.001);
+
+        Map<ProductCategory, List<RankedProduct>> byCategory =
+                report.getTopProductsByCategory(store.getProductLookup(), ProductRanking.UNITS, 5);
+        assertEquals(1, byCategory.size());
+        List<RankedProduct> food = byCategory.get(ProductCategory.FOOD);
+        assertEquals(2, food.size());
+        assertEquals(1, food.get(0).getProductId());
+        assertEquals(2, food.get(1).getProductId());
+    }
+
+    @Test
+    public void testRemovedProductsKeepTheirNameInTheReport() {
+        store.removeProduct(milk.getId());
+
+        SalesReport report = new SalesReport();
+        report.generateReport(store, today, today);
+
+        String text = report.generateReportText(store);
+        assertTrue(text.contains("Milk (ID: 2)"));
+        assertFalse(text.contains("Unknown"));
+    }
+}
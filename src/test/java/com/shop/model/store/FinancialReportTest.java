@@ -0,0 +1,75 @@
+package com.shop.model.store;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.shop.model.person.Cashier;
+import com.shop.model.person.Manager;
+import com.shop.model.product.FoodProduct;
+import com.shop.model.product.Product;
+
+public class FinancialReportTest {
+
+    private Store store;
+    private Cashier cashier;
+    private Product bread;
+    private LocalDate today;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new Store("Test Shop", 0.0, 0.0, 0, 0.0);
+        today = LocalDate.now();
+
+        bread = new FoodProduct(1, "Bread", 2.0, today.plusDays(30), 100);
+        store.addProduct(bread);
+
+        cashier = new Cashier(1, "Cashier", 1000.0, 3);
+        store.addEmployee(cashier);
+        store.addEmployee(new Manager(2, "Manager", 2000.0, "General"));
+
+        Map<Product, Integer> items = new HashMap<>();
+        items.put(bread, 10);
+        store.processSale(items, cashier);
+    }
+
+    @Test
+    public void testRunningTotalsFollowSalesAndRestocks() throws Exception {
+        assertEquals(180.0, store.getInventoryValue(), 0.001);
+        assertEquals(20.0, store.calculateIncome(), 0.001);
+
+        store.updateProductQuantity(1, 5);
+        assertEquals(190.0, store.getInventoryValue(), 0.001);
+
+        store.removeProduct(1);
+        assertEquals(0.0, store.getInventoryValue(), 0.001);
+    }
+
+    @Test
+    public void testSalaryRollFollowsEmployeeChanges() {
+        assertEquals(3000.0, store.getTotalMonthlySalaries(), 0.001);
+
+        store.recordSalaryChange(1, 1000.0, 1500.0);
+        assertEquals(3500.0, store.getTotalMonthlySalaries(), 0.001);
+
+        store.removeEmployee(2);
+        assertEquals(1500.0, store.getTotalMonthlySalaries(), 0.001);
+    }
+
+    @Test
+    public void testGenerateReport() {
+        FinancialReport report = new FinancialReport();
+        report.generateReport(store, today, today);
+
+        assertEquals(20.0, report.getTotalSales(), 0.001);
+        assertEquals(1, report.getTotalReceiptsCount());
+        assertEquals(180.0, report.getTotalPurchases(), 0.001);
+        assertEquals(3000.0, report.getTotalSalaries(), 0.001);
+        assertEquals(20.0 - 180.0 - 3000.0, report.getTotalProfit(), 0.001);
+        assertEquals(20.0, report.getSalesByRegister().get(3), 0.001);
+    }
+}
@@ -0,0 +1,166 @@
+package com.shop.model.store;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.shop.enums.AdjustmentStatus;
+import com.shop.exceptions.ExpiredProductException;
+import com.shop.exceptions.InsufficientQuantityException;
+import com.shop.model.product.FoodProduct;
+import com.shop.model.product.Product;
+
+public class InventoryTest {
+
+    private Inventory inventory;
+    private Product product;
+
+    @Before
+    public void setUp() {
+        inventory = new Inventory();
+        product = new FoodProduct(1, "Apple", 1.0, LocalDate.now().plusDays(10), 0);
+        inventory.addProduct(product);
+    }
+
+    @Test
+    public void testConcurrentUpdatesToSameProductAreNotLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    inventory.updateQuantity(1, 2);
+                    inventory.updateQuantity(1, -1);
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(80_000, product.getQuantity());
+    }
+
+    @Test(expected = InsufficientQuantityException.class)
+    public void testUpdateQuantityBelowZero() throws InsufficientQuantityException {
+        inventory.updateQuantity(1, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateQuantityUnknownProduct() throws InsufficientQuantityException {
+        inventory.updateQuantity(42, 1);
+    }
+
+    @Test
+    public void testLowStockFollowsEveryQuantityChange() throws Exception {
+        Product pear = new FoodProduct(2, "Pear", 2.0, LocalDate.now().plusDays(10), 30);
+        inventory.addProduct(pear);
+        assertEquals(List.of(product), inventory.getProductsBelowQuantity(5));
+
+        inventory.reserveStock(Map.of(pear, 27));
+        assertEquals(List.of(product, pear), inventory.getProductsBelowQuantity(5));
+
+        inventory.updateQuantity(1, 10);
+        inventory.adjustQuantities(List.of(new StockAdjustment(2, -1)));
+        assertEquals(List.of(pear), inventory.getProductsBelowQuantity(5));
+
+        inventory.restoreQuantity(2, 8);
+        assertTrue(inventory.getProductsBelowQuantity(5).isEmpty());
+        assertEquals(List.of(product, pear), inventory.getProductsBelowQuantity(10));
+
+        inventory.removeProduct(2);
+        assertEquals(List.of(product), inventory.getProductsBelowQuantity(10));
+    }
+
+    @Test
+    public void testStockLocksAreNotCreatedOrDroppedPerProduct() throws InsufficientQuantityException {
+        int stripes = inventory.getStockLocks().size();
+        ReentrantLock lock = inventory.getStockLocks().lockFor(1);
+
+        inventory.updateQuantity(1, 1);
+        inventory.removeProduct(1);
+
+        assertEquals(stripes, inventory.getStockLocks().size());
+        assertSame(lock, inventory.getStockLocks().lockFor(1));
+    }
+
+    @Test
+    public void testWritersWaitingOnARemovedProductDoNotTouchIt() throws Exception {
+        ReentrantLock lock = inventory.getStockLocks().lockFor(1);
+        Product removed = inventory.getProductById(1);
+        int quantityBefore = removed.getQuantity();
+        double valueBefore = inventory.getInventoryValue();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+        lock.lock();
+        Thread writer;
+        try {
+            writer = new Thread(() -> {
+                try {
+                    inventory.updateQuantity(1, 5);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            writer.start();
+            while (!lock.hasQueuedThread(writer)) {
+                Thread.onSpinWait();
+            }
+            inventory.removeProduct(1);
+        } finally {
+            lock.unlock();
+        }
+        writer.join();
+
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof IllegalArgumentException);
+        assertEquals(valueBefore - removed.getPurchasePrice() * removed.getQuantity(), inventory.getInventoryValue(), 0.001);
+        assertEquals(quantityBefore, removed.getQuantity());
+    }
+
+    @Test
+    public void testReservingARemovedProductIsRejected() {
+        Product removed = inventory.removeProduct(1);
+
+        try {
+            inventory.reserveStock(Map.of(removed, 1));
+            fail("Expected the removed product to be rejected");
+        } catch (InsufficientQuantityException | ExpiredProductException e) {
+            assertTrue(e instanceof InsufficientQuantityException);
+        }
+    }
+
+    @Test
+    public void testAdjustQuantitiesReportsEachLine() {
+        Product pear = new FoodProduct(2, "Pear", 2.0, LocalDate.now().plusDays(10), 3);
+        inventory.addProduct(pear);
+
+        List<StockAdjustmentResult> results = inventory.adjustQuantities(List.of(
+                new StockAdjustment(1, 10),
+                new StockAdjustment(2, -5),
+                new StockAdjustment(42, 1),
+                new StockAdjustment(1, -4)));
+
+        assertEquals(AdjustmentStatus.APPLIED, results.get(0).getStatus());
+        assertEquals(AdjustmentStatus.INSUFFICIENT_QUANTITY, results.get(1).getStatus());
+        assertEquals(3, results.get(1).getQuantityAfter());
+        assertEquals(AdjustmentStatus.PRODUCT_NOT_FOUND, results.get(2).getStatus());
+        assertEquals(6, results.get(3).getQuantityAfter());
+        assertEquals(6, product.getQuantity());
+        assertEquals(12.0, inventory.getInventoryValue(), 0.001);
+    }
+}
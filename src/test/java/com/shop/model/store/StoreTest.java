@@ -0,0 +1,255 @@
+package com.shop.model.store;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.shop.enums.PaymentMethod;
+import com.shop.enums.SyncStatus;
+import com.shop.exceptions.ExpiredProductException;
+import com.shop.exceptions.InsufficientQuantityException;
+import com.shop.model.person.Cashier;
+import com.shop.model.product.FoodProduct;
+import com.shop.model.product.NonFoodProduct;
+import com.shop.model.product.Product;
+import com.shop.model.sales.OfflineSale;
+import com.shop.model.sales.Receipt;
+import com.shop.model.sales.ReceiptLines;
+import com.shop.model.sales.Sale;
+import com.shop.model.sales.SaleSyncResult;
+import com.shop.utils.BusinessClock;
+
+public class StoreTest {
+
+    private Store store;
+    private Product milk;
+    private Product soap;
+    private List<Cashier> cashiers;
+
+    @Before
+    public void setUp() {
+        store = new Store("Test Shop", 20.0, 15.0, 5, 30.0);
+
+        milk = new FoodProduct(1, "Milk", 2.0, LocalDate.now().plusDays(30), 1000);
+        soap = new NonFoodProduct(2, "Soap", 3.0, LocalDate.now().plusYears(1), 500);
+        store.addProduct(milk);
+        store.addProduct(soap);
+
+        cashiers = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Cashier cashier = new Cashier(i, "Cashier " + i, 1500.0, i);
+            cashier.setCurrentRegister(store.getRegister(i));
+            store.addEmployee(cashier);
+            cashiers.add(cashier);
+        }
+    }
+
+    @Test
+    public void testConcurrentStaffChangesAreNotLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int firstId = 100 + t * 1_000;
+            results.add(executor.submit(() -> {
+                for (int id = firstId; id < firstId + 1_000; id++) {
+                    store.addEmployee(new Cashier(id, "Cashier " + id, 1000.0, 0));
+                    if (id % 2 == 0) {
+                        store.removeEmployee(id);
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(5 + 2_000, store.getEmployees().size());
+        assertEquals(5 * 1500.0 + 2_000 * 1000.0, store.getTotalMonthlySalaries(), 0.001);
+    }
+
+    @Test
+    public void testConcurrentCheckoutNeverOversells() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(cashiers.size());
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (Cashier cashier : cashiers) {
+            Callable<Integer> register = () -> {
+                int completed = 0;
+                for (int i = 0; i < 400; i++) {
+                    Map<Product, Integer> basket = new HashMap<>();
+                    basket.put(milk, 1);
+                    basket.put(soap, 1);
+                    try {
+                        store.processSale(basket, cashier);
+                        completed++;
+                    } catch (InsufficientQuantityException e) {
+                        // soap runs out first, the basket must be rejected as a whole
+                    }
+                }
+                return completed;
+            };
+            results.add(executor.submit(register));
+        }
+
+        int completedSales = 0;
+        for (Future<Integer> result : results) {
+            completedSales += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(500, completedSales);
+        assertEquals(0, soap.getQuantity());
+        assertEquals(500, milk.getQuantity());
+        assertEquals(500, store.getReceipts().size());
+
+        Set<Integer> receiptNumbers = new HashSet<>();
+        for (Receipt receipt : store.getReceipts()) {
+            receiptNumbers.add(receipt.getReceiptNumber());
+        }
+        assertEquals(500, receiptNumbers.size());
+        assertEquals(501, store.getNextReceiptNumber());
+    }
+
+    @Test
+    public void testFailedBasketLeavesStockUntouched() throws ExpiredProductException {
+        Map<Product, Integer> basket = new HashMap<>();
+        basket.put(milk, 10);
+        basket.put(soap, 501);
+
+        try {
+            store.processSale(basket, cashiers.get(0));
+            fail("Expected InsufficientQuantityException");
+        } catch (InsufficientQuantityException e) {
+            assertEquals(soap, e.getProduct());
+        }
+
+        assertEquals(1000, milk.getQuantity());
+        assertEquals(500, soap.getQuantity());
+        assertTrue(store.getReceipts().isEmpty());
+    }
+
+    @Test
+    public void testReceiptLinesCapturePricesAndResolveRemovedProducts() throws Exception {
+        Map<Product, Integer> basket = new HashMap<>();
+        basket.put(milk, 2);
+        basket.put(soap, 1);
+        Receipt receipt = store.processSale(basket, cashiers.get(0));
+
+        ReceiptLines lines = receipt.getLines();
+        assertEquals(2, lines.size());
+        assertEquals(3, lines.getTotalQuantity());
+        assertEquals(240, lines.getUnitPriceCents(lines.indexOf(milk.getId())));
+        assertEquals(345, lines.getUnitPriceCents(lines.indexOf(soap.getId())));
+        assertEquals(200, lines.getUnitCostCents(lines.indexOf(milk.getId())));
+        assertEquals(2000, lines.getMarkupBasisPoints(lines.indexOf(milk.getId())));
+        assertEquals(0, lines.getDiscountBasisPoints(lines.indexOf(milk.getId())));
+        assertEquals(8.25, receipt.getTotalAmount(), 0.0001);
+
+        store.removeProduct(soap.getId());
+
+        assertEquals(basket, receipt.getItems());
+        assertSame(soap, store.getProductLookup().findProduct(soap.getId()));
+        assertNull(store.getProductById(soap.getId()));
+    }
+
+    @Test
+    public void testDiscountIsCapturedForExpiringProducts() throws Exception {
+        Product yogurt = new FoodProduct(3, "Yogurt", 1.0, LocalDate.now().plusDays(2), 10);
+        store.addProduct(yogurt);
+
+        Map<Product, Integer> basket = new HashMap<>();
+        basket.put(yogurt, 3);
+        ReceiptLines lines = store.processSale(basket, cashiers.get(0)).getLines();
+
+        assertEquals(84, lines.getUnitPriceCents(0));
+        assertEquals(3000, lines.getDiscountBasisPoints(0));
+        assertEquals(3 * (84 - 100), lines.getLineMarginCents(0));
+    }
+
+    @Test
+    public void testSellingPriceFollowsPricingSettings() {
+        long stamp = store.getPricingStamp();
+        assertEquals(2.4, store.getSellingPrice(milk), 0.001);
+        assertEquals(3.45, store.getSellingPrice(soap), 0.001);
+        assertEquals(stamp, store.getPricingStamp());
+
+        store.setFoodMarkupPercentage(50.0);
+        assertNotEquals(stamp, store.getPricingStamp());
+        assertEquals(3.0, store.getSellingPrice(milk), 0.001);
+        assertEquals(3.45, store.getSellingPrice(soap), 0.001);
+
+        store.setDaysBeforeExpirationForDiscount(60);
+        assertEquals(2.1, store.getSellingPrice(milk), 0.001);
+
+        milk.setPurchasePrice(4.0);
+        assertEquals(4.2, store.getSellingPrice(milk), 0.001);
+    }
+
+    @Test
+    public void testPricingStampChangesWithTheBusinessDay() {
+        BusinessClock previous = BusinessClock.get();
+        LocalDateTime start = LocalDate.now().atTime(12, 0);
+        BusinessClock clock = new BusinessClock(Clock.fixed(start.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+        BusinessClock.install(clock);
+        try {
+            Product yogurt = new FoodProduct(3, "Yogurt", 1.0, start.toLocalDate().plusDays(6), 10);
+            assertEquals(1.2, store.getSellingPrice(yogurt), 0.001);
+
+            clock.setClock(Clock.fixed(start.plusDays(1).atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+            assertEquals(0.84, store.getSellingPrice(yogurt), 0.001);
+        } finally {
+            BusinessClock.install(previous);
+        }
+    }
+
+    @Test
+    public void testOfflineSalesArePricedOnTheDayTheyWereRungUp() {
+        BusinessClock previous = BusinessClock.get();
+        LocalDateTime start = LocalDate.now().atTime(12, 0);
+        BusinessClock.install(new BusinessClock(Clock.fixed(start.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault())));
+        try {
+            // Expired by the time the upload arrives, but still sellable at a discount on the day it was sold
+            Product yogurt = new FoodProduct(3, "Yogurt", 1.0, start.toLocalDate().minusDays(1), 10);
+            // Inside the discount window today, but not yet on the day it was sold
+            Product cheese = new FoodProduct(4, "Cheese", 1.0, start.toLocalDate().plusDays(2), 10);
+            store.addProduct(yogurt);
+            store.addProduct(cheese);
+
+            Sale sale = new Sale(0, cashiers.get(0));
+            sale.addItem(yogurt, 1);
+            sale.addItem(cheese, 1);
+            LocalDateTime rungUp = start.minusDays(4);
+            List<SaleSyncResult> results = store.processSales(List.of(
+                    new OfflineSale("reg1-1", sale, PaymentMethod.CASH, rungUp)));
+
+            assertEquals(SyncStatus.COMPLETED, results.get(0).getStatus());
+            Receipt receipt = results.get(0).getReceipt();
+            assertEquals(rungUp, receipt.getDateTime());
+            ReceiptLines lines = receipt.getLines();
+            int yogurtLine = lines.indexOf(yogurt.getId());
+            int cheeseLine = lines.indexOf(cheese.getId());
+            assertEquals(84, lines.getUnitPriceCents(yogurtLine));
+            assertEquals(3000, lines.getDiscountBasisPoints(yogurtLine));
+            assertEquals(120, lines.getUnitPriceCents(cheeseLine));
+            assertEquals(0, lines.getDiscountBasisPoints(cheeseLine));
+        } finally {
+            BusinessClock.install(previous);
+        }
+    }
+}
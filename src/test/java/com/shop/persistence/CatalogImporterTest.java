@@ -0,0 +1,111 @@
+package com.shop.persistence;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.shop.enums.ProductCategory;
+import com.shop.model.product.Product;
+import com.shop.model.product.ProductFactory;
+import com.shop.model.store.Store;
+import com.shop.repository.ProductRepository;
+
+public class CatalogImporterTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Store store;
+    private ProductRepository productRepository;
+    private CatalogImporter importer;
+    private LocalDate future;
+
+    @Before
+    public void setUp() {
+        ProductFactory.setNextId(100);
+        store = new Store("Test Shop", 20.0, 15.0, 5, 30.0);
+        productRepository = new ProductRepository();
+        importer = new CatalogImporter(store, productRepository);
+        future = LocalDate.now().plusYears(1);
+    }
+
+    @Test
+    public void testImportsRowsAndReportsRejectedOnes() throws IOException {
+        Path file = write("category,name,purchasePrice,expirationDate,quantity",
+                "FOOD,Milk,2.50," + future + ",10",
+                "non-food,\"Soap, lavender\",1.20," + future + ",5",
+                "",
+                "FOOD,Bread,abc," + future + ",3",
+                "TOYS,Ball,4.00," + future + ",1",
+                "FOOD,Old cheese,3.00," + LocalDate.now().minusDays(3) + ",1",
+                "FOOD,Eggs,1.00," + future);
+
+        CatalogImportResult result = importer.importFile(file);
+
+        assertEquals(2, result.getImportedCount());
+        assertEquals(4, result.getRejectedCount());
+        assertEquals(5, result.getRejectedRows().get(0).getLineNumber());
+        assertTrue(result.getRejectedRows().get(0).getReason().startsWith("Invalid number"));
+        assertEquals("Unknown category: TOYS", result.getRejectedRows().get(1).getReason());
+        assertEquals("Cannot add expired product", result.getRejectedRows().get(2).getReason());
+        assertEquals(8, result.getRejectedRows().get(3).getLineNumber());
+
+        Product soap = store.getProductById(101);
+        assertEquals("Soap, lavender", soap.getName());
+        assertEquals(ProductCategory.NON_FOOD, soap.getCategory());
+        assertEquals(2, productRepository.findAll().size());
+        assertEquals(102, ProductFactory.peekNextId());
+    }
+
+    @Test
+    public void testChunksAreCommittedInFileOrder() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add("FOOD\tItem " + i + "\t1.50\t" + future + "\t" + (i % 7));
+        }
+        Path file = write(lines.toArray(new String[0]));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            importer.setChunkRows(64);
+            importer.setExecutor(executor, 3);
+            CatalogImportResult result = importer.importFile(file);
+
+            assertEquals(1000, result.getImportedCount());
+            assertEquals(0, result.getRejectedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("Item " + i, store.getProductById(100 + i).getName());
+        }
+        assertEquals(1000, store.getInventory().size());
+    }
+
+    @Test
+    public void testSplitHandlesQuotesAndColumnCounts() {
+        assertArrayEquals(new String[]{"FOOD", "Say \"cheese\"", "1", "2030-01-01", "3"},
+                CatalogImporter.split("FOOD,\"Say \"\"cheese\"\"\",1,2030-01-01,3", ','));
+        assertThrows(IllegalArgumentException.class, () -> CatalogImporter.split("FOOD,Milk,1", ','));
+        assertThrows(IllegalArgumentException.class, () -> CatalogImporter.split("FOOD,\"Milk,1,2,3", ','));
+        assertEquals(';', CatalogImporter.detectDelimiter("FOOD;Milk, fresh;1;2030-01-01;3"));
+    }
+
+    private Path write(String... lines) throws IOException {
+        Path file = tempFolder.newFile("catalog.csv").toPath();
+        Files.write(file, List.of(lines));
+        return file;
+    }
+}
@@ -0,0 +1,102 @@
+package com.shop.persistence;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.shop.enums.JournalEventType;
+
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testAppendSyncAndReplay() throws IOException {
+        Path directory = tempFolder.newFolder("journal").toPath();
+
+        try (Journal journal = new Journal(directory)) {
+            for (int i = 0; i < 100; i++) {
+                journal.append(JournalEventType.PRODUCT_REMOVED, JournalEvents.productRemoved(i));
+            }
+            journal.syncAll();
+            assertEquals(100, journal.getLastSequence());
+        }
+
+        try (Journal journal = new Journal(directory)) {
+            List<JournalRecord> records = new ArrayList<>();
+            long last = journal.replay(90, records::add);
+
+            assertEquals(100, last);
+            assertEquals(10, records.size());
+            assertEquals(91, records.get(0).getSequence());
+            assertEquals(JournalEventType.PRODUCT_REMOVED, records.get(0).getType());
+            assertEquals(90, records.get(0).openPayload().readInt());
+
+            assertEquals(101, journal.append(JournalEventType.PRODUCT_REMOVED, JournalEvents.productRemoved(1)));
+        }
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws IOException {
+        Path directory = tempFolder.newFolder("journal").toPath();
+
+        try (Journal journal = new Journal(directory)) {
+            journal.append(JournalEventType.STOCK_ADJUSTED, JournalEvents.stockAdjusted(1, 5));
+            journal.append(JournalEventType.STOCK_ADJUSTED, JournalEvents.stockAdjusted(1, 6));
+            journal.syncAll();
+        }
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (Journal journal = new Journal(directory)) {
+            List<JournalRecord> records = new ArrayList<>();
+            journal.replay(0, records::add);
+
+            assertEquals(1, records.size());
+            assertEquals(2, journal.append(JournalEventType.STOCK_ADJUSTED, JournalEvents.stockAdjusted(1, 7)));
+        }
+    }
+
+    @Test
+    public void testSegmentsRollAndOldSegmentsCanBeDeleted() throws IOException {
+        Path directory = tempFolder.newFolder("journal").toPath();
+
+        try (Journal journal = new Journal(directory, 256, 1024)) {
+            for (int i = 0; i < 200; i++) {
+                journal.syncAll();
+                journal.append(JournalEventType.PRODUCT_REMOVED, JournalEvents.productRemoved(i));
+            }
+            journal.syncAll();
+
+            List<JournalRecord> records = new ArrayList<>();
+            journal.replay(0, records::add);
+            assertEquals(200, records.size());
+
+            journal.deleteSegmentsThrough(150);
+            records.clear();
+            journal.replay(150, records::add);
+            assertEquals(50, records.size());
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+    }
+}
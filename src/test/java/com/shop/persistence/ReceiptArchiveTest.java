@@ -0,0 +1,195 @@
+package com.shop.persistence;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ReceiptArchiveTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testReceiptsAreReadableBeforeAndAfterReopening() throws Exception {
+        Path directory = tempFolder.newFolder("receipts").toPath();
+
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            archive.submit(1, "Receipt one");
+            archive.submit(2, "Receipt two – €");
+            assertEquals("Receipt one", archive.read(1));
+
+            archive.flush();
+            assertEquals("Receipt two – €", archive.read(2));
+            assertNull(archive.read(3));
+        }
+
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            assertEquals(2, archive.size());
+            assertEquals("Receipt one", archive.read(1));
+            assertEquals("Receipt two – €", archive.read(2));
+
+            archive.submit(3, "Receipt three");
+        }
+
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            assertEquals("Receipt three", archive.read(3));
+        }
+    }
+
+    @Test
+    public void testSegmentsRollAndConcurrentSubmitsAreAllWritten() throws Exception {
+        Path directory = tempFolder.newFolder("receipts").toPath();
+        int threads = 4;
+        int perThread = 500;
+
+        try (ReceiptArchive archive = new ReceiptArchive(directory, 16, 4 * 1024)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                int first = t * perThread + 1;
+                futures[t] = executor.submit(() -> {
+                    for (int number = first; number < first + perThread; number++) {
+                        archive.submit(number, "Receipt #" + number);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(path -> path.toString().endsWith(".seg")).collect(Collectors.toList());
+        }
+        assertTrue(segments.size() > 1);
+
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            assertEquals(threads * perThread, archive.size());
+            for (int number = 1; number <= threads * perThread; number++) {
+                assertEquals("Receipt #" + number, archive.read(number));
+            }
+        }
+    }
+
+    @Test
+    public void testReceiptNumbersArePagedAcrossWrittenAndQueuedReceipts() throws Exception {
+        Path directory = tempFolder.newFolder("receipts").toPath();
+
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            for (int number = 1; number <= 4; number++) {
+                archive.submit(number, "Receipt " + number);
+            }
+            archive.flush();
+            archive.submit(6, "Receipt 6");
+            archive.submit(5, "Receipt 5");
+
+            assertEquals(6, archive.size());
+            assertEquals(List.of(2, 3, 4), archive.receiptNumbers(1, 3, false));
+            assertEquals(List.of(6, 5, 4), archive.receiptNumbers(0, 3, true));
+            assertEquals(List.of(1), archive.receiptNumbers(5, 10, true));
+            assertTrue(archive.receiptNumbers(6, 10, false).isEmpty());
+        }
+    }
+
+    @Test
+    public void testDirectoryCanOnlyBeOpenedOnce() throws Exception {
+        Path directory = tempFolder.newFolder("receipts").toPath();
+
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            assertThrows(IllegalStateException.class, () -> new ReceiptArchive(directory));
+            archive.submit(1, "Receipt one");
+        }
+
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            assertEquals("Receipt one", archive.read(1));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSubmitAfterCloseIsRejected() throws Exception {
+        ReceiptArchive archive = new ReceiptArchive(tempFolder.newFolder("receipts").toPath());
+        archive.close();
+        archive.submit(1, "Too late");
+    }
+
+    @Test
+    public void testSubmitIsRejectedOnceTheWriterHasFailed() throws Exception {
+        ReceiptArchive archive = new ReceiptArchive(tempFolder.newFolder("receipts").toPath());
+        archive.submit(1, () -> {
+            throw new IllegalStateException("Render failed");
+        });
+        try {
+            archive.flush();
+            fail("Expected the write failure to surface");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        try {
+            archive.submit(2, "After the failure");
+            fail("Expected submit to be rejected");
+        } catch (UncheckedIOException e) {
+            assertFalse(archive.contains(2));
+        }
+        try {
+            archive.close();
+        } catch (IOException e) {
+            // The failure is reported again on close
+        }
+    }
+
+    @Test
+    public void testEveryAcceptedSubmitSurvivesAConcurrentClose() throws Exception {
+        Path directory = tempFolder.newFolder("receipts").toPath();
+        ReceiptArchive archive = new ReceiptArchive(directory, 16, 1024 * 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Integer> accepted = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int first = t * 1_000_000;
+            results.add(executor.submit(() -> {
+                started.countDown();
+                for (int number = first; number < first + 1_000_000; number++) {
+                    try {
+                        archive.submit(number, "Receipt " + number);
+                    } catch (IllegalStateException e) {
+                        return;
+                    }
+                    accepted.add(number);
+                }
+            }));
+        }
+        started.await();
+        Thread.sleep(20);
+        archive.close();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        try (ReceiptArchive reopened = new ReceiptArchive(directory)) {
+            assertEquals(accepted.size(), reopened.size());
+            for (int number : accepted) {
+                assertTrue(reopened.contains(number));
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.shop.persistence;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.shop.enums.EmployeePosition;
+import com.shop.enums.PaymentMethod;
+import com.shop.enums.ProductCategory;
+import com.shop.model.person.Cashier;
+import com.shop.model.product.Product;
+import com.shop.model.sales.Sale;
+import com.shop.model.store.StockAdjustment;
+import com.shop.model.store.Store;
+import com.shop.repository.EmployeeRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.repository.ReceiptRepository;
+import com.shop.repository.SaleRepository;
+import com.shop.service.EmployeeService;
+import com.shop.service.InventoryService;
+import com.shop.service.SalesService;
+import com.shop.service.impl.EmployeeServiceImpl;
+import com.shop.service.impl.InventoryServiceImpl;
+import com.shop.service.impl.SalesServiceImpl;
+
+public class StoreRecoveryTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testStoreIsRebuiltFromJournal() throws Exception {
+        Path directory = tempFolder.newFolder("journal").toPath();
+        int milkId;
+        int cashierId;
+        int saleId;
+
+        try (Journal journal = new Journal(directory)) {
+            Store store = new Store("Shop", 20.0, 15.0, 5, 30.0);
+            ProductRepository productRepository = new ProductRepository();
+            ReceiptRepository receiptRepository = new ReceiptRepository();
+            EmployeeRepository employeeRepository = new EmployeeRepository();
+            SaleRepository saleRepository = new SaleRepository();
+            assertFalse(new StoreRecovery(store, productRepository, employeeRepository, receiptRepository, saleRepository)
+                    .recover(journal));
+
+            InventoryService inventoryService = new InventoryServiceImpl(store, productRepository);
+            EmployeeService employeeService = new EmployeeServiceImpl(store, employeeRepository);
+            SalesService salesService = new SalesServiceImpl(store, receiptRepository, saleRepository);
+
+            Product milk = inventoryService.addProduct(ProductCategory.FOOD, "Milk", 2.0, LocalDate.now().plusDays(10), 50);
+            Product soap = inventoryService.addProduct(ProductCategory.NON_FOOD, "Soap", 3.0, LocalDate.now().plusDays(100), 10);
+            milkId = milk.getId();
+            inventoryService.updateProductQuantity(milkId, 5);
+            inventoryService.removeProduct(soap.getId());
+
+            Cashier cashier = (Cashier) employeeService.addEmployee("Ivan", 1500.0, EmployeePosition.CASHIER);
+            cashierId = cashier.getId();
+            employeeService.assignCashierToRegister(cashierId, 2);
+            employeeService.updateSalary(cashierId, 1700.0);
+
+            Sale sale = salesService.createSale(cashier);
+            salesService.addItemToSale(sale, milk, 4);
+            salesService.completeSale(sale, PaymentMethod.CASH);
+            saleId = sale.getSaleId();
+        }
+
+        try (Journal journal = new Journal(directory)) {
+            Store store = new Store("Shop", 20.0, 15.0, 5, 30.0);
+            ProductRepository productRepository = new ProductRepository();
+            ReceiptRepository receiptRepository = new ReceiptRepository();
+            EmployeeRepository employeeRepository = new EmployeeRepository();
+            SaleRepository saleRepository = new SaleRepository();
+
+            assertTrue(new StoreRecovery(store, productRepository, employeeRepository, receiptRepository, saleRepository)
+                    .recover(journal));
+
+            assertEquals(1, store.getInventory().size());
+            assertEquals(51, store.getProductById(milkId).getQuantity());
+            assertEquals(102.0, store.getInventoryValue(), 0.001);
+            assertEquals(1, productRepository.count());
+
+            Cashier cashier = (Cashier) store.getEmployeeById(cashierId);
+            assertEquals(1700.0, cashier.getMonthlySalary(), 0.001);
+            assertEquals(2, cashier.getRegisterNumber());
+            assertEquals(1700.0, store.getTotalMonthlySalaries(), 0.001);
+
+            assertEquals(1, store.getReceipts().size());
+            assertEquals(1, receiptRepository.count());
+            assertEquals(2, store.getNextReceiptNumber());
+            assertEquals(4 * 2.4, store.calculateIncome(), 0.001);
+            assertSame(journal, store.getJournal());
+
+            Sale sale = saleRepository.findById(saleId);
+            assertTrue(sale.isCompleted());
+            assertEquals(PaymentMethod.CASH, sale.getPaymentMethod());
+            assertSame(store.getReceipts().get(0), sale.getReceipt());
+            assertEquals(1, saleRepository.findByDateRange(LocalDate.now().minusDays(1), LocalDate.now().plusDays(1)).size());
+            assertEquals(saleId + 1, saleRepository.peekNextId());
+        }
+    }
+
+    @Test
+    public void testStockAdjustmentBatchIsOneDurableRecord() throws Exception {
+        Path directory = tempFolder.newFolder("journal").toPath();
+        int milkId;
+        int soapId;
+
+        try (Journal journal = new Journal(directory)) {
+            Store store = new Store("Shop", 20.0, 15.0, 5, 30.0);
+            ProductRepository productRepository = new ProductRepository();
+            new StoreRecovery(store, productRepository, new EmployeeRepository(), new ReceiptRepository(),
+                    new SaleRepository()).recover(journal);
+            InventoryService inventoryService = new InventoryServiceImpl(store, productRepository);
+
+            Product milk = inventoryService.addProduct(ProductCategory.FOOD, "Milk", 2.0, LocalDate.now().plusDays(10), 50);
+            Product soap = inventoryService.addProduct(ProductCategory.NON_FOOD, "Soap", 3.0, LocalDate.now().plusDays(100), 10);
+            milkId = milk.getId();
+            soapId = soap.getId();
+            long before = journal.getLastSequence();
+
+            inventoryService.adjustQuantities(List.of(new StockAdjustment(milkId, 5), new StockAdjustment(soapId, -20),
+                    new StockAdjustment(milkId, -8), new StockAdjustment(soapId, 4), new StockAdjustment(soapId, -4)));
+
+            assertEquals(before + 1, journal.getLastSequence());
+            assertEquals(journal.getLastSequence(), journal.getDurableSequence());
+            assertEquals(47, milk.getQuantity());
+            assertEquals(10, soap.getQuantity());
+        }
+
+        try (Journal journal = new Journal(directory)) {
+            Store store = new Store("Shop", 20.0, 15.0, 5, 30.0);
+            new StoreRecovery(store, new ProductRepository(), new EmployeeRepository(), new ReceiptRepository(),
+                    new SaleRepository()).recover(journal);
+
+            assertEquals(47, store.getProductById(milkId).getQuantity());
+            assertEquals(10, store.getProductById(soapId).getQuantity());
+            assertEquals(47 * 2.0 + 10 * 3.0, store.getInventoryValue(), 0.001);
+        }
+    }
+}
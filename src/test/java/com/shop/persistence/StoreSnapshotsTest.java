@@ -0,0 +1,273 @@
+package com.shop.persistence;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.shop.enums.EmployeePosition;
+import com.shop.enums.PaymentMethod;
+import com.shop.enums.ProductCategory;
+import com.shop.enums.SyncStatus;
+import com.shop.model.person.Cashier;
+import com.shop.model.product.Product;
+import com.shop.model.product.ProductFactory;
+import com.shop.model.sales.OfflineSale;
+import com.shop.model.sales.Receipt;
+import com.shop.model.sales.Sale;
+import com.shop.model.sales.SaleSyncResult;
+import com.shop.model.store.Store;
+import com.shop.repository.EmployeeRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.repository.ReceiptRepository;
+import com.shop.repository.SaleRepository;
+import com.shop.service.EmployeeService;
+import com.shop.service.InventoryService;
+import com.shop.service.SalesService;
+import com.shop.service.impl.EmployeeServiceImpl;
+import com.shop.service.impl.InventoryServiceImpl;
+import com.shop.service.impl.SalesServiceImpl;
+
+public class StoreSnapshotsTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path journalDirectory;
+    private Path snapshotDirectory;
+
+    private Store store;
+    private ProductRepository productRepository;
+    private EmployeeRepository employeeRepository;
+    private ReceiptRepository receiptRepository;
+    private SaleRepository saleRepository;
+
+    @Before
+    public void setUp() throws IOException {
+        journalDirectory = tempFolder.newFolder("journal").toPath();
+        snapshotDirectory = tempFolder.newFolder("snapshots").toPath();
+        ProductFactory.setNextId(1);
+    }
+
+    @Test
+    public void testRecoveryLoadsSnapshotAndReplaysOnlyTheTail() throws Exception {
+        int milkId;
+        int soapId;
+        int cashierId;
+        int nextProductId;
+
+        try (Journal journal = new Journal(journalDirectory)) {
+            StoreSnapshots snapshots = openStore(journal);
+
+            InventoryService inventoryService = new InventoryServiceImpl(store, productRepository);
+            EmployeeService employeeService = new EmployeeServiceImpl(store, employeeRepository);
+            SalesService salesService = new SalesServiceImpl(store, receiptRepository, saleRepository);
+
+            Product milk = inventoryService.addProduct(ProductCategory.FOOD, "Milk", 2.0, LocalDate.now().plusDays(10), 50);
+            Product soap = inventoryService.addProduct(ProductCategory.NON_FOOD, "Soap", 3.0, LocalDate.now().plusDays(100), 10);
+            milkId = milk.getId();
+            soapId = soap.getId();
+
+            Cashier cashier = (Cashier) employeeService.addEmployee("Ivan", 1500.0, EmployeePosition.CASHIER);
+            cashierId = cashier.getId();
+            employeeService.assignCashierToRegister(cashierId, 2);
+            completeSale(salesService, cashier, soap, 2);
+
+            // Soap only survives in the receipt once it has been removed
+            inventoryService.removeProduct(soapId);
+            long snapshotSequence = snapshots.write();
+            assertEquals(journal.getLastSequence(), snapshotSequence);
+
+            completeSale(salesService, cashier, milk, 4);
+            inventoryService.updateProductQuantity(milkId, 5);
+            nextProductId = ProductFactory.peekNextId();
+        }
+
+        ProductFactory.setNextId(1);
+        try (Journal journal = new Journal(journalDirectory)) {
+            StoreSnapshots snapshots = new StoreSnapshots(snapshotDirectory, store = newStore(),
+                    productRepository = new ProductRepository(), employeeRepository = new EmployeeRepository(),
+                    receiptRepository = new ReceiptRepository(), saleRepository = new SaleRepository());
+            StoreRecovery recovery = new StoreRecovery(store, productRepository, employeeRepository, receiptRepository, saleRepository);
+            assertTrue(recovery.recover(journal, snapshots));
+
+            assertEquals(1, store.getInventory().size());
+            assertEquals(51, store.getProductById(milkId).getQuantity());
+            assertEquals(102.0, store.getInventoryValue(), 0.001);
+            assertEquals(1, productRepository.count());
+            assertEquals(nextProductId, ProductFactory.peekNextId());
+
+            Cashier cashier = (Cashier) store.getEmployeeById(cashierId);
+            assertSame(cashier, store.getRegister(2).getCurrentCashier());
+            assertEquals(1500.0, store.getTotalMonthlySalaries(), 0.001);
+
+            List<Receipt> receipts = store.getReceipts();
+            assertEquals(2, receipts.size());
+            assertEquals(2, receiptRepository.count());
+            assertEquals(3, store.getNextReceiptNumber());
+            Product soap = receipts.get(0).getItems().keySet().iterator().next();
+            assertEquals(soapId, soap.getId());
+            assertEquals("Soap", soap.getName());
+            assertEquals(2 * 3.45 + 4 * 2.4, store.calculateIncome(), 0.001);
+
+            // One sale comes back from the snapshot's receipts, the other from the journal tail
+            assertEquals(2, saleRepository.count());
+            for (Receipt receipt : receipts) {
+                Sale sale = saleRepository.findById(receipt.getSaleId());
+                assertSame(receipt, sale.getReceipt());
+                assertEquals(PaymentMethod.CASH, sale.getPaymentMethod());
+            }
+        }
+    }
+
+    @Test
+    public void testCorruptSnapshotFallsBackToPreviousOne() throws Exception {
+        try (Journal journal = new Journal(journalDirectory)) {
+            StoreSnapshots snapshots = openStore(journal);
+            InventoryService inventoryService = new InventoryServiceImpl(store, productRepository);
+
+            inventoryService.addProduct(ProductCategory.FOOD, "Milk", 2.0, LocalDate.now().plusDays(10), 50);
+            snapshots.write();
+            inventoryService.addProduct(ProductCategory.FOOD, "Bread", 1.0, LocalDate.now().plusDays(3), 20);
+            snapshots.write();
+        }
+
+        List<Path> files = listSnapshots();
+        assertEquals(2, files.size());
+        Path newest = files.get(files.size() - 1);
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(newest, bytes);
+
+        try (Journal journal = new Journal(journalDirectory)) {
+            StoreSnapshots snapshots = openStore(journal);
+
+            assertEquals(2, store.getInventory().size());
+            assertEquals(120.0, store.getInventoryValue(), 0.001);
+            snapshots.close();
+        }
+    }
+
+    @Test
+    public void testSnapshotWaitsForTheJournalAndPricingChangesAreReplayed() throws Exception {
+        try (Journal journal = new Journal(journalDirectory)) {
+            StoreSnapshots snapshots = openStore(journal);
+            InventoryService inventoryService = new InventoryServiceImpl(store, productRepository);
+
+            inventoryService.addProduct(ProductCategory.FOOD, "Milk", 2.0, LocalDate.now().plusDays(10), 50);
+            store.setFoodMarkupPercentage(25.0);
+            store.setDiscountPercentage(40.0);
+            long snapshotSequence = snapshots.write();
+            assertTrue(journal.getDurableSequence() >= snapshotSequence);
+
+            store.setNonFoodMarkupPercentage(10.0);
+            store.setDaysBeforeExpirationForDiscount(3);
+        }
+
+        try (Journal journal = new Journal(journalDirectory)) {
+            openStore(journal);
+
+            assertEquals(25.0, store.getFoodMarkupPercentage(), 0.001);
+            assertEquals(10.0, store.getNonFoodMarkupPercentage(), 0.001);
+            assertEquals(3, store.getDaysBeforeExpirationForDiscount());
+            assertEquals(40.0, store.getDiscountPercentage(), 0.001);
+            assertEquals(3, store.getExpirationTimeline().getDiscountWindowDays());
+        }
+    }
+
+    @Test
+    public void testOnlyTheNewestSnapshotsAreKept() throws Exception {
+        try (Journal journal = new Journal(journalDirectory)) {
+            StoreSnapshots snapshots = openStore(journal);
+            InventoryService inventoryService = new InventoryServiceImpl(store, productRepository);
+
+            for (int i = 0; i < 4; i++) {
+                inventoryService.addProduct(ProductCategory.NON_FOOD, "Item " + i, 1.0, LocalDate.now().plusDays(30), 1);
+                snapshots.write();
+            }
+        }
+        assertEquals(2, listSnapshots().size());
+    }
+
+    @Test
+    public void testUploadedKeysStayDuplicatesAfterRestart() throws Exception {
+        LocalDateTime rungUp = LocalDateTime.now().minusHours(1);
+        try (Journal journal = new Journal(journalDirectory)) {
+            StoreSnapshots snapshots = openStore(journal);
+            InventoryService inventoryService = new InventoryServiceImpl(store, productRepository);
+            EmployeeService employeeService = new EmployeeServiceImpl(store, employeeRepository);
+            SalesService salesService = new SalesServiceImpl(store, receiptRepository, saleRepository);
+
+            Product milk = inventoryService.addProduct(ProductCategory.FOOD, "Milk", 2.0, LocalDate.now().plusDays(10), 50);
+            Cashier cashier = (Cashier) employeeService.addEmployee("Ivan", 1500.0, EmployeePosition.CASHIER);
+
+            // One key is covered by the snapshot, the other only by the journal tail
+            salesService.completeSales(List.of(offlineSale("reg1-1", cashier, milk, rungUp)));
+            snapshots.write();
+            salesService.completeSales(List.of(offlineSale("reg1-2", cashier, milk, rungUp)));
+        }
+
+        try (Journal journal = new Journal(journalDirectory)) {
+            openStore(journal);
+            SalesService salesService = new SalesServiceImpl(store, receiptRepository, saleRepository);
+            Cashier cashier = (Cashier) store.getEmployees().get(0);
+            Product milk = store.getInventory().values().iterator().next();
+
+            List<SaleSyncResult> retry = salesService.completeSales(List.of(
+                    offlineSale("reg1-1", cashier, milk, rungUp), offlineSale("reg1-2", cashier, milk, rungUp)));
+
+            assertEquals(SyncStatus.DUPLICATE, retry.get(0).getStatus());
+            assertEquals(SyncStatus.DUPLICATE, retry.get(1).getStatus());
+            assertEquals(1, retry.get(0).getReceipt().getReceiptNumber());
+            assertEquals(2, retry.get(1).getReceipt().getReceiptNumber());
+            assertEquals(2, store.getReceipts().size());
+            assertEquals(48, milk.getQuantity());
+        }
+    }
+
+    private StoreSnapshots openStore(Journal journal) throws IOException {
+        store = newStore();
+        productRepository = new ProductRepository();
+        employeeRepository = new EmployeeRepository();
+        receiptRepository = new ReceiptRepository();
+        saleRepository = new SaleRepository();
+
+        StoreSnapshots snapshots = new StoreSnapshots(snapshotDirectory, store,
+                productRepository, employeeRepository, receiptRepository, saleRepository);
+        new StoreRecovery(store, productRepository, employeeRepository, receiptRepository, saleRepository).recover(journal, snapshots);
+        return snapshots;
+    }
+
+    private static OfflineSale offlineSale(String key, Cashier cashier, Product product, LocalDateTime rungUp) {
+        Sale sale = new Sale(0, cashier);
+        sale.addItem(product, 1);
+        return new OfflineSale(key, sale, PaymentMethod.CASH, rungUp);
+    }
+
+    private static Store newStore() {
+        return new Store("Shop", 20.0, 15.0, 5, 30.0);
+    }
+
+    private static void completeSale(SalesService salesService, Cashier cashier, Product product, int quantity)
+            throws Exception {
+        Sale sale = salesService.createSale(cashier);
+        salesService.addItemToSale(sale, product, quantity);
+        salesService.completeSale(sale, PaymentMethod.CASH);
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(snapshotDirectory)) {
+            return files.filter(path -> path.toString().endsWith(".snap")).sorted().collect(Collectors.toList());
+        }
+    }
+}
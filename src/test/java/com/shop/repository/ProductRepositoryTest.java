@@ -5,7 +5,11 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.shop.enums.ProductCategory;
 import com.shop.model.product.Product;
@@ -84,6 +88,35 @@ public class ProductRepositoryTest {
         assertFalse(soonToExpire.contains(nonFoodProduct));
     }
     
+    @Test
+    public void testFindBelowQuantityReadsStockChangedOutsideTheRepository() {
+        foodProduct.setQuantity(3);
+
+        assertTrue(repository.findBelowQuantity(20).contains(foodProduct));
+    }
+
+    @Test
+    public void testConcurrentSavesKeepIndexesConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int firstId = 100 + t * 1_000;
+            results.add(executor.submit(() -> {
+                for (int id = firstId; id < firstId + 1_000; id++) {
+                    repository.saveAll(List.of(new FoodProduct(id, "Product " + id, 1.0, LocalDate.now().plusDays(10), 1)));
+                    repository.findByCategory(ProductCategory.FOOD);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(4_003, repository.count());
+        assertEquals(4_002, repository.findByCategory(ProductCategory.FOOD).size());
+    }
+
     @Test
     public void testFindBelowQuantity() {
         List<Product> lowStock = repository.findBelowQuantity(20);
@@ -112,4 +145,34 @@ public class ProductRepositoryTest {
         all = repository.findAll();
         assertEquals(2, all.size());
     }
-} 
\ No newline at end of file
+    
+    @Test
+    public void testIndexesFollowSavedChanges() {
+        foodProduct.setQuantity(5);
+        foodProduct.setExpirationDate(LocalDate.now().minusDays(1));
+        repository.save(foodProduct);
+        
+        List<Product> lowStock = repository.findBelowQuantity(20);
+        assertEquals(2, lowStock.size());
+        assertTrue(lowStock.contains(foodProduct));
+        
+        List<Product> expired = repository.findExpired();
+        assertEquals(2, expired.size());
+        assertTrue(expired.contains(foodProduct));
+        assertTrue(repository.findSoonToExpire(15).isEmpty());
+        
+        nonFoodProduct.setCategory(ProductCategory.FOOD);
+        repository.save(nonFoodProduct);
+        assertEquals(3, repository.findByCategory(ProductCategory.FOOD).size());
+        assertTrue(repository.findByCategory(ProductCategory.NON_FOOD).isEmpty());
+    }
+    
+    @Test
+    public void testIndexesForgetDeletedProducts() {
+        repository.delete(3);
+        
+        assertTrue(repository.findExpired().isEmpty());
+        assertTrue(repository.findBelowQuantity(20).isEmpty());
+        assertEquals(1, repository.findByCategory(ProductCategory.FOOD).size());
+    }
+}
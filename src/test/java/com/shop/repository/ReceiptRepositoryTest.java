@@ -0,0 +1,66 @@
+package com.shop.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import com.shop.model.sales.Receipt;
+
+public class ReceiptRepositoryTest {
+
+    private ReceiptRepository repository;
+    private LocalDate today;
+    
+    @Before
+    public void setUp() {
+        repository = new ReceiptRepository();
+        today = LocalDate.now();
+        
+        for (int i = 1; i <= 10; i++) {
+            Receipt receipt = new Receipt();
+            receipt.setReceiptNumber(i);
+            receipt.setDateTime(today.minusDays(10 - i).atTime(12, 0));
+            receipt.setTotalAmount(i);
+            repository.save(receipt);
+        }
+    }
+    
+    @Test
+    public void testFindByDateRange() {
+        List<Receipt> receipts = repository.findByDateRange(today.minusDays(2), today);
+        
+        assertEquals(3, receipts.size());
+        for (Receipt receipt : receipts) {
+            assertTrue(receipt.getReceiptNumber() >= 8);
+        }
+    }
+    
+    @Test
+    public void testFindByDateRangeWithReversedDates() {
+        assertTrue(repository.findByDateRange(today, today.minusDays(2)).isEmpty());
+    }
+    
+    @Test
+    public void testResaveMovesReceiptToNewDay() {
+        Receipt receipt = repository.findById(1);
+        receipt.setDateTime(LocalDateTime.of(today, LocalTime.NOON));
+        repository.save(receipt);
+        
+        assertEquals(2, repository.findByDateRange(today, today).size());
+        assertTrue(repository.findByDateRange(today.minusDays(9), today.minusDays(9)).isEmpty());
+        assertEquals(10, repository.count());
+    }
+    
+    @Test
+    public void testDeleteRemovesFromDateIndex() {
+        repository.delete(10);
+        
+        assertTrue(repository.findByDateRange(today, today).isEmpty());
+        assertEquals(9, repository.count());
+    }
+}
@@ -13,10 +13,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import com.shop.enums.AdjustmentStatus;
 import com.shop.enums.ProductCategory;
 import com.shop.exceptions.InsufficientQuantityException;
 import com.shop.model.product.Product;
 import com.shop.model.product.FoodProduct;
+import com.shop.model.store.StockAdjustment;
+import com.shop.model.store.StockAdjustmentResult;
 import com.shop.model.store.Store;
 import com.shop.repository.ProductRepository;
 
@@ -110,12 +113,29 @@ public class InventoryServiceImplTest {
         verify(productRepository, times(1)).save(testProduct);
     }
     
+    @Test
+    public void testAdjustQuantitiesSavesEachChangedProductOnce() {
+        List<StockAdjustment> batch = List.of(new StockAdjustment(1, 5), new StockAdjustment(1, -2),
+                new StockAdjustment(7, 3));
+        when(store.adjustQuantities(batch)).thenReturn(List.of(
+                new StockAdjustmentResult(batch.get(0), AdjustmentStatus.APPLIED, 15),
+                new StockAdjustmentResult(batch.get(1), AdjustmentStatus.APPLIED, 13),
+                new StockAdjustmentResult(batch.get(2), AdjustmentStatus.PRODUCT_NOT_FOUND, 0)));
+        
+        List<StockAdjustmentResult> results = inventoryService.adjustQuantities(batch);
+        
+        assertEquals(3, results.size());
+        verify(productRepository, times(1)).saveAll(argThat(products -> products.size() == 1
+                && products.contains(testProduct)));
+        verify(productRepository, never()).save(any(Product.class));
+    }
+    
     @Test
     public void testRemoveProduct() {
         inventoryService.removeProduct(1);
         
         verify(store, times(1)).getProductById(1);
-        verify(inventoryMap, times(1)).remove(1);
+        verify(store, times(1)).removeProduct(1);
         verify(productRepository, times(1)).delete(1);
     }
 } 
\ No newline at end of file
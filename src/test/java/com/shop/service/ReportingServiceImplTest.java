@@ -4,29 +4,42 @@ import com.shop.service.impl.EmployeeServiceImpl;
 import com.shop.service.impl.InventoryServiceImpl;
 import com.shop.service.impl.ReportingServiceImpl;
 import com.shop.service.impl.SalesServiceImpl;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import static org.junit.Assert.*;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import static org.mockito.Mockito.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.shop.model.person.Cashier;
 import com.shop.model.person.Employee;
 import com.shop.model.person.Manager;
 import com.shop.model.product.Product;
 import com.shop.model.sales.Receipt;
+import com.shop.model.sales.ReceiptLines;
+import com.shop.model.sales.SalesFactTable;
 import com.shop.model.sales.SalesReport;
+import com.shop.model.sales.SalesRollup;
 import com.shop.model.store.FinancialReport;
 import com.shop.model.store.Store;
+import com.shop.persistence.ReceiptArchive;
 
 public class ReportingServiceImplTest {
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private ReportingService reportingService;
+    private ReceiptArchive receiptArchive;
     
     @Mock
     private Store store;
@@ -44,13 +57,23 @@ public class ReportingServiceImplTest {
     private Receipt mockReceipt;
     
     @Before
-    public void setUp() {
+    public void setUp() throws IOException {
         MockitoAnnotations.initMocks(this);
-        reportingService = new ReportingServiceImpl(store, inventoryServiceImpl, employeeServiceImpl);
+        receiptArchive = new ReceiptArchive(tempFolder.newFolder("receipts").toPath());
+        reportingService = new ReportingServiceImpl(store, inventoryServiceImpl, employeeServiceImpl, receiptArchive);
+
+        when(store.getSalesRollup()).thenReturn(new SalesRollup());
+        when(store.getSalesFacts()).thenReturn(new SalesFactTable());
         
         when(mockReceipt.getReceiptNumber()).thenReturn(123);
+        when(mockReceipt.getLines()).thenReturn(ReceiptLines.EMPTY);
         when(mockReceipt.generateReceiptText()).thenReturn("Mock Receipt Text");
     }
+
+    @After
+    public void tearDown() {
+        reportingService.shutdown();
+    }
     
     @Test
     public void testGenerateSalesReport() {
@@ -88,7 +111,60 @@ public class ReportingServiceImplTest {
         assertEquals(1, receipts.size());
         assertEquals("Mock Receipt Text", receipts.get(0));
     }
+
+    @Test
+    public void testReceiptTextIsRenderedOnceOffTheCheckoutThread() throws IOException {
+        List<String> renderingThreads = new CopyOnWriteArrayList<>();
+        when(mockReceipt.generateReceiptText()).thenAnswer(invocation -> {
+            renderingThreads.add(Thread.currentThread().getName());
+            return "Mock Receipt Text";
+        });
+
+        reportingService.saveReceiptToMemory(mockReceipt);
+        receiptArchive.flush();
+
+        assertEquals(List.of("receipt-archive-writer"), renderingThreads);
+        assertEquals("Mock Receipt Text", reportingService.getReportFromMemory("receipt_123"));
+        assertEquals(List.of("Mock Receipt Text"), reportingService.getAllReceiptTexts());
+        verify(mockReceipt, times(1)).generateReceiptText();
+    }
+
+    @Test
+    public void testReceiptTextsArePaged() {
+        for (int number = 1; number <= 5; number++) {
+            Receipt receipt = mock(Receipt.class);
+            when(receipt.getReceiptNumber()).thenReturn(number);
+            when(receipt.getLines()).thenReturn(ReceiptLines.EMPTY);
+            when(receipt.generateReceiptText()).thenReturn("Receipt " + number);
+            reportingService.saveReceiptToMemory(receipt);
+        }
+
+        assertEquals(5, reportingService.getReceiptCount());
+        assertEquals(List.of("Receipt 3", "Receipt 4"), reportingService.getReceiptTexts(2, 2));
+        assertEquals(List.of("Receipt 5"), reportingService.getReceiptTexts(4, 10));
+        assertTrue(reportingService.getReceiptTexts(7, 10).isEmpty());
+        assertEquals("Receipt 2", reportingService.getReportFromMemory("receipt_2"));
+        assertTrue(reportingService.getReceiptCacheStats().getHits() > 0);
+    }
     
+    @Test
+    public void testOnlyTheLatestReceiptsAreListed() {
+        for (int number = 1; number <= 25; number++) {
+            Receipt receipt = mock(Receipt.class);
+            when(receipt.getReceiptNumber()).thenReturn(number);
+            when(receipt.getLines()).thenReturn(ReceiptLines.EMPTY);
+            when(receipt.generateReceiptText()).thenReturn("Receipt " + number);
+            reportingService.saveReceiptToMemory(receipt);
+        }
+
+        List<String> reports = reportingService.getAvailableReports();
+        assertEquals(20, reports.stream().filter(name -> name.startsWith("receipt_")).count());
+        assertEquals("receipt_25", reports.get(reports.size() - 20));
+        assertFalse(reports.contains("receipt_5"));
+        assertEquals("Receipt 5", reportingService.getReportFromMemory("receipt_5"));
+        assertEquals(25, reportingService.getReceiptCount());
+    }
+
     @Test
     public void testGetReportFromMemory() {
         SalesReport mockReport = mock(SalesReport.class);
@@ -18,13 +18,16 @@ import java.util.Map;
 import com.shop.enums.EmployeePosition;
 import com.shop.enums.PaymentMethod;
 import com.shop.enums.ProductCategory;
+import com.shop.enums.SyncStatus;
 import com.shop.exceptions.ExpiredProductException;
 import com.shop.exceptions.InsufficientQuantityException;
 import com.shop.model.person.Cashier;
 import com.shop.model.product.FoodProduct;
 import com.shop.model.product.Product;
+import com.shop.model.sales.OfflineSale;
 import com.shop.model.sales.Receipt;
 import com.shop.model.sales.Sale;
+import com.shop.model.sales.SaleSyncResult;
 import com.shop.model.store.Store;
 import com.shop.repository.ReceiptRepository;
 import com.shop.repository.SaleRepository;
@@ -134,7 +137,7 @@ public class SalesServiceImplTest {
         items.put(validProduct, 2);
         sale.setItems(items);
         
-        when(store.processSale(any(), any())).thenReturn(testReceipt);
+        when(store.processSale(any(Sale.class), any(PaymentMethod.class))).thenReturn(testReceipt);
         
         // Test
         Receipt receipt = salesService.completeSale(sale, PaymentMethod.CASH);
@@ -155,7 +158,7 @@ public class SalesServiceImplTest {
         items.put(lowStockProduct, 10);
         sale.setItems(items);
         
-        when(store.processSale(any(), any())).thenThrow(new InsufficientQuantityException("Not enough stock"));
+        when(store.processSale(any(Sale.class), any(PaymentMethod.class))).thenThrow(new InsufficientQuantityException("Not enough stock"));
         
         salesService.completeSale(sale, PaymentMethod.CREDIT_CARD);
     }
@@ -168,7 +171,7 @@ public class SalesServiceImplTest {
         items.put(expiredProduct, 1);
         sale.setItems(items);
         
-        when(store.processSale(any(), any())).thenThrow(new ExpiredProductException("Product is expired"));
+        when(store.processSale(any(Sale.class), any(PaymentMethod.class))).thenThrow(new ExpiredProductException("Product is expired"));
         
         salesService.completeSale(sale, PaymentMethod.DEBIT_CARD);
     }
@@ -211,4 +214,95 @@ public class SalesServiceImplTest {
         
         assertEquals(250.0, totalSales, 0.001);
     }
-} 
\ No newline at end of file
+    
+    @Test
+    public void testCompleteSalesReportsEachSaleAndIgnoresRepeatedKeys() {
+        Store realStore = new Store("Test Shop", 20.0, 15.0, 5, 30.0);
+        realStore.addProduct(validProduct);
+        realStore.addProduct(lowStockProduct);
+        realStore.setNextReceiptNumber(40);
+        SaleRepository sales = new SaleRepository();
+        ReceiptRepository receipts = new ReceiptRepository();
+        SalesService batchService = new SalesServiceImpl(realStore, receipts, sales);
+        LocalDateTime rungUp = LocalDateTime.now().minusHours(3);
+        
+        Sale first = new Sale(0, cashier);
+        first.addItem(validProduct, 2);
+        Sale tooMany = new Sale(0, cashier);
+        tooMany.addItem(lowStockProduct, 6);
+        Sale second = new Sale(0, cashier);
+        second.addItem(lowStockProduct, 5);
+        
+        List<SaleSyncResult> results = batchService.completeSales(List.of(
+                new OfflineSale("reg5-1", first, PaymentMethod.CASH, rungUp),
+                new OfflineSale("reg5-2", tooMany, PaymentMethod.CREDIT_CARD, rungUp),
+                new OfflineSale("reg5-3", second, PaymentMethod.CREDIT_CARD, rungUp.plusMinutes(1)),
+                new OfflineSale("reg5-1", first, PaymentMethod.CASH, rungUp)));
+        
+        assertEquals(SyncStatus.COMPLETED, results.get(0).getStatus());
+        assertEquals(SyncStatus.INSUFFICIENT_QUANTITY, results.get(1).getStatus());
+        assertEquals(SyncStatus.COMPLETED, results.get(2).getStatus());
+        assertEquals(SyncStatus.DUPLICATE, results.get(3).getStatus());
+        assertSame(results.get(0).getReceipt(), results.get(3).getReceipt());
+        assertEquals(40, results.get(0).getReceipt().getReceiptNumber());
+        assertEquals(41, results.get(2).getReceipt().getReceiptNumber());
+        assertEquals(rungUp, results.get(0).getReceipt().getDateTime());
+        assertEquals(98, validProduct.getQuantity());
+        assertEquals(0, lowStockProduct.getQuantity());
+        assertEquals(2, receipts.count());
+        assertEquals(2, sales.count());
+        assertTrue(first.isCompleted());
+        
+        List<SaleSyncResult> retry = batchService.completeSales(List.of(
+                new OfflineSale("reg5-3", second, PaymentMethod.CREDIT_CARD, rungUp.plusMinutes(1))));
+        assertEquals(SyncStatus.DUPLICATE, retry.get(0).getStatus());
+        assertEquals(2, realStore.getReceipts().size());
+    }
+
+    @Test
+    public void testRepeatOfARejectedKeyGetsTheSameRejection() {
+        Store realStore = new Store("Test Shop", 20.0, 15.0, 5, 30.0);
+        realStore.addProduct(lowStockProduct);
+        SalesService batchService = new SalesServiceImpl(realStore, new ReceiptRepository(), new SaleRepository());
+        LocalDateTime rungUp = LocalDateTime.now().minusHours(1);
+
+        Sale tooMany = new Sale(0, cashier);
+        tooMany.addItem(lowStockProduct, 6);
+
+        List<SaleSyncResult> results = batchService.completeSales(List.of(
+                new OfflineSale("reg5-9", tooMany, PaymentMethod.CASH, rungUp),
+                new OfflineSale("reg5-9", tooMany, PaymentMethod.CASH, rungUp)));
+
+        assertEquals(SyncStatus.INSUFFICIENT_QUANTITY, results.get(1).getStatus());
+        assertSame(results.get(0), results.get(1));
+        assertNull(realStore.findSyncedReceipt("reg5-9"));
+    }
+
+    @Test
+    public void testCompletedSalesAreRejectedBeforeTheBatchIsRecorded() {
+        Store realStore = new Store("Test Shop", 20.0, 15.0, 5, 30.0);
+        realStore.addProduct(validProduct);
+        SaleRepository sales = new SaleRepository();
+        SalesService batchService = new SalesServiceImpl(realStore, new ReceiptRepository(), sales);
+        LocalDateTime rungUp = LocalDateTime.now().minusHours(1);
+
+        Sale done = new Sale(7, cashier);
+        done.addItem(validProduct, 1);
+        done.completeSale(PaymentMethod.CASH, 1.2, null);
+        Sale fresh = new Sale(0, cashier);
+        fresh.addItem(validProduct, 3);
+
+        List<SaleSyncResult> results = batchService.completeSales(List.of(
+                new OfflineSale("reg6-1", done, PaymentMethod.CASH, rungUp),
+                new OfflineSale("reg6-2", fresh, PaymentMethod.CASH, rungUp),
+                new OfflineSale("reg6-3", fresh, PaymentMethod.CASH, rungUp)));
+
+        assertEquals(SyncStatus.ALREADY_COMPLETED, results.get(0).getStatus());
+        assertEquals(SyncStatus.COMPLETED, results.get(1).getStatus());
+        assertEquals(SyncStatus.ALREADY_COMPLETED, results.get(2).getStatus());
+        assertEquals(97, validProduct.getQuantity());
+        assertEquals(1, realStore.getReceipts().size());
+        assertEquals(1, sales.count());
+        assertNull(realStore.findSyncedReceipt("reg6-3"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.shop.tools;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void testZipfFavoursLowRanks() {
+        ZipfDistribution zipf = new ZipfDistribution(100, 1.0);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] counts = new int[100];
+        for (int i = 0; i < 100_000; i++) {
+            counts[zipf.sample(random)]++;
+        }
+
+        assertTrue(counts[0] > counts[1]);
+        assertTrue(counts[1] > counts[9]);
+        assertTrue(counts[9] > counts[99]);
+        // Rank 1 takes 1 / H(100), about 19% of the draws
+        assertEquals(0.19, counts[0] / 100_000.0, 0.01);
+    }
+
+    @Test
+    public void testBasketSizesFollowTheConfiguredMeanAndCap() {
+        LoadGenerator generator = new LoadGenerator();
+        generator.setBasketMean(4);
+        generator.setBasketMax(10);
+        SplittableRandom random = new SplittableRandom(3);
+
+        long total = 0;
+        for (int i = 0; i < 50_000; i++) {
+            int size = generator.sampleBasketSize(random);
+            assertTrue(size >= 1 && size <= 10);
+            total += size;
+        }
+        // The cap trims the geometric tail a little below the mean of 4
+        assertEquals(3.8, total / 50_000.0, 0.15);
+    }
+
+    @Test
+    public void testShortRunReportsThroughputAndPercentiles() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator();
+        generator.setRegisters(3);
+        generator.setCatalogSize(50);
+        generator.setWarmupSeconds(0);
+        generator.setDurationSeconds(0.3);
+
+        LoadReport report = generator.run();
+
+        assertTrue(report.getCompletedSales() > 0);
+        assertEquals(0, report.getFailedSales());
+        assertTrue(report.getSalesPerSecond() > 0);
+        assertTrue(report.getLatencyNanos(0.5) <= report.getLatencyNanos(0.99));
+        assertTrue(report.getLatencyNanos(0.999) <= report.getMaxLatencyNanos());
+        assertEquals(2, report.toCsv().split("\n").length);
+        assertTrue(report.toText().contains("completeSale p999"));
+    }
+
+    @Test
+    public void testPercentilesUseNearestRank() {
+        LoadReport report = new LoadReport(1, "platform", 1_000_000_000L, 4, 0, 4, new long[]{40, 10, 30, 20});
+
+        assertEquals(20, report.getLatencyNanos(0.5));
+        assertEquals(40, report.getLatencyNanos(0.99));
+        assertEquals(4.0, report.getSalesPerSecond(), 0.001);
+    }
+}
@@ -0,0 +1,91 @@
+package com.shop.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvictedWhenOverWeight() {
+        BoundedCache<String, String> cache = new BoundedCache<>(30, String::length);
+        cache.put("a", "0123456789");
+        cache.put("b", "0123456789");
+        cache.put("c", "0123456789");
+
+        // Touching "a" makes "b" the eldest
+        assertEquals("0123456789", cache.get("a"));
+        cache.put("d", "0123456789");
+
+        assertTrue(cache.containsKey("a"));
+        assertFalse(cache.containsKey("b"));
+        assertEquals(30, cache.weight());
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(3, stats.getSize());
+    }
+
+    @Test
+    public void testLoaderRunsOnlyOnMiss() {
+        BoundedCache<Integer, String> cache = BoundedCache.forStrings(1024);
+        int[] loads = new int[1];
+
+        assertEquals("7", cache.get(7, key -> { loads[0]++; return String.valueOf(key); }));
+        assertEquals("7", cache.get(7, key -> { loads[0]++; return String.valueOf(key); }));
+
+        assertEquals(1, loads[0]);
+        assertEquals(1, cache.stats().getMisses());
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(0.5, cache.stats().getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void testReplacingAndOversizedValuesKeepWeightConsistent() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, String::length);
+        cache.put("a", "12345");
+        cache.put("a", "123");
+        assertEquals(3, cache.weight());
+
+        cache.put("a", "this value is too large");
+        assertFalse(cache.containsKey("a"));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void testSegmentedCacheStaysWithinItsLimitUnderConcurrentUse() throws Exception {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(16 * 100, String::length, 16);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t * 10_000;
+            results.add(executor.submit(() -> {
+                for (int key = offset; key < offset + 10_000; key++) {
+                    cache.put(key, "0123456789");
+                    cache.get(key - 5);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        CacheStats stats = cache.stats();
+        assertTrue(cache.weight() <= 16 * 100);
+        assertEquals(cache.weight(), 10L * cache.size());
+        assertEquals(80_000, stats.getSize() + stats.getEvictions());
+        assertEquals(80_000, stats.getHits() + stats.getMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveLimitIsRejected() {
+        new BoundedCache<String, String>(0, String::length);
+    }
+}
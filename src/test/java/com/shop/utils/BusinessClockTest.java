@@ -0,0 +1,70 @@
+package com.shop.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.shop.model.product.FoodProduct;
+import com.shop.model.product.Product;
+
+public class BusinessClockTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Sofia");
+
+    private BusinessClock previous;
+    private BusinessClock clock;
+
+    @Before
+    public void setUp() {
+        previous = BusinessClock.get();
+        clock = new BusinessClock(fixedAt(LocalDateTime.of(2024, 3, 10, 23, 59)));
+        BusinessClock.install(clock);
+    }
+
+    @After
+    public void tearDown() {
+        BusinessClock.install(previous);
+    }
+
+    @Test
+    public void testRolloverIsPublishedOncePerDay() {
+        List<String> events = new ArrayList<>();
+        clock.addRolloverListener((from, to) -> events.add(from + ">" + to));
+
+        assertEquals(LocalDate.of(2024, 3, 10), clock.today());
+        clock.setClock(fixedAt(LocalDateTime.of(2024, 3, 10, 23, 59, 59)));
+        assertTrue(events.isEmpty());
+
+        clock.setClock(fixedAt(LocalDateTime.of(2024, 3, 11, 0, 0)));
+        assertEquals(LocalDate.of(2024, 3, 11).toEpochDay(), clock.epochDay());
+        assertEquals(List.of("2024-03-10>2024-03-11"), events);
+        assertEquals(LocalDateTime.of(2024, 3, 11, 0, 0), clock.now());
+    }
+
+    @Test
+    public void testExpiryChecksFollowTheInstalledClock() {
+        Product milk = new FoodProduct(1, "Milk", 2.0, LocalDate.of(2024, 3, 12), 10);
+
+        assertEquals(2, milk.daysUntilExpiration());
+        assertFalse(milk.isExpired());
+        assertTrue(DateUtils.isExpiringSoon(milk.getExpirationDate(), 2));
+
+        clock.setClock(fixedAt(LocalDateTime.of(2024, 3, 13, 8, 0)));
+        assertEquals(-1, milk.daysUntilExpiration());
+        assertTrue(milk.isExpired());
+        assertTrue(DateUtils.isExpired(milk.getExpirationDate()));
+        assertFalse(DateUtils.isExpiringSoon(milk.getExpirationDate(), 2));
+    }
+
+    private static Clock fixedAt(LocalDateTime dateTime) {
+        return Clock.fixed(dateTime.atZone(ZONE).toInstant(), ZONE);
+    }
+}
@@ -0,0 +1,82 @@
+package com.shop.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+public class IntLongHashMapTest {
+
+    @Test
+    public void testAddToCreatesAndAccumulatesEntries() {
+        IntLongHashMap map = new IntLongHashMap();
+
+        assertEquals(0, map.get(7));
+        assertEquals(-1, map.getOrDefault(7, -1));
+        assertEquals(3, map.addTo(7, 3));
+        assertEquals(8, map.addTo(7, 5));
+        map.put(-2, 11);
+
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey(-2));
+        assertFalse(map.containsKey(0));
+        assertEquals(8, map.get(7));
+    }
+
+    @Test
+    public void testGrowsPastManyKeys() {
+        IntLongHashMap map = new IntLongHashMap();
+        for (int key = 0; key < 100_000; key++) {
+            map.addTo(key, key);
+        }
+        for (int key = 0; key < 100_000; key++) {
+            map.addTo(key, 1);
+        }
+
+        assertEquals(100_000, map.size());
+        assertEquals(50_001, map.get(50_000));
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(99_999, keys[keys.length - 1]);
+    }
+
+    @Test
+    public void testAddAllAndEquality() {
+        IntLongHashMap first = new IntLongHashMap();
+        first.addTo(1, 10);
+        first.addTo(2, 20);
+        IntLongHashMap second = new IntLongHashMap(100);
+        second.addTo(2, 5);
+        second.addTo(3, 1);
+
+        first.addAll(second);
+
+        IntLongHashMap expected = new IntLongHashMap();
+        expected.put(3, 1);
+        expected.put(2, 25);
+        expected.put(1, 10);
+        assertEquals(expected, first);
+        assertEquals(expected.hashCode(), first.hashCode());
+
+        first.clear();
+        assertTrue(first.isEmpty());
+        assertEquals(0, first.get(1));
+    }
+
+    @Test
+    public void testDoubleMapSumsMoney() {
+        IntDoubleHashMap map = new IntDoubleHashMap();
+        map.addTo(1, 2.5);
+        map.addTo(1, 1.25);
+        map.addTo(4, 10.0);
+
+        IntDoubleHashMap other = new IntDoubleHashMap();
+        other.addTo(4, 0.5);
+        map.addAll(other);
+
+        assertEquals(3.75, map.get(1), 0.0001);
+        assertEquals(10.5, map.get(4), 0.0001);
+        assertEquals(0.0, map.get(9), 0.0);
+        assertEquals(2, map.size());
+    }
+}
@@ -0,0 +1,38 @@
+package com.shop.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TopKTest {
+
+    @Test
+    public void testKeepsHighestScoresInDescendingOrder() {
+        TopK top = new TopK(3);
+        long[] scores = {5, 40, 12, 7, 40, 1, 33};
+        for (int key = 0; key < scores.length; key++) {
+            top.offer(key, scores[key]);
+        }
+
+        assertEquals(3, top.size());
+        // Equal scores keep the lower key first
+        assertArrayEquals(new int[]{1, 4, 6}, top.drainDescending());
+        assertEquals(0, top.size());
+    }
+
+    @Test
+    public void testFewerCandidatesThanK() {
+        TopK top = new TopK(10);
+        top.offer(3, 1);
+        top.offer(8, 9);
+
+        assertArrayEquals(new int[]{8, 3}, top.drainDescending());
+    }
+
+    @Test
+    public void testZeroSizeKeepsNothing() {
+        TopK top = new TopK(0);
+        top.offer(1, 100);
+
+        assertEquals(0, top.drainDescending().length);
+    }
+}